@@ -0,0 +1,50 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.Customer;
+import org.sindaryn.datafi.service.ArchivableDataManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * archiveCollection(...) and deArchiveCollection(...) of batchSize customers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveBenchmark {
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ArchivableDataManager<Customer> archivableDataManager;
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        customers = CustomerFixture.seed(context, batchSize);
+        archivableDataManager = context.getBean("customerArchivableDataManager", ArchivableDataManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int archiveCollection() {
+        return archivableDataManager.archiveCollection(customers);
+    }
+
+    @Benchmark
+    public int deArchiveCollection() {
+        return archivableDataManager.deArchiveCollection(customers);
+    }
+}
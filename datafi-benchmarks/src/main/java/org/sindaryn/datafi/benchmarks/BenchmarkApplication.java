@@ -0,0 +1,20 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@SpringBootApplication
+public class BenchmarkApplication {
+    /**
+     * Each benchmark starts its own (non-web) application context
+     * within its @Setup, and closes it within its @TearDown.
+     */
+    public static ConfigurableApplicationContext start() {
+        SpringApplication application = new SpringApplication(BenchmarkApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setLogStartupInfo(false);
+        return application.run();
+    }
+}
@@ -0,0 +1,76 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cascadedUpdate(...) of a Customer -> Address -> Country graph, where every level changes.
+ * A single update takes microseconds, which a per invocation setup would dwarf - so each iteration
+ * instead runs a batch of POOL_SIZE updates, of graphs seeded and loaded beforehand (outside of the measurement).
+ * Each graph is updated once, as the loaded instance holds a stale @Version afterwards, and none of them
+ * share an address or country. Results are per batch - divide by POOL_SIZE for the time per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = CascadedUpdateBenchmark.POOL_SIZE)
+@Measurement(iterations = 20, batchSize = CascadedUpdateBenchmark.POOL_SIZE)
+@Fork(1)
+public class CascadedUpdateBenchmark {
+    static final int POOL_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private CustomerDataManager customerDataManager;
+    private List<Customer> toUpdate;
+    private List<Customer> sources;
+    private int next;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        customerDataManager = context.getBean(CustomerDataManager.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareUpdates() {
+        List<Country> countries = new ArrayList<>(POOL_SIZE);
+        List<Address> addresses = new ArrayList<>(POOL_SIZE);
+        List<Customer> customers = new ArrayList<>(POOL_SIZE);
+        sources = new ArrayList<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            counter++;
+            countries.add(new Country("country " + counter));
+            addresses.add(new Address("street " + counter, countries.get(i)));
+            customers.add(new Customer("customer " + counter, "customer" + counter + "@example.com",
+                    "Oslo", counter % 100, addresses.get(i)));
+            Address changedAddress = new Address("changed street " + counter, new Country("changed country " + counter));
+            sources.add(new Customer("changed customer " + counter, "changed" + counter + "@example.com",
+                    "Lisbon", (counter + 1) % 100, changedAddress));
+        }
+        context.getBean(CountryDao.class).saveAll(countries);
+        context.getBean(AddressDao.class).saveAll(addresses);
+        List<Object> ids = new ArrayList<>(POOL_SIZE);
+        for (Customer customer : context.getBean(CustomerDao.class).saveAll(customers)) ids.add(customer.getId());
+        //freshly loaded, as they would be ahead of an update
+        toUpdate = new ArrayList<>(POOL_SIZE);
+        for (Object id : ids) toUpdate.add(customerDataManager.findById(id).orElseThrow(IllegalStateException::new));
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Customer cascadedUpdate() {
+        int index = next++;
+        return customerDataManager.cascadedUpdate(toUpdate.get(index), sources.get(index));
+    }
+}
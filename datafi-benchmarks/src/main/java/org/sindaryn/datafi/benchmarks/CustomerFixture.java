@@ -0,0 +1,35 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.sindaryn.datafi.benchmarks.model.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seeds the Customer -> Address -> Country test data shared by the benchmarks.
+ */
+class CustomerFixture {
+    static final String[] CITIES = {"Amsterdam", "Berlin", "Lisbon", "Oslo", "Prague", "Vienna", "Warsaw", "Zagreb"};
+    private static final int ADDRESSES = 100;
+
+    static List<Customer> seed(ConfigurableApplicationContext context, int customerCount) {
+        List<Country> countries = context.getBean(CountryDao.class)
+                .saveAll(Arrays.asList(new Country("Austria"), new Country("Norway"), new Country("Portugal")));
+        List<Address> addresses = new ArrayList<>(ADDRESSES);
+        for (int i = 0; i < ADDRESSES; i++)
+            addresses.add(new Address("street " + i, countries.get(i % countries.size())));
+        addresses = context.getBean(AddressDao.class).saveAll(addresses);
+        List<Customer> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            customers.add(new Customer(
+                    "customer " + i,
+                    "customer" + i + "@example.com",
+                    CITIES[i % CITIES.length],
+                    18 + i % 60,
+                    addresses.get(i % addresses.size())));
+        }
+        return context.getBean(CustomerDao.class).saveAll(customers);
+    }
+}
@@ -0,0 +1,77 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.Customer;
+import org.sindaryn.datafi.benchmarks.model.CustomerAccessor;
+import org.sindaryn.datafi.reflection.CachedEntityType;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.sindaryn.datafi.reflection.ReflectionCache.getClassFields;
+
+/**
+ * CachedEntityType.invokeGetter / invokeSetter via the generated '<entity name>Accessor',
+ * via the LambdaMetafactory based fallback (no generated accessor), and via plain reflection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityAccessBenchmark {
+    private CachedEntityType withGeneratedAccessor;
+    private CachedEntityType withoutGeneratedAccessor;
+    private Method reflectiveGetter;
+    private Method reflectiveSetter;
+    private Customer customer;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        withGeneratedAccessor = new CachedEntityType(
+                Customer.class,
+                getClassFields(Customer.class),
+                Arrays.asList(Customer.class.getMethods()),
+                new CustomerAccessor());
+        withoutGeneratedAccessor = new CachedEntityType(
+                Customer.class,
+                getClassFields(Customer.class),
+                Arrays.asList(Customer.class.getMethods()));
+        reflectiveGetter = Customer.class.getMethod("getName");
+        reflectiveSetter = Customer.class.getMethod("setAge", Integer.class);
+        customer = new Customer("customer", "customer@example.com", "Oslo", 42, null);
+    }
+
+    @Benchmark
+    public Object getterGeneratedAccessor() {
+        return withGeneratedAccessor.invokeGetter(customer, "name");
+    }
+
+    @Benchmark
+    public Object getterLambdaAccessor() {
+        return withoutGeneratedAccessor.invokeGetter(customer, "name");
+    }
+
+    @Benchmark
+    public Object getterReflection() throws Exception {
+        return reflectiveGetter.invoke(customer);
+    }
+
+    @Benchmark
+    public void setterGeneratedAccessor() {
+        withGeneratedAccessor.invokeSetter(customer, "age", counter++);
+    }
+
+    @Benchmark
+    public void setterLambdaAccessor() {
+        withoutGeneratedAccessor.invokeSetter(customer, "age", counter++);
+    }
+
+    @Benchmark
+    public void setterReflection() throws Exception {
+        reflectiveSetter.invoke(customer, counter++);
+    }
+}
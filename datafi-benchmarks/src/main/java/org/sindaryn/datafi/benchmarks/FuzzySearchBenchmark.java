@@ -0,0 +1,50 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.Customer;
+import org.sindaryn.datafi.benchmarks.model.CustomerDataManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fuzzySearchBy(...) over Customer.name and Customer.email (@FuzzySearchByFields).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private CustomerDataManager customerDataManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        CustomerFixture.seed(context, rows);
+        customerDataManager = context.getBean(CustomerDataManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //matches a handful of rows
+    @Benchmark
+    public List<Customer> fuzzySearchByNarrowTerm() {
+        return customerDataManager.fuzzySearchBy("customer 12");
+    }
+
+    //matches every row, of which the first page (of 50) is fetched
+    @Benchmark
+    public List<Customer> fuzzySearchByBroadTerm() {
+        return customerDataManager.fuzzySearchBy("example.com");
+    }
+}
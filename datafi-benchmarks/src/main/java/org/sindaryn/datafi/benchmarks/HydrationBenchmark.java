@@ -0,0 +1,63 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.LegacyPerson;
+import org.sindaryn.datafi.benchmarks.model.LegacyPersonDao;
+import org.sindaryn.datafi.benchmarks.model.Person;
+import org.sindaryn.datafi.benchmarks.model.PersonDao;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load throughput of entities with an embedded id which generates its value
+ * upon instantiation (LegacySimpleId), versus upon first persist (SimpleId).
+ * Each invocation loads all rows into a fresh persistence context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HydrationBenchmark {
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private PersonDao personDao;
+    private LegacyPersonDao legacyPersonDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        personDao = context.getBean(PersonDao.class);
+        legacyPersonDao = context.getBean(LegacyPersonDao.class);
+        List<Person> people = new ArrayList<>(rows);
+        List<LegacyPerson> legacyPeople = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            people.add(new Person("person " + i, i % 100));
+            legacyPeople.add(new LegacyPerson("person " + i, i % 100));
+        }
+        personDao.saveAll(people);
+        legacyPersonDao.saveAll(legacyPeople);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LegacyPerson> loadWithIdGeneratedOnInstantiation() {
+        return legacyPersonDao.findAll();
+    }
+
+    @Benchmark
+    public List<Person> loadWithIdGeneratedOnFirstPersist() {
+        return personDao.findAll();
+    }
+}
@@ -0,0 +1,90 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.benchmarks.model.Customer;
+import org.sindaryn.datafi.benchmarks.model.CustomerDao;
+import org.sindaryn.datafi.benchmarks.model.CustomerDataManager;
+import org.sindaryn.datafi.service.DataManager;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getBy(...) and selectByResolver(...) through a plain DataManager<Customer>
+ * (CachedDaoType dispatch), through the string based overrides of the generated
+ * CustomerDataManager, through its typed methods, and directly through the dao.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolverDispatchBenchmark {
+    @Param({"1000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private DataManager<Customer> dataManager;
+    private CustomerDataManager customerDataManager;
+    private CustomerDao customerDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        CustomerFixture.seed(context, rows);
+        customerDataManager = context.getBean(CustomerDataManager.class);
+        customerDao = context.getBean(CustomerDao.class);
+        AutowireCapableBeanFactory beanFactory = context.getAutowireCapableBeanFactory();
+        dataManager = new DataManager<>(Customer.class);
+        beanFactory.autowireBean(dataManager);
+        beanFactory.initializeBean(dataManager, "genericCustomerDataManager");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Customer> getByDataManager() {
+        return dataManager.getBy("city", "Oslo");
+    }
+
+    @Benchmark
+    public List<Customer> getByCustomerDataManager() {
+        return customerDataManager.getBy("city", "Oslo");
+    }
+
+    @Benchmark
+    public List<Customer> getByCityCustomerDataManager() {
+        return customerDataManager.getByCity("Oslo");
+    }
+
+    @Benchmark
+    public List<Customer> findByCityDao() {
+        return customerDao.findByCity("Oslo");
+    }
+
+    @Benchmark
+    public List<Customer> selectByResolverDataManager() {
+        return dataManager.selectByResolver("findByCityAndAge", "Oslo", 42);
+    }
+
+    @Benchmark
+    public List<Customer> selectByResolverCustomerDataManager() {
+        return customerDataManager.selectByResolver("findByCityAndAge", "Oslo", 42);
+    }
+
+    @Benchmark
+    public List<Customer> findByCityAndAgeCustomerDataManager() {
+        return customerDataManager.findByCityAndAge("Oslo", 42);
+    }
+
+    @Benchmark
+    public List<Customer> findByCityAndAgeDao() {
+        return customerDao.findByCityAndAge("Oslo", 42);
+    }
+}
@@ -0,0 +1,47 @@
+package org.sindaryn.datafi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sindaryn.datafi.persistence.SequenceGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation throughput, single threaded and under contention.
+ * Note that a single node issues at most 4096 ids per millisecond,
+ * beyond which the generator borrows ahead of - and eventually waits for - the clock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceGeneratorBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    private SequenceGenerator sequenceGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sequenceGenerator = new SequenceGenerator(1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextId() {
+        return sequenceGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextIdContended() {
+        return sequenceGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long[] nextIdsContended() {
+        return sequenceGenerator.nextIds(BATCH_SIZE);
+    }
+}
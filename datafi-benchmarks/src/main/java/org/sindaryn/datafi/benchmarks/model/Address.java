@@ -0,0 +1,23 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+public class Address extends StandardPersistableEntity {
+    private String street;
+    @ManyToOne
+    private Country country;
+
+    public Address(String street, Country country) {
+        this.street = street;
+        this.country = country;
+    }
+}
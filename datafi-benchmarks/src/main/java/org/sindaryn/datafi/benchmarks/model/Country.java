@@ -0,0 +1,19 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+public class Country extends StandardPersistableEntity {
+    private String name;
+
+    public Country(String name) {
+        this.name = name;
+    }
+}
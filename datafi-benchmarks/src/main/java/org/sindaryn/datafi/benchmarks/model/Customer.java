@@ -0,0 +1,41 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.annotations.FuzzySearchByFields;
+import org.sindaryn.datafi.annotations.GetBy;
+import org.sindaryn.datafi.annotations.WithResolver;
+import org.sindaryn.datafi.persistence.Archivable;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+
+/**
+ * Customer -> Address -> Country is the nested @ManyToOne
+ * graph used by CascadedUpdateBenchmark.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@WithResolver(name = "findByCityAndAge", args = {"city", "age"})
+@FuzzySearchByFields(fields = {"name", "email"})
+public class Customer extends StandardPersistableEntity implements Archivable {
+    private String name;
+    private String email;
+    @GetBy
+    private String city;
+    private Integer age;
+    private Boolean isArchived = false;
+    @ManyToOne
+    private Address address;
+
+    public Customer(String name, String email, String city, Integer age, Address address) {
+        this.name = name;
+        this.email = email;
+        this.city = city;
+        this.age = age;
+        this.address = address;
+    }
+}
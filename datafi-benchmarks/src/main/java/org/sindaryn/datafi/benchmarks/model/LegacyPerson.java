@@ -0,0 +1,26 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.BasePersistableEntity;
+
+import javax.persistence.Entity;
+
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+public class LegacyPerson extends BasePersistableEntity<LegacySimpleId> {
+    private String name;
+    private Integer age;
+
+    public LegacyPerson(String name, Integer age) {
+        this.name = name;
+        this.age = age;
+    }
+
+    @Override
+    public void initId() {
+        this.id = new LegacySimpleId();
+    }
+}
@@ -0,0 +1,25 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.IdFactory;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+/**
+ * SimpleId as it was before ids were assigned upon first persist - every
+ * instantiation, including Hibernate hydrating an existing row, generates an id.
+ * Kept as the baseline of HydrationBenchmark.
+ */
+@Getter @Setter
+@Embeddable
+@NoArgsConstructor
+public class LegacySimpleId implements Serializable {
+    private Long id = IdFactory.getNextId();
+    @Override
+    public String toString(){
+        return this.id.toString();
+    }
+}
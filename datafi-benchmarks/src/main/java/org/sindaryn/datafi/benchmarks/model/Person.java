@@ -0,0 +1,21 @@
+package org.sindaryn.datafi.benchmarks.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+public class Person extends StandardPersistableEntity {
+    private String name;
+    private Integer age;
+
+    public Person(String name, Integer age) {
+        this.name = name;
+        this.age = age;
+    }
+}
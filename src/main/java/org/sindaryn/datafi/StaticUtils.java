@@ -1,37 +1,77 @@
 package org.sindaryn.datafi;
 
-import com.google.common.collect.Sets;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import org.apache.commons.lang3.StringUtils;
 import org.sindaryn.datafi.persistence.Archivable;
+import org.sindaryn.datafi.persistence.GenericDao;
 import org.sindaryn.datafi.reflection.CachedEntityType;
 import org.sindaryn.datafi.reflection.ReflectionCache;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.persistence.Column;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.tools.Diagnostic;
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.*;
 
 public class StaticUtils {
+    //processor option pinning the package of the generated DataManagersConfig
+    public static final String BASE_PACKAGE_OPTION = "datafi.basePackage";
+
     public static String toPascalCase(String string){
         return string.substring(0, 1).toUpperCase() + string.substring(1);
     }
     public static String toCamelCase(String string){
         return string.substring(0, 1).toLowerCase() + string.substring(1);
     }
+    /**
+     * camelCase to snake_case, as per spring boot's default physical naming strategy
+     * @param name
+     * @return
+     */
+    public static String toSnakeCase(String name){
+        StringBuilder result = new StringBuilder(name.replace('.', '_'));
+        for (int i = 1; i < result.length() - 1; i++) {
+            if (Character.isLowerCase(result.charAt(i - 1)) &&
+                    Character.isUpperCase(result.charAt(i)) &&
+                    Character.isLowerCase(result.charAt(i + 1))) {
+                result.insert(i++, '_');
+            }
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+    //the physical table name of the given entity, for use within native queries
+    public static String tableNameOf(TypeElement entity){
+        Table table = entity.getAnnotation(Table.class);
+        if(table != null && !table.name().equals("")) return table.name();
+        Entity entityAnnotation = entity.getAnnotation(Entity.class);
+        if(entityAnnotation != null && !entityAnnotation.name().equals("")) return toSnakeCase(entityAnnotation.name());
+        return toSnakeCase(entity.getSimpleName().toString());
+    }
+    //the physical column name of the given field, for use within native queries
+    public static String columnNameOf(Element field){
+        Column column = field.getAnnotation(Column.class);
+        if(column != null && !column.name().equals("")) return column.name();
+        return toSnakeCase(field.getSimpleName().toString());
+    }
     public static String toPlural(String aString){
         String suffix = "";
         if(aString.endsWith("s")) suffix = "es";
@@ -49,34 +89,41 @@ public class StaticUtils {
                         message + " --> " + element.getSimpleName().toString(), element);
     }
 
+    /**
+     * Writes the given type to a source file. The output depends on its input alone - no timestamps -
+     * such that build tools can cache it.
+     * @param originatingElements - the elements the file is generated from, as required by incremental builds
+     */
     public static void writeToJavaFile(String entitySimpleName,
                                        String packageName,
                                        TypeSpec.Builder builder,
                                        ProcessingEnvironment processingEnvironment,
-                                       String templateType) {
-        builder.addJavadoc(
-                entitySimpleName +
-                        " " + templateType + " generated by org.sindaryn @" +
-                        LocalDateTime.now());
+                                       String templateType,
+                                       Element... originatingElements) {
+        builder.addJavadoc(entitySimpleName + " " + templateType + " generated by org.sindaryn");
+        for (Element originatingElement : originatingElements)
+            builder.addOriginatingElement(originatingElement);
         final TypeSpec newClass = builder.build();
         final JavaFile javaFile = JavaFile.builder(packageName, newClass).build();
 
         try {
-            javaFile.writeTo(System.out);
             javaFile.writeTo(processingEnvironment.getFiler());
         } catch (IOException e) {
-            e.printStackTrace();
+            processingEnvironment.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + packageName + "." + newClass.name + ": " + e.getMessage());
         }
     }
     public static <T> Object getId(T input, ReflectionCache reflectionCache) {
-        return reflectionCache.getEntitiesCache().get(input.getClass().getSimpleName()).invokeGetter(input, "id");
+        return reflectionCache.getEntitiesCache().get(input.getClass().getSimpleName()).getId(input);
     }
     public static void throwEntityNotFoundException(String simpleName, Object id){
         throw new RuntimeException("Cannot find " + simpleName + " by id: " + id);
     }
     public static<T> List<Object> getIdList(Collection<T> input, ReflectionCache reflectionCache) {
-        List<Object> ids = new ArrayList<>();
-        input.forEach(item -> ids.add(getId(item, reflectionCache)));
+        List<Object> ids = new ArrayList<>(input.size());
+        if(input.isEmpty()) return ids;
+        CachedEntityType entityType = reflectionCache.getEntitiesCache().get(input.iterator().next().getClass().getSimpleName());
+        input.forEach(item -> ids.add(entityType.getId(item)));
         return ids;
     }
 
@@ -108,12 +155,15 @@ public class StaticUtils {
      * @return
      */
     public static ClassName getIdType(TypeElement entity, ProcessingEnvironment processingEnv) {
-        for(Element field : entity.getEnclosedElements()){
+        //include inherited fields, i.e. the 'id' of StandardPersistableEntity
+        for(Element field : processingEnv.getElementUtils().getAllMembers(entity)){
             if(field.getKind() == ElementKind.FIELD &&
                     (
                             field.getAnnotation(Id.class) != null || field.getAnnotation(EmbeddedId.class) != null
                     )){
-                return (ClassName) ClassName.get(field.asType());
+                //resolve generic id types - i.e. BasePersistableEntity<TID>
+                TypeMirror idType = processingEnv.getTypeUtils().asMemberOf((DeclaredType) entity.asType(), field);
+                return (ClassName) ClassName.get(processingEnv.getTypeUtils().erasure(idType));
             }
         }
         processingEnv
@@ -123,9 +173,18 @@ public class StaticUtils {
         return null;
     }
 
-    public static String getBasePackage(RoundEnvironment roundEnvironment) {
+    /**
+     * The common package of all root elements of the round - not just of the entities - such that
+     * the generated configuration sits where applications import and scan it from.
+     * Can be set explicitly via the 'datafi.basePackage' processor option, which incremental builds should do,
+     * as they only pass in the root elements which changed.
+     */
+    public static String getBasePackage(RoundEnvironment roundEnvironment, ProcessingEnvironment processingEnv) {
+        String configured = processingEnv.getOptions().get(BASE_PACKAGE_OPTION);
+        if(configured != null && !configured.isEmpty()) return configured;
         String commonPrefix = StringUtils.getCommonPrefix(getRootElementNames(roundEnvironment));
-        return commonPrefix.substring(0, commonPrefix.lastIndexOf("."));
+        int lastDot = commonPrefix.lastIndexOf(".");
+        return lastDot != -1 ? commonPrefix.substring(0, lastDot) : "";
     }
 
     public static String[] getRootElementNames(RoundEnvironment roundEnvironment) {
@@ -133,21 +192,55 @@ public class StaticUtils {
                 .getRootElements()
                 .stream()
                 .map(el -> el.asType().toString())
+                .sorted()
                 .toArray(String[]::new);
     }
 
+    //sorted by qualified name, such that generated output doesn't depend on the order entities are seen in
     @SuppressWarnings("unchecked")
     public static Set<? extends TypeElement> getEntitiesSet(RoundEnvironment roundEnvironment) {
-        Set<TypeElement> entities = new HashSet<>();
+        Set<TypeElement> entities = new TreeSet<>(Comparator.comparing(entity -> entity.getQualifiedName().toString()));
         entities.addAll((Collection<? extends TypeElement>) roundEnvironment.getElementsAnnotatedWith(Entity.class));
         entities.addAll((Collection<? extends TypeElement>) roundEnvironment.getElementsAnnotatedWith(Table.class));
-        return Sets.newHashSet(entities);
+        return entities;
     }
 
     public static boolean isArchivable(TypeElement element, ProcessingEnvironment processingEnv) {
         return processingEnv.getTypeUtils().isAssignable(element.asType(), processingEnv.getElementUtils().getTypeElement(Archivable.class.getCanonicalName()).asType());
     }
 
+    /**
+     * query hints of generated Stream<T> returning dao methods - rows are fetched
+     * from the jdbc driver in batches, and the entities are not snapshotted for dirty checking.
+     */
+    public static AnnotationSpec streamQueryHints() {
+        return AnnotationSpec.builder(QueryHints.class)
+                .addMember("value", "$L", queryHint(org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, GenericDao.STREAM_FETCH_SIZE))
+                .addMember("value", "$L", queryHint(org.hibernate.jpa.QueryHints.HINT_READONLY, "true"))
+                .build();
+    }
+
+    private static AnnotationSpec queryHint(String name, String value) {
+        return AnnotationSpec.builder(QueryHint.class)
+                .addMember("name", "$S", name)
+                .addMember("value", "$S", value)
+                .build();
+    }
+
+    /**
+     * the non static fields of the given entity, including inherited fields, along with their types as members
+     * of the entity - i.e. resolving the 'TID id' of BasePersistableEntity<TID>
+     */
+    public static Map<String, TypeName> fieldTypesOf(TypeElement entity, ProcessingEnvironment processingEnv) {
+        Map<String, TypeName> result = new LinkedHashMap<>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(entity)) {
+            if(member.getKind() != ElementKind.FIELD || member.getModifiers().contains(Modifier.STATIC)) continue;
+            TypeMirror type = processingEnv.getTypeUtils().asMemberOf((DeclaredType) entity.asType(), member);
+            result.putIfAbsent(member.getSimpleName().toString(), TypeName.get(type));
+        }
+        return result;
+    }
+
     public static String camelCaseNameOf(Element element) {
         return toCamelCase(element.getSimpleName().toString());
     }
@@ -0,0 +1,8 @@
+package org.sindaryn.datafi.annotations;
+
+public enum CacheEviction {
+    //caffeine's frequency aware policy - falls back to SEGMENTED_LRU if caffeine isn't on the classpath
+    W_TINY_LFU,
+    //a probationary and a protected lru segment - records are promoted upon their second access
+    SEGMENTED_LRU
+}
@@ -0,0 +1,21 @@
+package org.sindaryn.datafi.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches records of the annotated entity by id, as well as by their @GetByUnique fields,
+ * within its DataManager. Records are cached upon being read, and evicted whenever they're
+ * written to via a DataManager. Callers get copies of the cached records, rather than the records themselves.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+    //the max number of cached records - an entry-count bound rather than a memory bound, regardless of eviction policy
+    int maxSize() default 10_000;
+    //0 for no expiry
+    long expireAfterWriteSeconds() default 0;
+    CacheEviction eviction() default CacheEviction.W_TINY_LFU;
+}
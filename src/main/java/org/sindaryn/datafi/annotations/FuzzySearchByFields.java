@@ -8,5 +8,9 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface FuzzySearchByFields {
-    String[] fields();
+    //may be left empty if the fields themselves are annotated with @FuzzySearchBy
+    String[] fields() default {};
+    FuzzySearchStrategy strategy() default FuzzySearchStrategy.LIKE;
+    //the postgres text search configuration, used by POSTGRES_FULL_TEXT
+    String textSearchConfiguration() default "simple";
 }
@@ -0,0 +1,29 @@
+package org.sindaryn.datafi.annotations;
+
+/**
+ * How fuzzySearchBy(...) matches the search term against the fuzzy search fields of an entity.
+ */
+public enum FuzzySearchStrategy {
+    /**
+     * Case insensitive 'LIKE %searchTerm%' across the fields. Works with any database,
+     * but can't make use of an index - every search is a full table scan.
+     */
+    LIKE,
+    /**
+     * PostgreSQL pg_trgm word similarity ('searchTerm <% field'), which is served
+     * by a GIN (or GiST) index with gin_trgm_ops on each field. Tolerates typos.
+     * Requires the pg_trgm extension.
+     */
+    POSTGRES_TRIGRAM,
+    /**
+     * PostgreSQL full text search - the fields are matched as a single tsvector against
+     * plainto_tsquery(searchTerm). Served by a GIN index on the same tsvector expression.
+     * Matches whole words (after stemming, depending on the text search configuration).
+     */
+    POSTGRES_FULL_TEXT,
+    /**
+     * An embedded Lucene index, kept in sync through the FuzzySearchIndexListener
+     * JPA entity listener. Requires org.apache.lucene:lucene-core on the classpath.
+     */
+    LUCENE
+}
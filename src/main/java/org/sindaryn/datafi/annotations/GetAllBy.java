@@ -16,4 +16,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Target({FIELD, TYPE})
 @Retention(RUNTIME)
 public @interface GetAllBy {
+    /*
+    fields to select - MUST BE VALID FIELD NAMES. If given, a findAllProjectedBy<field name>In(...) resolver is
+    generated as well, returning a '<entity name>AllBy<field name>Projection' holding only the given fields
+    */
+    String[] projection() default {};
 }
@@ -13,4 +13,9 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
 @Target({FIELD, TYPE})
 @Retention(SOURCE)
 public @interface GetBy {
+    /*
+    fields to select - MUST BE VALID FIELD NAMES. If given, a findProjectedBy<field name>(...) resolver is
+    generated as well, returning a '<entity name>By<field name>Projection' holding only the given fields
+    */
+    String[] projection() default {};
 }
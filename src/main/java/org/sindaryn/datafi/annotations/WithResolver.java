@@ -17,5 +17,22 @@ public @interface WithResolver {
     String[] args();
     //order
     String orderBy() default "";
+    //the field aggregated by AVG, MAX, MIN and SUM resolvers - MUST BE A VALID FIELD NAME
+    String field() default "";
+    /*
+    fields to group an aggregate by - MUST BE VALID FIELD NAMES. The resolver then returns
+    a '<entity name><resolver name>Result' per group, holding the group's fields and aggregated value
+    */
+    String[] groupBy() default {};
+    /*
+    fields assigned by UPDATE resolvers - MUST BE VALID FIELD NAMES. Each is assigned from a parameter
+    named 'new<field name>', following the args - i.e. set = {"status"} adds a 'newStatus' parameter
+    */
+    String[] set() default {};
+    /*
+    fields selected by a SELECT_BY resolver - MUST BE VALID FIELD NAMES. If given, a '<resolver name>Projected'
+    resolver is generated as well, returning a '<entity name><resolver name>Projection' holding only the given fields
+    */
+    String[] projection() default {};
     //TODO - Figure out a way to further customize the availability of custom annotations here
 }
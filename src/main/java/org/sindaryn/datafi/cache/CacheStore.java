@@ -0,0 +1,13 @@
+package org.sindaryn.datafi.cache;
+
+/**
+ * A size bounded key value store, backing an EntityCache.
+ */
+interface CacheStore<K, V> {
+    //null if absent or expired
+    V get(K key);
+    void put(K key, V value);
+    void invalidate(K key);
+    void invalidateAll();
+    EntityCacheStats stats();
+}
@@ -0,0 +1,44 @@
+package org.sindaryn.datafi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+
+//CacheEviction.W_TINY_LFU - only loaded if caffeine is on the classpath
+class CaffeineCacheStore<K, V> implements CacheStore<K, V> {
+    private final Cache<K, V> cache;
+
+    CaffeineCacheStore(int maxSize, long expireAfterWriteSeconds) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize).recordStats();
+        if(expireAfterWriteSeconds > 0) builder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+        this.cache = builder.build();
+    }
+
+    @Override
+    public V get(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public EntityCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new EntityCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+}
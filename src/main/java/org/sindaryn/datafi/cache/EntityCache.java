@@ -0,0 +1,103 @@
+package org.sindaryn.datafi.cache;
+
+import org.sindaryn.datafi.annotations.CacheEviction;
+import org.sindaryn.datafi.annotations.Cached;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The cache of a given @Cached entity type - records keyed by id, along with the ids
+ * of records keyed by their unique field values. Take note that unique key entries aren't
+ * evicted along with the record they point to, and must be verified against it upon use.
+ * Records read from the database are put along with the token(id) - or tokens() if the ids
+ * aren't known up front - taken before reading them, such that a put racing an eviction of
+ * the same record doesn't outlive it. Evictions are counted per stripe of ids, so that
+ * writes to other records rarely drop a concurrent put.
+ */
+public class EntityCache {
+    private static final String CAFFEINE = "com.github.benmanes.caffeine.cache.Caffeine";
+    //a power of two
+    private static final int STRIPES = 64;
+
+    private final CacheStore<Object, Object> byId;
+    private final CacheStore<List<Object>, Object> idsByUniqueKey;
+    //incremented upon every eviction of an id of the respective stripe, and all of them upon evictAll()
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    EntityCache(Cached cached, ClassLoader classLoader) {
+        this.byId = storeOf(cached, classLoader);
+        this.idsByUniqueKey = storeOf(cached, classLoader);
+    }
+
+    public Object get(Object id) {
+        return byId.get(id);
+    }
+
+    public long token(Object id) {
+        return evictions.get(stripeOf(id));
+    }
+
+    //the tokens of all stripes, for reads whose ids aren't known up front
+    public long[] tokens() {
+        long[] result = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            result[i] = evictions.get(i);
+        return result;
+    }
+
+    /**
+     * Caches the given record, unless it may have been evicted since the given token(id) was taken -
+     * in which case the record may have been read before a write which the eviction stands for.
+     */
+    public void put(Object id, Object entity, long token) {
+        final int stripe = stripeOf(id);
+        if(evictions.get(stripe) != token) return;
+        byId.put(id, entity);
+        //an eviction between the check above and the put would otherwise be overwritten
+        if(evictions.get(stripe) != token) byId.invalidate(id);
+    }
+
+    //as per put(id, entity, token), given the tokens() taken before the record was read
+    public void put(Object id, Object entity, long[] tokens) {
+        put(id, entity, tokens[stripeOf(id)]);
+    }
+
+    public Object idOf(String fieldName, Object fieldValue) {
+        return idsByUniqueKey.get(Arrays.asList(fieldName, fieldValue));
+    }
+
+    public void putUniqueKey(String fieldName, Object fieldValue, Object id) {
+        idsByUniqueKey.put(Arrays.asList(fieldName, fieldValue), id);
+    }
+
+    public void evict(Object id) {
+        evictions.incrementAndGet(stripeOf(id));
+        byId.invalidate(id);
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++)
+            evictions.incrementAndGet(i);
+        byId.invalidateAll();
+        idsByUniqueKey.invalidateAll();
+    }
+
+    //of the records cached by id
+    public EntityCacheStats stats() {
+        return byId.stats();
+    }
+
+    private static int stripeOf(Object id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static <K, V> CacheStore<K, V> storeOf(Cached cached, ClassLoader classLoader) {
+        if(cached.eviction() == CacheEviction.W_TINY_LFU && ClassUtils.isPresent(CAFFEINE, classLoader))
+            return new CaffeineCacheStore<>(cached.maxSize(), cached.expireAfterWriteSeconds());
+        return new SegmentedLruCacheStore<>(cached.maxSize(), cached.expireAfterWriteSeconds());
+    }
+}
@@ -0,0 +1,59 @@
+package org.sindaryn.datafi.cache;
+
+import org.sindaryn.datafi.annotations.Cached;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The EntityCache of each @Cached entity type, shared by all DataManagers of that type.
+ */
+@Component
+public class EntityCacheRegistry {
+    private final Map<Class<?>, Optional<EntityCache>> caches = new ConcurrentHashMap<>();
+
+    //null if the given type isn't annotated with @Cached
+    public EntityCache cacheOf(Class<?> entityType) {
+        return caches.computeIfAbsent(entityType, type -> {
+            Cached cached = type.getAnnotation(Cached.class);
+            return cached != null ? Optional.of(new EntityCache(cached, type.getClassLoader())) : Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * Evicts the given records right away, and once more when the current transaction completes -
+     * such that the state read by concurrent transactions in the meantime doesn't linger.
+     */
+    public void evict(Class<?> entityType, Collection<?> ids) {
+        final EntityCache cache = cacheOf(entityType);
+        if(cache == null || ids.isEmpty()) return;
+        final List<?> toEvict = new ArrayList<>(ids);
+        final Runnable eviction = () -> toEvict.forEach(cache::evict);
+        eviction.run();
+        afterCompletion(eviction);
+    }
+
+    public void evictAll(Class<?> entityType) {
+        final EntityCache cache = cacheOf(entityType);
+        if(cache == null) return;
+        cache.evictAll();
+        afterCompletion(cache::evictAll);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
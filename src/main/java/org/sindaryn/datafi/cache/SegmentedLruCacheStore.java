@@ -0,0 +1,108 @@
+package org.sindaryn.datafi.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CacheEviction.SEGMENTED_LRU - new entries enter a probationary segment, and are promoted
+ * to the protected segment (80% of the capacity) upon being read again. Entries demoted from
+ * the protected segment get another chance within the probationary one, such that a single
+ * scan over many records can't flush out the frequently read ones.
+ */
+class SegmentedLruCacheStore<K, V> implements CacheStore<K, V> {
+    private final int protectedCapacity;
+    private final int probationCapacity;
+    private final long expireAfterWriteNanos;
+    //access ordered - the eldest entry is the least recently used one
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long hitCount, missCount, evictionCount;
+
+    SegmentedLruCacheStore(int maxSize, long expireAfterWriteSeconds) {
+        if(maxSize <= 0) throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        this.protectedCapacity = (int) (maxSize * 0.8);
+        this.probationCapacity = maxSize - protectedCapacity;
+        this.expireAfterWriteNanos = expireAfterWriteSeconds > 0 ? expireAfterWriteSeconds * 1_000_000_000L : 0;
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        Entry<V> entry = protectedSegment.get(key);
+        boolean isProtected = entry != null;
+        if(!isProtected) entry = probation.get(key);
+        if(entry != null && isExpired(entry)){
+            (isProtected ? protectedSegment : probation).remove(key);
+            entry = null;
+        }
+        if(entry == null){
+            missCount++;
+            return null;
+        }
+        if(!isProtected) promote(key, entry);
+        hitCount++;
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, expireAfterWriteNanos > 0 ? System.nanoTime() : 0);
+        if(protectedSegment.containsKey(key)){
+            protectedSegment.put(key, entry);
+            return;
+        }
+        probation.put(key, entry);
+        evictExcess();
+    }
+
+    @Override
+    public synchronized void invalidate(K key) {
+        if(protectedSegment.remove(key) == null) probation.remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        protectedSegment.clear();
+        probation.clear();
+    }
+
+    @Override
+    public synchronized EntityCacheStats stats() {
+        return new EntityCacheStats(hitCount, missCount, evictionCount, protectedSegment.size() + probation.size());
+    }
+
+    private void promote(K key, Entry<V> entry) {
+        probation.remove(key);
+        protectedSegment.put(key, entry);
+        if(protectedSegment.size() > protectedCapacity){
+            Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<K, Entry<V>> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+        evictExcess();
+    }
+
+    private void evictExcess() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = probation.entrySet().iterator();
+        while (probation.size() > probationCapacity && eldest.hasNext()){
+            eldest.next();
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return expireAfterWriteNanos > 0 && System.nanoTime() - entry.writtenAt > expireAfterWriteNanos;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long writtenAt;
+
+        private Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.sindaryn.datafi.generator;
+
+import com.squareup.javapoet.*;
+import lombok.Data;
+import lombok.NonNull;
+import org.sindaryn.datafi.reflection.EntityAccessor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.*;
+
+import static com.squareup.javapoet.ParameterizedTypeName.get;
+import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+import static org.sindaryn.datafi.StaticUtils.writeToJavaFile;
+
+@Data
+public class AccessorFactory {
+    @NonNull
+    private ProcessingEnvironment processingEnv;
+
+    /**
+     * generate '<entity name>Accessor.java' - a switch dispatched, non reflective
+     * implementation of EntityAccessor for the given entity
+     * @param entity - the given data model entity / table
+     */
+    protected void generateAccessor(TypeElement entity) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String entityName = entity.getSimpleName().toString();
+        ClassName entityType = ClassName.get(entity);
+
+        Set<String> publicGetters = new HashSet<>();
+        Set<String> publicSetters = new HashSet<>();
+        resolvePublicAccessorMethods(entity, publicGetters, publicSetters);
+
+        Map<String, String> getters = new LinkedHashMap<>();
+        Map<String, String> setters = new LinkedHashMap<>();
+        Map<String, TypeName> setterArgTypes = new HashMap<>();
+        for (VariableElement field : getFieldsOf(entity)) {
+            String fieldName = field.getSimpleName().toString();
+            if(getters.containsKey(fieldName) || setters.containsKey(fieldName)) continue;
+            TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf((DeclaredType) entity.asType(), field);
+            String getterName = getterNameOf(field, fieldType, publicGetters);
+            if(getterName != null) getters.put(fieldName, getterName);
+            String setterName = "set" + toPascalCase(fieldName);
+            boolean hasSetter = publicSetters.contains(setterName) ||
+                    (!field.getModifiers().contains(Modifier.FINAL) && hasLombokAccessor(field, "lombok.Setter"));
+            if(hasSetter && fieldType.getKind() != TypeKind.TYPEVAR){
+                setters.put(fieldName, setterName);
+                setterArgTypes.put(fieldName, TypeName.get(fieldType).box());
+            }
+        }
+
+        TypeSpec.Builder builder = TypeSpec.classBuilder(entityName + "Accessor")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "$S", "unchecked")
+                        .build())
+                .addSuperinterface(get(ClassName.get(EntityAccessor.class), entityType))
+                .addField(fieldNamesConstant("READABLE_FIELDS", getters.keySet()))
+                .addField(fieldNamesConstant("WRITABLE_FIELDS", setters.keySet()))
+                .addMethod(getIdMethod(entityType))
+                .addMethod(getMethod(entityType, entityName, getters))
+                .addMethod(setMethod(entityType, entityName, setters, setterArgTypes))
+                .addMethod(fieldNamesGetter("readableFields", "READABLE_FIELDS"))
+                .addMethod(fieldNamesGetter("writableFields", "WRITABLE_FIELDS"));
+        writeToJavaFile(entityName, packageName, builder, processingEnv, "Accessor", entity);
+    }
+
+    private MethodSpec getIdMethod(ClassName entityType) {
+        return MethodSpec.methodBuilder("getId")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityType, "instance")
+                .returns(Object.class)
+                .addStatement("return instance.getId()")
+                .build();
+    }
+
+    private MethodSpec getMethod(ClassName entityType, String entityName, Map<String, String> getters) {
+        CodeBlock.Builder body = CodeBlock.builder().beginControlFlow("switch (fieldName)");
+        getters.forEach((fieldName, getterName) ->
+                body.add("case $S:\n$>return instance.$N();\n$<", fieldName, getterName));
+        body.add("default:\n$>throw new $T($S + fieldName + $S);\n$<",
+                IllegalArgumentException.class, "Cannot read field ", " of " + entityName);
+        body.endControlFlow();
+        return MethodSpec.methodBuilder("get")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityType, "instance")
+                .addParameter(String.class, "fieldName")
+                .returns(Object.class)
+                .addCode(body.build())
+                .build();
+    }
+
+    private MethodSpec setMethod(ClassName entityType, String entityName,
+                                 Map<String, String> setters, Map<String, TypeName> setterArgTypes) {
+        CodeBlock.Builder body = CodeBlock.builder().beginControlFlow("switch (fieldName)");
+        setters.forEach((fieldName, setterName) ->
+                body.add("case $S:\n$>instance.$N(($T) value);\nbreak;\n$<",
+                        fieldName, setterName, setterArgTypes.get(fieldName)));
+        body.add("default:\n$>throw new $T($S + fieldName + $S);\n$<",
+                IllegalArgumentException.class, "Cannot write field ", " of " + entityName);
+        body.endControlFlow();
+        return MethodSpec.methodBuilder("set")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(entityType, "instance")
+                .addParameter(String.class, "fieldName")
+                .addParameter(Object.class, "value")
+                .addCode(body.build())
+                .build();
+    }
+
+    private FieldSpec fieldNamesConstant(String name, Collection<String> fieldNames) {
+        CodeBlock.Builder initializer = CodeBlock.builder().add("{");
+        boolean isFirst = true;
+        for (String fieldName : fieldNames) {
+            initializer.add(isFirst ? "$S" : ", $S", fieldName);
+            isFirst = false;
+        }
+        return FieldSpec.builder(String[].class, name, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(initializer.add("}").build())
+                .build();
+    }
+
+    private MethodSpec fieldNamesGetter(String methodName, String constantName) {
+        return MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String[].class)
+                .addStatement("return $N.clone()", constantName)
+                .build();
+    }
+
+    private String getterNameOf(VariableElement field, TypeMirror fieldType, Set<String> publicGetters) {
+        String pascalCaseName = toPascalCase(field.getSimpleName().toString());
+        if(publicGetters.contains("get" + pascalCaseName)) return "get" + pascalCaseName;
+        boolean isPrimitiveBoolean = fieldType.getKind() == TypeKind.BOOLEAN;
+        if(isPrimitiveBoolean && publicGetters.contains("is" + pascalCaseName)) return "is" + pascalCaseName;
+        if(hasLombokAccessor(field, "lombok.Getter"))
+            return (isPrimitiveBoolean ? "is" : "get") + pascalCaseName;
+        return null;
+    }
+
+    /**
+     * lombok may or may not have run before this processor, so its
+     * generated accessors cannot be relied upon to be present yet.
+     * As such, check for the lombok annotations themselves as well.
+     */
+    private boolean hasLombokAccessor(VariableElement field, String lombokAnnotation) {
+        Boolean fieldLevel = lombokAccessLevelIsPublic(field, lombokAnnotation);
+        if(fieldLevel != null) return fieldLevel;
+        Element declaringType = field.getEnclosingElement();
+        Boolean typeLevel = lombokAccessLevelIsPublic(declaringType, lombokAnnotation);
+        if(typeLevel != null) return typeLevel;
+        return lombokAccessLevelIsPublic(declaringType, "lombok.Data") != null ||
+                (lombokAnnotation.equals("lombok.Getter") && lombokAccessLevelIsPublic(declaringType, "lombok.Value") != null);
+    }
+
+    private Boolean lombokAccessLevelIsPublic(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if(!mirror.getAnnotationType().toString().equals(annotationName)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet())
+                if(entry.getKey().getSimpleName().contentEquals("value"))
+                    return entry.getValue().getValue().toString().equals("PUBLIC");
+            return true;
+        }
+        return null;
+    }
+
+    private void resolvePublicAccessorMethods(TypeElement entity, Set<String> getters, Set<String> setters) {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity))) {
+            if(!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC))
+                continue;
+            if(method.getParameters().isEmpty()) getters.add(method.getSimpleName().toString());
+            else if(method.getParameters().size() == 1) setters.add(method.getSimpleName().toString());
+        }
+    }
+
+    /**
+     * Compile and return a list of all non static fields of a given entity,
+     * including those inherited from its superclasses
+     * @param entity
+     * @return
+     */
+    private List<VariableElement> getFieldsOf(TypeElement entity) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeElement current = entity;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getCanonicalName())) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements()))
+                if(!field.getModifiers().contains(Modifier.STATIC)) fields.add(field);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) processingEnv.getTypeUtils().asElement(superclass)
+                    : null;
+        }
+        return fields;
+    }
+}
@@ -6,26 +6,57 @@ import org.sindaryn.datafi.annotations.GetBy;
 import org.sindaryn.datafi.annotations.GetByUnique;
 import org.sindaryn.datafi.annotations.WithResolver;
 
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.*;
 import java.util.*;
 
-import static org.sindaryn.datafi.generator.SqlQueryMethodParser.parseResolver;
+import static org.sindaryn.datafi.StaticUtils.logCompilationError;
+import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.*;
+import static org.sindaryn.datafi.generator.ValueTypeFactory.projectionTypeOf;
 
 public class CustomResolversFactory {
-    public static void resolveCustomResolvers(Set<? extends TypeElement> entities, Map<TypeElement, List<VariableElement>> annotatedFieldsMap, Map<TypeElement, List<MethodSpec>> customResolversMap) {
+    /**
+     * also generates the '<entity name><resolver name>Result' returned by each aggregate resolver with a groupBy,
+     * and the '<entity name>...Projection' returned by each finder with a projection,
+     * as these are referenced by the queries of the resolvers
+     */
+    public static void resolveCustomResolvers(ProcessingEnvironment processingEnv, Set<? extends TypeElement> entities, Map<TypeElement, List<VariableElement>> annotatedFieldsMap, Map<TypeElement, List<MethodSpec>> customResolversMap) {
+        ValueTypeFactory valueTypeFactory = new ValueTypeFactory(processingEnv);
         for (TypeElement entity : entities) {
             //check for @GetBy and / or @GetAllBy field level annotations
             List<VariableElement> annotatedFields = getAnnotatedFieldsOf(entity);
             WithResolver[] customResolvers = getResolvers(entity);
-            if(customResolvers != null){
+            if(customResolvers.length > 0){
                 List<MethodSpec> customResolversImpl = new ArrayList<>();
                 for (int i = 0; i < customResolvers.length; i++) {
+                    String error = validateResolver(customResolvers[i], entity);
+                    if(error != null){
+                        logCompilationError(processingEnv, entity, error + " in resolver '" + customResolvers[i].name() + "'");
+                        continue;
+                    }
+                    if(customResolvers[i].type().isAggregate() && customResolvers[i].groupBy().length > 0)
+                        valueTypeFactory.generateAggregateResult(customResolvers[i], entity);
                     customResolversImpl.add(parseResolver(customResolvers[i], entity));
+                    if(customResolvers[i].projection().length > 0 && valueTypeFactory.generateProjection(entity, entity,
+                            projectionTypeOf(entity, toPascalCase(customResolvers[i].name())), customResolvers[i].projection()))
+                        customResolversImpl.add(parseProjectedResolver(customResolvers[i], entity));
+                    MethodSpec streamingResolver = parseStreamingResolver(customResolvers[i], entity);
+                    if(streamingResolver != null) customResolversImpl.add(streamingResolver);
                 }
                 customResolversMap.put(entity, customResolversImpl);
             }
             //as such, store a map of which entities need which extra endpoints
             if (!annotatedFields.isEmpty()) annotatedFieldsMap.put(entity, annotatedFields);
+            for (VariableElement annotatedField : annotatedFields) {
+                String pascalCaseName = toPascalCase(annotatedField.getSimpleName().toString());
+                if(annotatedField.getAnnotation(GetBy.class) != null && annotatedField.getAnnotation(GetBy.class).projection().length > 0)
+                    valueTypeFactory.generateProjection(entity, annotatedField,
+                            projectionTypeOf(entity, "By" + pascalCaseName), annotatedField.getAnnotation(GetBy.class).projection());
+                if(annotatedField.getAnnotation(GetAllBy.class) != null && annotatedField.getAnnotation(GetAllBy.class).projection().length > 0)
+                    valueTypeFactory.generateProjection(entity, annotatedField,
+                            projectionTypeOf(entity, "AllBy" + pascalCaseName), annotatedField.getAnnotation(GetAllBy.class).projection());
+            }
         }
     }
 
@@ -43,16 +74,15 @@ public class CustomResolversFactory {
         return annotatedFields;
     }
 
-    private static WithResolver[] getResolvers(TypeElement entity) {
+    static WithResolver[] getResolvers(TypeElement entity) {
         final WithResolver[] annotationsByType = entity.getAnnotationsByType(WithResolver.class);
-        if(annotationsByType == null) return null;
-        List<WithResolver> resolvers = Arrays.asList(annotationsByType);
+        List<WithResolver> resolvers = new ArrayList<>(Arrays.asList(annotationsByType));
         for(AnnotationMirror annotationType : entity.getAnnotationMirrors()){
             if(annotationType.getAnnotationType().getAnnotation(WithResolver.class) != null){
                 resolvers.add(annotationType.getAnnotationType().getAnnotation(WithResolver.class));
             }
         }
-        return (WithResolver[]) resolvers.toArray();
+        return resolvers.toArray(new WithResolver[0]);
     }
 
     /**
@@ -1,28 +1,39 @@
 package org.sindaryn.datafi.generator;
 
-import com.squareup.javapoet.ClassName;
-import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.*;
 import lombok.Data;
 import lombok.NonNull;
 import org.sindaryn.datafi.annotations.GetAllBy;
 import org.sindaryn.datafi.annotations.GetBy;
 import org.sindaryn.datafi.annotations.GetByUnique;
+import org.sindaryn.datafi.annotations.WithResolver;
+import org.sindaryn.datafi.persistence.ArchivableDao;
 import org.sindaryn.datafi.persistence.GenericDao;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.persistence.Column;
+import javax.persistence.Entity;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.squareup.javapoet.ParameterizedTypeName.get;
 import static org.sindaryn.datafi.StaticUtils.*;
+import static org.sindaryn.datafi.generator.CustomResolversFactory.getResolvers;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.idAttributeNameOf;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.isVersioned;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.parseChunkingResolvers;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.validateResolver;
 @Data
 public class DaoFactory {
     @NonNull
@@ -37,7 +48,7 @@ public class DaoFactory {
             TypeElement entity,
             Map<TypeElement, List<VariableElement>> annotatedFieldsMap,
             Map<TypeElement, List<MethodSpec>> customResolversMap,
-            Map<TypeElement, MethodSpec> fuzzySearchMethods) {
+            Map<TypeElement, List<MethodSpec>> fuzzySearchMethods) {
 
         String className = entity.getQualifiedName().toString();
         int lastDot = className.lastIndexOf('.');
@@ -48,16 +59,55 @@ public class DaoFactory {
         TypeSpec.Builder builder = TypeSpec.interfaceBuilder(repositoryName)
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(Repository.class)
-                .addSuperinterface(get(ClassName.get(GenericDao.class), getIdType(entity, processingEnv), ClassName.get(entity)));
+                .addSuperinterface(get(ClassName.get(isArchivable(entity, processingEnv) ? ArchivableDao.class : GenericDao.class),
+                        getIdType(entity, processingEnv), ClassName.get(entity)));
+        if(isArchivable(entity, processingEnv))
+            builder.addMethod(updateIsArchivedByIdIn(entity));
         Collection<VariableElement> annotatedFields = annotatedFieldsMap.get(entity);
         if(annotatedFields != null)
             annotatedFields.forEach(annotatedField -> handleAnnotatedField(entity, builder, annotatedField));
         if(customResolversMap.get(entity) != null)
             customResolversMap.get(entity).forEach(builder::addMethod);
+        //the dao methods behind the chunked execution of UPDATE and DELETE resolvers
+        for (WithResolver resolver : getResolvers(entity))
+            if(validateResolver(resolver, entity) == null)
+                parseChunkingResolvers(resolver, entity, getIdType(entity, processingEnv)).forEach(builder::addMethod);
         if(fuzzySearchMethods.get(entity) != null)
-            builder.addMethod(fuzzySearchMethods.get(entity));
-        writeToJavaFile(entity.getSimpleName().toString(), packageName, builder, processingEnv, "JpaRepository");
+            fuzzySearchMethods.get(entity).forEach(builder::addMethod);
+        writeToJavaFile(entity.getSimpleName().toString(), packageName, builder, processingEnv, "JpaRepository", entity);
     }
+    /**
+     * implements ArchivableDao.updateIsArchivedByIdIn(...) - a bulk jpql update
+     * which also increments the @Version of each updated record, if the entity is versioned.
+     * @param entity - the given archivable entity
+     */
+    private MethodSpec updateIsArchivedByIdIn(TypeElement entity) {
+        String entityName = entity.getAnnotation(Entity.class) != null && !entity.getAnnotation(Entity.class).name().equals("") ?
+                entity.getAnnotation(Entity.class).name() : entity.getSimpleName().toString();
+        //property access entities annotate the getter rather than the field
+        String idAttributeName = idAttributeNameOf(entity);
+        if(idAttributeName == null) idAttributeName = "id";
+        return MethodSpec.methodBuilder("updateIsArchivedByIdIn")
+                .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
+                .addAnnotation(AnnotationSpec.builder(Modifying.class)
+                        .addMember("flushAutomatically", "$L", true)
+                        .build())
+                .addAnnotation(Transactional.class)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S",
+                                "UPDATE " + (isVersioned(entity) ? "VERSIONED " : "") + entityName +
+                                " e SET e.isArchived = :isArchived WHERE e." + idAttributeName + " IN :ids")
+                        .build())
+                .addParameter(ParameterSpec.builder(Boolean.class, "isArchived")
+                        .addAnnotation(AnnotationSpec.builder(Param.class).addMember("value", "$S", "isArchived").build())
+                        .build())
+                .addParameter(ParameterSpec.builder(get(ClassName.get(Collection.class), getIdType(entity, processingEnv)), "ids")
+                        .addAnnotation(AnnotationSpec.builder(Param.class).addMember("value", "$S", "ids").build())
+                        .build())
+                .returns(int.class)
+                .build();
+    }
+
     private void handleAnnotatedField(TypeElement entity, TypeSpec.Builder builder, VariableElement annotatedField) {
         if(annotatedField.getAnnotation(GetBy.class) != null)
             handleGetBy(entity, builder, annotatedField);
@@ -84,23 +134,46 @@ public class DaoFactory {
                                     annotatedField.getSimpleName().toString())
                             .returns(get(ClassName.get(Optional.class), ClassName.get(entity)))
                             .build());
+            //serves the batches of DataManager.loadByUnique(...)
+            if(annotatedField.getAnnotation(GetAllBy.class) == null)
+                builder.addMethod(findAllByIn(entity, annotatedField));
         }
     }
 
     private void handleGetAllBy(TypeElement entity, TypeSpec.Builder builder, VariableElement annotatedField) {
+        String[] projection = annotatedField.getAnnotation(GetAllBy.class).projection();
+        if(projection.length > 0)
+            builder.addMethod(projectedFinder(entity, annotatedField, "AllBy", projection, true));
         builder
+                .addMethod(findAllByIn(entity, annotatedField))
                 .addMethod(MethodSpec
                         .methodBuilder(
-                                "findAllBy" + toPascalCase(annotatedField.getSimpleName().toString()) + "In")
+                                "streamAllBy" + toPascalCase(annotatedField.getSimpleName().toString()) + "In")
                         .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
+                        .addAnnotation(streamQueryHints())
                         .addParameter(
-                                get(ClassName.get(List.class), ClassName.get(annotatedField.asType())),
+                                get(ClassName.get(List.class), ClassName.get(annotatedField.asType()).box()),
                                 toPlural(annotatedField.getSimpleName().toString()))
-                        .returns(get(ClassName.get(List.class), ClassName.get(entity)))
+                        .returns(get(ClassName.get(Stream.class), ClassName.get(entity)))
                         .build());
     }
 
+    private MethodSpec findAllByIn(TypeElement entity, VariableElement annotatedField) {
+        return MethodSpec
+                .methodBuilder(
+                        "findAllBy" + toPascalCase(annotatedField.getSimpleName().toString()) + "In")
+                .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
+                .addParameter(
+                        get(ClassName.get(List.class), ClassName.get(annotatedField.asType()).box()),
+                        toPlural(annotatedField.getSimpleName().toString()))
+                .returns(get(ClassName.get(List.class), ClassName.get(entity)))
+                .build();
+    }
+
     private void handleGetBy(TypeElement entity, TypeSpec.Builder builder, VariableElement annotatedField) {
+        String[] projection = annotatedField.getAnnotation(GetBy.class).projection();
+        if(projection.length > 0)
+            builder.addMethod(projectedFinder(entity, annotatedField, "By", projection, false));
         builder
                 .addMethod(MethodSpec
                         .methodBuilder(
@@ -110,6 +183,47 @@ public class DaoFactory {
                                 ClassName.get(annotatedField.asType()),
                                 annotatedField.getSimpleName().toString())
                         .returns(get(ClassName.get(List.class), ClassName.get(entity)))
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder(
+                                "streamBy" + toPascalCase(annotatedField.getSimpleName().toString()))
+                        .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
+                        .addAnnotation(streamQueryHints())
+                        .addParameter(
+                                ClassName.get(annotatedField.asType()),
+                                annotatedField.getSimpleName().toString())
+                        .returns(get(ClassName.get(Stream.class), ClassName.get(entity)))
                         .build());
     }
+
+    /**
+     * findProjectedBy<field name>(value) or findAllProjectedBy<field name>In(values) - selecting only the
+     * projected fields, into the '<entity name>By<field name>Projection' / '<entity name>AllBy<field name>Projection'
+     * generated by ValueTypeFactory
+     */
+    private MethodSpec projectedFinder(TypeElement entity, VariableElement annotatedField, String qualifier,
+                                       String[] projection, boolean isIn) {
+        String fieldName = annotatedField.getSimpleName().toString();
+        String entityName = SqlQueryMethodParser.resolveEntityName(entity);
+        String placeholder = firstLowerCaseLetterOf(entityName);
+        ClassName projectionType = ValueTypeFactory.projectionTypeOf(entity, qualifier + toPascalCase(fieldName));
+        String parameterName = isIn ? toPlural(fieldName) : fieldName;
+        TypeName parameterType = isIn ?
+                get(ClassName.get(List.class), ClassName.get(annotatedField.asType()).box()) :
+                ClassName.get(annotatedField.asType());
+        return MethodSpec
+                .methodBuilder((isIn ? "findAllProjectedBy" : "findProjectedBy") + toPascalCase(fieldName) + (isIn ? "In" : ""))
+                .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", "SELECT " +
+                                ValueTypeFactory.constructorExpression(projectionType, projection, placeholder) +
+                                " FROM " + entityName + " " + placeholder + " WHERE " + placeholder + "." + fieldName +
+                                (isIn ? " IN :" : " = :") + parameterName)
+                        .build())
+                .addParameter(ParameterSpec.builder(parameterType, parameterName)
+                        .addAnnotation(AnnotationSpec.builder(Param.class).addMember("value", "$S", parameterName).build())
+                        .build())
+                .returns(get(ClassName.get(List.class), projectionType))
+                .build();
+    }
 }
@@ -3,7 +3,6 @@ package org.sindaryn.datafi.generator;
 
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.AnnotationSpec;
-import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -12,43 +11,37 @@ import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static org.sindaryn.datafi.StaticUtils.*;
-import static org.sindaryn.datafi.generator.CustomResolversFactory.resolveCustomResolvers;
 
 /**
- * Takes care of generating all the source files needed for a jpa data access layer.
+ * Takes care of generating the source files which span all entities of a jpa data access layer -
+ * 'DataManagersConfig', 'DatafiEntityRegistry' and 'SindarynClasspathConfiguration'.
+ * These are aggregating as far as incremental builds go; the source files specific
+ * to each entity are generated by EntityDataLayerProcessor.
  */
 @SuppressWarnings("unchecked")
-@SupportedAnnotationTypes("*")
+@SupportedAnnotationTypes({"javax.persistence.Entity", "javax.persistence.Table"})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
+@SupportedOptions(BASE_PACKAGE_OPTION)
 @AutoService(Processor.class)
 public class DataLayerAnnotationsProcessor extends AbstractProcessor {
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
         Set<? extends TypeElement> entities = getPersistableEntities(roundEnvironment);
         if(entities.isEmpty()) return false;
-        Map<TypeElement, List<VariableElement>> annotatedFieldsMap = new HashMap<>();
-        Map<TypeElement, List<MethodSpec>> customResolversMap = new HashMap<>();
-        resolveCustomResolvers(entities, annotatedFieldsMap, customResolversMap);
-        FuzzySearchMethodsFactory fuzzySearchMethodsFactory = new FuzzySearchMethodsFactory(processingEnv);
-        Map<TypeElement, MethodSpec> fuzzySearchMethodsMap =
-                fuzzySearchMethodsFactory.resolveFuzzySearchMethods(entities);
-        //generate a custom jpa repository for each entity
-        DaoFactory daoFactory = new DaoFactory(processingEnv);
-        DataManagerFactory dataManagerFactory = new DataManagerFactory(processingEnv, getBasePackage(roundEnvironment));
+        TypedDataManagerFactory typedDataManagerFactory = new TypedDataManagerFactory(processingEnv);
+        final String basePackage = getBasePackage(roundEnvironment, processingEnv);
+        DataManagerFactory dataManagerFactory = new DataManagerFactory(processingEnv, basePackage);
         entities.forEach(entity -> {
-            daoFactory.generateDao(entity, annotatedFieldsMap, customResolversMap, fuzzySearchMethodsMap);
-            dataManagerFactory.addDataManager(entity);
+            dataManagerFactory.addDataManager(entity, typedDataManagerFactory.typedDataManagerTypeOf(entity));
             if(isArchivable(entity, processingEnv))
                 dataManagerFactory.addArchivableDataManager(entity);
         });
         dataManagerFactory.addBasePackageResolver();
+        dataManagerFactory.addEntityRegistry(
+                new EntityRegistryFactory(processingEnv, basePackage).generateEntityRegistry(entities));
         dataManagerFactory.writeToFile();
         /*
         create a configuration source file such that
@@ -72,11 +65,11 @@ public class DataLayerAnnotationsProcessor extends AbstractProcessor {
         return getEntitiesSet(roundEnvironment);
     }
 
+    //within the package of the first entity, by qualified name
     private void setComponentScan(Set<? extends TypeElement> entities) {
         if(!entities.isEmpty()){
             String className = entities.iterator().next().getQualifiedName().toString();
-            int lastdot = className.lastIndexOf('.');
-            String basePackageName = className.substring(0, lastdot);
+            String basePackageName = className.substring(0, Math.max(0, className.lastIndexOf('.')));
             String simpleClassName = "SindarynClasspathConfiguration";
             TypeSpec.Builder builder = TypeSpec.classBuilder(simpleClassName)
                     .addModifiers(Modifier.PUBLIC)
@@ -87,7 +80,8 @@ public class DataLayerAnnotationsProcessor extends AbstractProcessor {
                                     "{$S}",
                                     "org.sindaryn")
                             .build());
-            writeToJavaFile(simpleClassName, basePackageName, builder, processingEnv, "configuration source file");
+            writeToJavaFile(simpleClassName, basePackageName, builder, processingEnv, "configuration source file",
+                    entities.toArray(new TypeElement[0]));
         }
     }
 }
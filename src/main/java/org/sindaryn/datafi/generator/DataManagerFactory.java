@@ -16,6 +16,8 @@ import org.springframework.context.annotation.Primary;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.sindaryn.datafi.StaticUtils.camelCaseNameOf;
 import static org.sindaryn.datafi.StaticUtils.writeToJavaFile;
@@ -28,19 +30,26 @@ public class DataManagerFactory {
     private String basePackage;
 
     private TypeSpec.Builder dataManagersConfig = initDataManagerConfig();
+    //the entities the config is generated from, as required by incremental builds
+    private final List<TypeElement> originatingEntities = new ArrayList<>();
     private final static ClassName dataManagerType = ClassName.get(DataManager.class);
     private final static ClassName archivableDataManagerType = ClassName.get(ArchivableDataManager.class);
 
-    public void addDataManager(TypeElement entity){
-        final ClassName entityType = ClassName.get(entity);
+    /**
+     * register the generated '<entity name>DataManager' as the DataManager<entity> bean.
+     * Being a subclass of DataManager<entity>, it can be autowired as either.
+     * @param typedDataManagerType - as returned by TypedDataManagerFactory
+     */
+    public void addDataManager(TypeElement entity, ClassName typedDataManagerType){
         var builder =
                 MethodSpec
                 .methodBuilder(camelCaseNameOf(entity) + "DataManager")
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(Bean.class)
-                .returns(ParameterizedTypeName.get(dataManagerType, entityType))
-                .addStatement("return new $T($T.class)", dataManagerType, entityType);
+                .returns(typedDataManagerType)
+                .addStatement("return new $T()", typedDataManagerType);
         dataManagersConfig.addMethod(builder.build());
+        originatingEntities.add(entity);
     }
 
     public void addBasePackageResolver() {
@@ -52,6 +61,16 @@ public class DataManagerFactory {
                 .build());
     }
 
+    //the generated EntityRegistry, read by ReflectionCache in place of scanning the classpath
+    public void addEntityRegistry(ClassName entityRegistryType) {
+        dataManagersConfig.addMethod(MethodSpec.methodBuilder("datafiEntityRegistry")
+                .addAnnotation(Bean.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(entityRegistryType)
+                .addStatement("return new $T()", entityRegistryType)
+                .build());
+    }
+
     public void addArchivableDataManager(TypeElement entity){
         final ClassName entityType = ClassName.get(entity);
         var builder =
@@ -88,6 +107,7 @@ public class DataManagerFactory {
                 basePackage,
                 dataManagersConfig,
                 processingEnv,
-                "Data manager beans");
+                "Data manager beans",
+                originatingEntities.toArray(new TypeElement[0]));
     }
 }
@@ -0,0 +1,55 @@
+package org.sindaryn.datafi.generator;
+
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.MethodSpec;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.sindaryn.datafi.StaticUtils.getEntitiesSet;
+import static org.sindaryn.datafi.generator.CustomResolversFactory.resolveCustomResolvers;
+
+/**
+ * Generates the source files specific to each entity - its '<entity name>Dao',
+ * '<entity name>Accessor' and '<entity name>DataManager'. Each of these is generated
+ * from its entity alone, such that this processor is isolating as far as incremental builds go.
+ * The source files spanning all entities are generated by DataLayerAnnotationsProcessor.
+ */
+@SupportedAnnotationTypes({"javax.persistence.Entity", "javax.persistence.Table"})
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+@AutoService(Processor.class)
+public class EntityDataLayerProcessor extends AbstractProcessor {
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        Set<? extends TypeElement> entities = getEntitiesSet(roundEnvironment);
+        if(entities.isEmpty()) return false;
+        Map<TypeElement, List<VariableElement>> annotatedFieldsMap = new HashMap<>();
+        Map<TypeElement, List<MethodSpec>> customResolversMap = new HashMap<>();
+        resolveCustomResolvers(processingEnv, entities, annotatedFieldsMap, customResolversMap);
+        FuzzySearchMethodsFactory fuzzySearchMethodsFactory = new FuzzySearchMethodsFactory(processingEnv);
+        Map<TypeElement, List<MethodSpec>> fuzzySearchMethodsMap =
+                fuzzySearchMethodsFactory.resolveFuzzySearchMethods(entities);
+        //generate a custom jpa repository, accessor and typed data manager for each entity
+        DaoFactory daoFactory = new DaoFactory(processingEnv);
+        AccessorFactory accessorFactory = new AccessorFactory(processingEnv);
+        TypedDataManagerFactory typedDataManagerFactory = new TypedDataManagerFactory(processingEnv);
+        entities.forEach(entity -> {
+            daoFactory.generateDao(entity, annotatedFieldsMap, customResolversMap, fuzzySearchMethodsMap);
+            accessorFactory.generateAccessor(entity);
+            typedDataManagerFactory.generateTypedDataManager(
+                    entity,
+                    annotatedFieldsMap.get(entity),
+                    customResolversMap.get(entity),
+                    fuzzySearchMethodsMap.containsKey(entity));
+        });
+        //return false - these annotations are needed for the web-service layer as well
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package org.sindaryn.datafi.generator;
+
+import com.squareup.javapoet.*;
+import lombok.Data;
+import lombok.NonNull;
+import org.sindaryn.datafi.reflection.EntityRegistration;
+import org.sindaryn.datafi.reflection.EntityRegistry;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static com.squareup.javapoet.ParameterizedTypeName.get;
+import static org.sindaryn.datafi.StaticUtils.getIdType;
+import static org.sindaryn.datafi.StaticUtils.writeToJavaFile;
+
+@Data
+public class EntityRegistryFactory {
+    @NonNull
+    private ProcessingEnvironment processingEnv;
+    @NonNull
+    private String basePackage;
+
+    /**
+     * generate 'DatafiEntityRegistry.java' - an EntityRegistry listing the given entities,
+     * along with the id type, '<entity name>Dao' and '<entity name>Accessor' of each
+     * @return the type name of the generated class
+     */
+    public ClassName generateEntityRegistry(Collection<? extends TypeElement> entities) {
+        ClassName registryType = ClassName.get(basePackage, "DatafiEntityRegistry");
+        CodeBlock.Builder registrations = CodeBlock.builder();
+        for (TypeElement entity : entities) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+            String entityName = entity.getSimpleName().toString();
+            if(!registrations.isEmpty()) registrations.add(",\n");
+            registrations.add("new $T($T.class, $T.class, $T.class, $T.class)",
+                    EntityRegistration.class,
+                    ClassName.get(entity),
+                    getIdType(entity, processingEnv),
+                    ClassName.get(packageName, entityName + "Dao"),
+                    ClassName.get(packageName, entityName + "Accessor"));
+        }
+        TypeSpec.Builder builder = TypeSpec.classBuilder(registryType)
+                .addModifiers(Modifier.PUBLIC)
+                .addSuperinterface(EntityRegistry.class)
+                .addMethod(MethodSpec.methodBuilder("entities")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(get(ClassName.get(List.class), ClassName.get(EntityRegistration.class)))
+                        .addStatement("return $T.asList(\n$>$>$L$<$<)", Arrays.class, registrations.build())
+                        .build());
+        writeToJavaFile("DatafiEntityRegistry", basePackage, builder, processingEnv, "entity registry",
+                entities.toArray(new TypeElement[0]));
+        return registryType;
+    }
+}
@@ -1,25 +1,32 @@
 package org.sindaryn.datafi.generator;
 
 import com.squareup.javapoet.*;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NonNull;
 import org.sindaryn.datafi.annotations.FuzzySearchBy;
 import org.sindaryn.datafi.annotations.FuzzySearchByFields;
+import org.sindaryn.datafi.annotations.FuzzySearchStrategy;
+import org.sindaryn.datafi.search.FuzzySearchIndexListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import javax.annotation.processing.ProcessingEnvironment;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.Modifier;
-import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.persistence.EmbeddedId;
+import javax.persistence.EntityListeners;
+import javax.persistence.Id;
 import java.util.*;
 
 import static com.squareup.javapoet.ParameterizedTypeName.get;
-import static org.sindaryn.datafi.StaticUtils.firstLowerCaseLetterOf;
-import static org.sindaryn.datafi.StaticUtils.logCompilationError;
+import static org.sindaryn.datafi.StaticUtils.*;
 
 @Data
 public class FuzzySearchMethodsFactory {
@@ -27,14 +34,21 @@ public class FuzzySearchMethodsFactory {
     @NonNull
     private ProcessingEnvironment processingEnv;
 
-    protected Map<TypeElement, MethodSpec> resolveFuzzySearchMethods(Set<? extends TypeElement> entities) {
-        Map<TypeElement, MethodSpec> result = new HashMap<>();
+    protected Map<TypeElement, List<MethodSpec>> resolveFuzzySearchMethods(Set<? extends TypeElement> entities) {
+        Map<TypeElement, List<MethodSpec>> result = new HashMap<>();
         for (TypeElement entity : entities) {
             List<VariableElement> searchFields = getSearchFieldsOf(entity);
-            if(!searchFields.isEmpty()){
-                MethodSpec fuzzySearchMethod = generateFuzzySearchMethod(entity, searchFields);
-                result.put(entity, fuzzySearchMethod);
+            if(searchFields.isEmpty()) continue;
+            FuzzySearchStrategy strategy = strategyOf(entity);
+            //lucene searches are served by the FuzzySearchIndex, not by the dao
+            if(strategy == FuzzySearchStrategy.LUCENE){
+                if(!hasFuzzySearchIndexListener(entity))
+                    logCompilationError(processingEnv, entity,
+                            "FuzzySearchStrategy.LUCENE requires the entity to be annotated with " +
+                                    "@EntityListeners(FuzzySearchIndexListener.class)");
+                continue;
             }
+            result.put(entity, generateFuzzySearchMethods(entity, searchFields, strategy));
         }
         return result;
     }
@@ -55,26 +69,149 @@ public class FuzzySearchMethodsFactory {
         return searchFields;
     }
 
-    private MethodSpec generateFuzzySearchMethod(TypeElement entity, List<VariableElement> searchFields) {
+    public static FuzzySearchStrategy strategyOf(TypeElement entity) {
+        FuzzySearchByFields classLevelSearchByAnnotation = entity.getAnnotation(FuzzySearchByFields.class);
+        return classLevelSearchByAnnotation != null ? classLevelSearchByAnnotation.strategy() : FuzzySearchStrategy.LIKE;
+    }
+
+    /**
+     * generates fuzzySearch(searchTerm, paginator), which returns a Page of matches,
+     * along with the keyset paginated fuzzySearchFirst(searchTerm, paginator) and
+     * fuzzySearchAfter(searchTerm, afterId, paginator), which return Slices ordered by id -
+     * and as such issue no count query, and cost the same at any depth.
+     */
+    private List<MethodSpec> generateFuzzySearchMethods(TypeElement entity, List<VariableElement> searchFields, FuzzySearchStrategy strategy) {
+        List<MethodSpec> result = new ArrayList<>();
+        final boolean isNative = strategy != FuzzySearchStrategy.LIKE;
         String entityName = entity.getSimpleName().toString();
-        String methodName = "fuzzySearch";
+        String placeHolder = firstLowerCaseLetterOf(entityName);
+        String select = isNative ?
+                "SELECT * FROM " + tableNameOf(entity) :
+                "SELECT " + placeHolder + " FROM " + entityName + " " + placeHolder;
+        String condition;
+        switch (strategy){
+            case POSTGRES_TRIGRAM: condition = trigramCondition(searchFields);
+                break;
+            case POSTGRES_FULL_TEXT: condition = fullTextCondition(searchFields,
+                    entity.getAnnotation(FuzzySearchByFields.class).textSearchConfiguration());
+                break;
+            default: condition = likeCondition(placeHolder, searchFields);
+        }
+        AnnotationSpec.Builder query = AnnotationSpec.builder(Query.class)
+                .addMember("value", "$S", select + " WHERE " + condition);
+        if(isNative)
+            query.addMember("countQuery", "$S", "SELECT count(*) FROM " + tableNameOf(entity) + " WHERE " + condition)
+                    .addMember("nativeQuery", "$L", true);
+        result.add(fuzzySearchMethod("fuzzySearch", entity, query.build(), Page.class));
+
+        KeysetId keysetId = keysetIdOf(entity);
+        //composite ids can't be keyset paginated
+        if(keysetId == null) return result;
+        String idPath = isNative ? keysetId.column : placeHolder + "." + keysetId.path;
+        result.add(fuzzySearchMethod("fuzzySearchFirst", entity,
+                keysetQuery(select + " WHERE " + condition + " ORDER BY " + idPath, isNative),
+                Slice.class));
+        result.add(fuzzySearchMethod("fuzzySearchAfter", entity,
+                keysetQuery(select + " WHERE (" + condition + ") AND " + idPath + " > :afterId ORDER BY " + idPath, isNative),
+                Slice.class,
+                ParameterSpec.builder(keysetId.type, "afterId")
+                        .addAnnotation(AnnotationSpec.builder(Param.class)
+                                .addMember("value", "$S", "afterId")
+                                .build())
+                        .build()));
+        return result;
+    }
+
+    private MethodSpec fuzzySearchMethod(String methodName, TypeElement entity, AnnotationSpec query,
+                                         Class<?> resultType, ParameterSpec... keyParameters) {
         ParameterSpec argument = ParameterSpec.builder(String.class, "searchTerm")
                 .addAnnotation(AnnotationSpec.builder(Param.class)
                         .addMember("value", "$S", "searchTerm")
                         .build())
                 .build();
-        String fuzzySearchQuery = fuzzySearchQuery(entityName, searchFields);
         return MethodSpec.methodBuilder(methodName)
                 .addModifiers(Modifier.ABSTRACT, Modifier.PUBLIC)
                 .addParameter(argument)
+                .addParameters(Arrays.asList(keyParameters))
                 .addParameter(Pageable.class, "paginator")
-                .addAnnotation(AnnotationSpec.builder(Query.class)
-                        .addMember("value", "$S", fuzzySearchQuery)
-                        .build())
-                .returns(get(ClassName.get(Page.class), ClassName.get(entity)))
+                .addAnnotation(query)
+                .returns(get(ClassName.get(resultType), ClassName.get(entity)))
                 .build();
     }
 
+    private AnnotationSpec keysetQuery(String query, boolean isNative) {
+        AnnotationSpec.Builder result = AnnotationSpec.builder(Query.class).addMember("value", "$S", query);
+        if(isNative) result.addMember("nativeQuery", "$L", true);
+        return result.build();
+    }
+
+    //the id attribute by which to keyset paginate - for embedded ids (i.e. SimpleId), its single attribute
+    private KeysetId keysetIdOf(TypeElement entity) {
+        for (Element member : processingEnv.getElementUtils().getAllMembers(entity)) {
+            if(member.getKind() != ElementKind.FIELD) continue;
+            boolean isId = member.getAnnotation(Id.class) != null;
+            if(!isId && member.getAnnotation(EmbeddedId.class) == null) continue;
+            TypeMirror type = processingEnv.getTypeUtils().asMemberOf((DeclaredType) entity.asType(), member);
+            if(isId)
+                return new KeysetId(member.getSimpleName().toString(), columnNameOf(member), TypeName.get(type).box());
+            TypeElement idType = (TypeElement) processingEnv.getTypeUtils().asElement(type);
+            List<VariableElement> idFields = new ArrayList<>();
+            for (VariableElement idField : ElementFilter.fieldsIn(idType.getEnclosedElements()))
+                if(!idField.getModifiers().contains(Modifier.STATIC)) idFields.add(idField);
+            if(idFields.size() != 1) return null;
+            VariableElement idField = idFields.get(0);
+            return new KeysetId(member.getSimpleName() + "." + idField.getSimpleName(),
+                    columnNameOf(idField), TypeName.get(idField.asType()).box());
+        }
+        return null;
+    }
+
+    @AllArgsConstructor
+    private static class KeysetId {
+        //jpql path, relative to the entity
+        private String path;
+        private String column;
+        private TypeName type;
+    }
+
+    //pg_trgm word similarity - served by a gin_trgm_ops index on each of the columns
+    private String trigramCondition(List<VariableElement> searchFields) {
+        StringBuilder result = new StringBuilder();
+        for (VariableElement field : searchFields) {
+            if(result.length() > 0) result.append(" OR ");
+            result.append(":searchTerm <% ").append(columnNameOf(field));
+        }
+        return result.toString();
+    }
+
+    //served by a gin index on the very same to_tsvector(...) expression
+    private String fullTextCondition(List<VariableElement> searchFields, String configuration) {
+        StringBuilder document = new StringBuilder();
+        for (VariableElement field : searchFields) {
+            if(document.length() > 0) document.append(" || ' ' || ");
+            document.append("coalesce(").append(columnNameOf(field)).append(", '')");
+        }
+        return "to_tsvector('" + configuration + "', " + document + ") " +
+                "@@ plainto_tsquery('" + configuration + "', :searchTerm)";
+    }
+
+    private boolean hasFuzzySearchIndexListener(TypeElement entity) {
+        for (TypeElement type = entity; type != null; type = superclassOf(type)) {
+            for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+                if(!annotation.getAnnotationType().toString().equals(EntityListeners.class.getCanonicalName())) continue;
+                for (AnnotationValue value : annotation.getElementValues().values()) {
+                    if(value.toString().contains(FuzzySearchIndexListener.class.getCanonicalName())) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
     private boolean isSearchByField(List<String> classLevelSearchByFieldNames, Element enclosedElement) {
         boolean isDeclaredAsSearchBy = enclosedElement.getKind().isField() &&
                 (enclosedElement.getAnnotation(FuzzySearchBy.class) != null ||
@@ -89,17 +226,12 @@ public class FuzzySearchMethodsFactory {
         return isDeclaredAsSearchBy;
     }
 
-    private String fuzzySearchQuery(String entityName, List<VariableElement> searchFields) {
-        String placeHolder = firstLowerCaseLetterOf(entityName);
-        StringBuilder result = new StringBuilder("SELECT " + placeHolder + " FROM " + entityName + " " + placeHolder);
-        boolean isFirst = true;
+    private String likeCondition(String placeHolder, List<VariableElement> searchFields) {
+        StringBuilder result = new StringBuilder();
         for (VariableElement field : searchFields) {
-            final String conditionPrefix = isFirst ? " WHERE" : " OR";
-            isFirst = false;
-            final String condition = " lower(" + placeHolder + "." + field.getSimpleName() + ") " +
-                    "LIKE lower(concat('%', :searchTerm, '%'))";
-            result.append(conditionPrefix);
-            result.append(condition);
+            if(result.length() > 0) result.append(" OR ");
+            result.append("lower(").append(placeHolder).append(".").append(field.getSimpleName()).append(") ")
+                    .append("LIKE lower(concat('%', :searchTerm, '%'))");
         }
         return result.toString();
     }
@@ -2,7 +2,7 @@ package org.sindaryn.datafi.generator;
 
 public enum QueryType {
     //SELECT en FROM entityName
-    SELECT_BY/*,
+    SELECT_BY,
     //SELECT AVG(en.fieldName) FROM entityName en
     AVG,
     //SELECT COUNT(en) FROM entityName en
@@ -13,8 +13,18 @@ public enum QueryType {
     MIN,
     //SELECT SUM(en.fieldName) FROM entityName en
     SUM,
-    //UPDATE entityName en set
+    //UPDATE entityName en SET en.fieldName = :newFieldName
     UPDATE,
-    //DELETE entityName en
-    DELETE*/
+    //DELETE FROM entityName en
+    DELETE;
+
+    //computed within the database, returning a single value or - given a groupBy - a value per group
+    public boolean isAggregate() {
+        return this == AVG || this == COUNT || this == MAX || this == MIN || this == SUM;
+    }
+
+    //a bulk statement, returning the number of records updated or deleted
+    public boolean isModifying() {
+        return this == UPDATE || this == DELETE;
+    }
 }
@@ -2,19 +2,42 @@ package org.sindaryn.datafi.generator;
 
 
 import com.squareup.javapoet.*;
+import org.sindaryn.datafi.annotations.FuzzySearchBy;
+import org.sindaryn.datafi.annotations.FuzzySearchByFields;
+import org.sindaryn.datafi.annotations.FuzzySearchStrategy;
 import org.sindaryn.datafi.annotations.WithResolver;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.persistence.CascadeType;
+import javax.persistence.ElementCollection;
+import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
 import javax.persistence.Table;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import javax.persistence.Version;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.sindaryn.datafi.StaticUtils.streamQueryHints;
+import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+import static org.sindaryn.datafi.generator.ValueTypeFactory.constructorExpression;
+import static org.sindaryn.datafi.generator.ValueTypeFactory.projectionTypeOf;
 
 public class SqlQueryMethodParser {
 
@@ -22,30 +45,234 @@ public class SqlQueryMethodParser {
         String prefix = prefix(resolver, typeElement);
         String whereClause = whereClause(resolver, typeElement);
         ParameterSpec[] args = args(resolver, typeElement);
+        String groupByClause = groupByClause(resolver, typeElement);
+        if(!whereClause.isEmpty() && !groupByClause.isEmpty()) groupByClause = " " + groupByClause;
         String orderByClause = resolver.orderBy();
-        return   MethodSpec.methodBuilder(resolver.name())
+        return resolverMethod(resolver.name(), resolver, typeElement, prefix + whereClause + groupByClause + orderByClause)
+                .addParameters(Arrays.asList(args))
+                .build();
+    }
+
+    /**
+     * the methods behind the chunked execution of an UPDATE or DELETE resolver - i.e. for a resolver named
+     * 'archiveByCity', archiveByCityFirstIds(city, paginator) and archiveByCityIdsAfter(city, afterId, paginator),
+     * which page through the ids of the matching records in order, and archiveByCityByIdIn(city, ..., ids),
+     * which runs the statement against a single page of ids. Empty for any other type of resolver,
+     * or for entities with a composite id.
+     */
+    public static List<MethodSpec> parseChunkingResolvers(WithResolver resolver, TypeElement typeElement, TypeName idType){
+        List<MethodSpec> result = new ArrayList<>();
+        String idFieldName = idFieldNameOf(typeElement);
+        if(!resolver.type().isModifying() || idFieldName == null) return result;
+        String entityName = resolveEntityName(typeElement);
+        String placeholder = entityName.substring(0, 1).toLowerCase();
+        String idPath = placeholder + "." + idFieldName;
+        String whereClause = whereClause(resolver, typeElement);
+        //the where clause, followed by a restriction of the ids
+        String whereClausePrefix = whereClause.isEmpty() ? "WHERE " : "WHERE (" + whereClause.substring("WHERE".length()).trim() + ") AND ";
+        String select = "SELECT " + idPath + " FROM " + entityName + " " + placeholder + " ";
+        List<ParameterSpec> whereArgs = Arrays.asList(args(resolver, typeElement)).subList(0, resolver.args().length);
+        ParameterSpec paginator = ParameterSpec.builder(Pageable.class, "paginator").build();
+        TypeName idListType = ParameterizedTypeName.get(ClassName.get(List.class), idType);
+        result.add(MethodSpec.methodBuilder(resolver.name() + "FirstIds")
                 .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
                 .addAnnotation(AnnotationSpec.builder(Query.class)
-                        .addMember("value", "$S", prefix + whereClause + orderByClause)
+                        .addMember("value", "$S", select + whereClause + (whereClause.isEmpty() ? "" : " ") + "ORDER BY " + idPath)
                         .build())
-                .addParameters(Arrays.asList(args))
-                .returns(returnType(resolver, typeElement))
+                .addParameters(whereArgs)
+                .addParameter(paginator)
+                .returns(idListType)
+                .build());
+        result.add(MethodSpec.methodBuilder(resolver.name() + "IdsAfter")
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", select + whereClausePrefix + idPath + " > :afterId ORDER BY " + idPath)
+                        .build())
+                .addParameters(whereArgs)
+                .addParameter(namedParameter(idType, "afterId"))
+                .addParameter(paginator)
+                .returns(idListType)
+                .build());
+        result.add(resolverMethod(resolver.name() + "ByIdIn", resolver, typeElement,
+                prefix(resolver, typeElement) + whereClausePrefix + idPath + " IN :ids")
+                .addParameters(Arrays.asList(args(resolver, typeElement)))
+                .addParameter(namedParameter(ParameterizedTypeName.get(ClassName.get(Collection.class), idType), "ids"))
+                .build());
+        return result;
+    }
+
+    private static MethodSpec.Builder resolverMethod(String name, WithResolver resolver, TypeElement typeElement, String query){
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", query)
+                        .build());
+        //as per ArchivableDao.updateIsArchivedByIdIn(...)
+        if(resolver.type().isModifying())
+            builder.addAnnotation(AnnotationSpec.builder(Modifying.class)
+                            .addMember("flushAutomatically", "$L", true)
+                            .addMember("clearAutomatically", "$L", true)
+                            .build())
+                    .addAnnotation(Transactional.class);
+        return builder.returns(returnType(resolver, typeElement));
+    }
+
+    /**
+     * the Stream<T> returning counterpart of a SELECT_BY resolver - i.e. streamFindByCityAndAge(...)
+     * for a resolver named 'findByCityAndAge'. Returns null for any other type of resolver.
+     */
+    public static MethodSpec parseStreamingResolver(WithResolver resolver, TypeElement typeElement){
+        if(resolver.type() != QueryType.SELECT_BY) return null;
+        MethodSpec resolverMethod = parseResolver(resolver, typeElement);
+        return resolverMethod.toBuilder()
+                .setName("stream" + toPascalCase(resolver.name()))
+                .addAnnotation(streamQueryHints())
+                .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), ClassName.get(typeElement)))
                 .build();
     }
 
+    /**
+     * the projecting counterpart of a SELECT_BY resolver with a projection - i.e. findByCityAndAgeProjected(...)
+     * for a resolver named 'findByCityAndAge', returning the '<entity name>FindByCityAndAgeProjection' generated
+     * by ValueTypeFactory. Returns null for any other resolver.
+     */
+    public static MethodSpec parseProjectedResolver(WithResolver resolver, TypeElement typeElement){
+        if(resolver.type() != QueryType.SELECT_BY || resolver.projection().length == 0) return null;
+        String entityName = resolveEntityName(typeElement);
+        String placeholder = entityName.substring(0, 1).toLowerCase();
+        ClassName projectionType = projectionTypeOf(typeElement, toPascalCase(resolver.name()));
+        String select = "SELECT " + constructorExpression(projectionType, resolver.projection(), placeholder) +
+                " FROM " + entityName + " " + placeholder + " ";
+        return MethodSpec.methodBuilder(resolver.name() + "Projected")
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addAnnotation(AnnotationSpec.builder(Query.class)
+                        .addMember("value", "$S", select + whereClause(resolver, typeElement) + resolver.orderBy())
+                        .build())
+                .addParameters(Arrays.asList(args(resolver, typeElement)))
+                .returns(ParameterizedTypeName.get(ClassName.get(List.class), projectionType))
+                .build();
+    }
+
+    /**
+     * checks the field and groupBy attributes of the given resolver against the fields of the given entity
+     * @return the reason the resolver is invalid, or null if it's valid
+     */
+    public static String validateResolver(WithResolver resolver, TypeElement typeElement){
+        boolean hasField = !resolver.field().equals("");
+        Map<String, TypeName> fields = resolveFieldTypesOf(typeElement);
+        if(resolver.type() != QueryType.SELECT_BY && resolver.projection().length > 0)
+            return "projection only applies to SELECT_BY resolvers";
+        if(resolver.type() != QueryType.UPDATE && resolver.set().length > 0)
+            return "set only applies to UPDATE resolvers";
+        if(resolver.type().isModifying() && !resolver.orderBy().equals(""))
+            return "orderBy doesn't apply to " + resolver.type() + " resolvers";
+        if(resolver.type() == QueryType.UPDATE && resolver.set().length == 0)
+            return "UPDATE resolvers require the fields to set";
+        for (String setField : resolver.set()) {
+            if(!fields.containsKey(setField))
+                return "No such field: " + setField;
+            //a bulk UPDATE doesn't go through FuzzySearchIndexListener, which would reindex the updated records
+            if(isLuceneSearchField(typeElement, setField))
+                return "UPDATE resolvers can't set '" + setField + "', as the FuzzySearchStrategy.LUCENE index isn't " +
+                        "updated by bulk statements - update such records via save(...) or saveAll(...) instead";
+        }
+        //a bulk DELETE skips whatever em.remove(...) would've cascaded to, cleaned up or orphaned
+        String dependentField = resolver.type() == QueryType.DELETE ? removalDependentFieldOf(typeElement) : null;
+        if(dependentField != null)
+            return "DELETE resolvers don't cascade, remove orphans or clean up join tables, and as such aren't " +
+                    "available for entities with owned collections or cascading removals such as '" + dependentField + "'";
+        if(!resolver.type().isAggregate())
+            return hasField || resolver.groupBy().length > 0 ?
+                    "field and groupBy only apply to AVG, COUNT, MAX, MIN and SUM resolvers" : null;
+        if(hasField && !fields.containsKey(resolver.field()))
+            return "No such field: " + resolver.field();
+        if(!hasField && resolver.type() != QueryType.COUNT)
+            return resolver.type() + " resolvers require the field to aggregate";
+        if((resolver.type() == QueryType.AVG || resolver.type() == QueryType.SUM) && !isNumeric(fields.get(resolver.field())))
+            return resolver.type() + " resolvers require a numeric field";
+        for (String groupByField : resolver.groupBy()) {
+            if(!fields.containsKey(groupByField))
+                return "No such field: " + groupByField;
+            if(groupByField.equals(aggregateFieldNameOf(resolver)))
+                return "A grouped " + resolver.type() + " resolver cannot group by a field named '" + groupByField + "'";
+        }
+        return null;
+    }
+
+    //'<entity name><resolver name>Result' - the per group result of an aggregate resolver with a groupBy
+    public static ClassName resultTypeOf(WithResolver resolver, TypeElement typeElement){
+        return ClassName.get(ClassName.get(typeElement).packageName(),
+                typeElement.getSimpleName() + toPascalCase(resolver.name()) + "Result");
+    }
+
+    /**
+     * the fields of the result type of a grouped aggregate resolver, in the order of its constructor arguments -
+     * the groupBy fields, followed by the aggregated value named after the type of the resolver (i.e. 'count').
+     * boxed, as hibernate matches constructor expressions against the boxed types of the selected values
+     */
+    public static Map<String, TypeName> resultFieldsOf(WithResolver resolver, TypeElement typeElement){
+        Map<String, TypeName> fields = resolveFieldTypesOf(typeElement);
+        Map<String, TypeName> result = new LinkedHashMap<>();
+        for (String groupByField : resolver.groupBy())
+            result.put(groupByField, fields.get(groupByField).box());
+        result.put(aggregateFieldNameOf(resolver), aggregateTypeOf(resolver, typeElement));
+        return result;
+    }
+
     private static TypeName returnType(WithResolver resolver, TypeElement typeElement) {
         TypeName result;
         switch (resolver.type()){
             case SELECT_BY: result = ParameterizedTypeName.get(ClassName.get(List.class), ClassName.get(typeElement));
                 break;
+            case AVG:
+            case COUNT:
+            case MAX:
+            case MIN:
+            case SUM:
+                if(resolver.groupBy().length > 0)
+                    result = ParameterizedTypeName.get(ClassName.get(List.class), resultTypeOf(resolver, typeElement));
+                //COUNT is never null, the rest are null if no records match
+                else if(resolver.type() == QueryType.COUNT) result = TypeName.LONG;
+                else result = aggregateTypeOf(resolver, typeElement);
+                break;
+            //the number of records updated or deleted
+            case UPDATE:
+            case DELETE: result = TypeName.INT;
+                break;
             default: throw new IllegalStateException("Unexpected value: " + resolver.type());
         }
         return result;
     }
 
+    //as per the jpa spec - AVG is Double, COUNT is Long, SUM is Long, Double, BigInteger or BigDecimal and MIN / MAX retain the field's type
+    private static TypeName aggregateTypeOf(WithResolver resolver, TypeElement typeElement) {
+        TypeName fieldType = resolveFieldTypesOf(typeElement).get(resolver.field());
+        switch (resolver.type()){
+            case AVG: return ClassName.get(Double.class);
+            case COUNT: return ClassName.get(Long.class);
+            case SUM:
+                TypeName unboxed = fieldType.isBoxedPrimitive() ? fieldType.unbox() : fieldType;
+                if(unboxed.equals(TypeName.FLOAT) || unboxed.equals(TypeName.DOUBLE)) return ClassName.get(Double.class);
+                return unboxed.isPrimitive() ? ClassName.get(Long.class) : fieldType;
+            default: return fieldType.box();
+        }
+    }
+
+    private static String aggregateFieldNameOf(WithResolver resolver) {
+        return resolver.type().name().toLowerCase();
+    }
+
+    private static boolean isNumeric(TypeName fieldType) {
+        TypeName unboxed = fieldType.isBoxedPrimitive() ? fieldType.unbox() : fieldType;
+        return unboxed.isPrimitive() && !unboxed.equals(TypeName.BOOLEAN) && !unboxed.equals(TypeName.CHAR) ||
+                fieldType.equals(ClassName.get(BigInteger.class)) || fieldType.equals(ClassName.get(BigDecimal.class));
+    }
+
+    //the args, followed by a 'new<field name>' parameter per field set by an UPDATE resolver
     private static ParameterSpec[] args(WithResolver resolver, TypeElement typeElement){
         String[] args = resolver.args();
-        ParameterSpec[] result = new ParameterSpec[args.length];
+        String[] setFields = resolver.set();
+        ParameterSpec[] result = new ParameterSpec[args.length + setFields.length];
         Map<String, TypeName> fields = resolveFieldTypesOf(typeElement);
         for (int i = 0; i < args.length; i++){
             result[i] =
@@ -57,9 +284,95 @@ public class SqlQueryMethodParser {
                                     .build())
                     .build();
         }
+        for (int i = 0; i < setFields.length; i++)
+            result[args.length + i] = namedParameter(fields.get(setFields[i]), "new" + toPascalCase(setFields[i]));
         return result;
     }
 
+    private static ParameterSpec namedParameter(TypeName type, String name){
+        return ParameterSpec.builder(type, name)
+                .addAnnotation(AnnotationSpec.builder(Param.class).addMember("value", "$S", name).build())
+                .build();
+    }
+
+    //the name of the @Id field of the given entity, including inherited fields - or null for @EmbeddedId entities
+    static String idFieldNameOf(TypeElement typeElement) {
+        for (TypeElement type = typeElement; type != null; type = superclassOf(type))
+            for (Element field : type.getEnclosedElements()) {
+                if(!field.getKind().isField()) continue;
+                if(field.getAnnotation(Id.class) != null) return field.getSimpleName().toString();
+                if(field.getAnnotation(EmbeddedId.class) != null) return null;
+            }
+        return null;
+    }
+
+    //the name of the @Id or @EmbeddedId field of the given entity, including inherited fields - or null if neither is annotated on a field
+    static String idAttributeNameOf(TypeElement typeElement) {
+        for (TypeElement type = typeElement; type != null; type = superclassOf(type))
+            for (Element field : type.getEnclosedElements()) {
+                if(!field.getKind().isField()) continue;
+                if(field.getAnnotation(Id.class) != null || field.getAnnotation(EmbeddedId.class) != null)
+                    return field.getSimpleName().toString();
+            }
+        return null;
+    }
+
+    /*
+    the first field of the given entity, including inherited fields, whose rows em.remove(...) would've
+    removed along with the entity - owned collections, which live in a join or collection table or whose
+    elements hold a foreign key to the entity, and associations which cascade removals or remove orphans
+    */
+    private static String removalDependentFieldOf(TypeElement typeElement) {
+        for (TypeElement type = typeElement; type != null; type = superclassOf(type))
+            for (Element field : type.getEnclosedElements()) {
+                if(!field.getKind().isField()) continue;
+                ManyToMany manyToMany = field.getAnnotation(ManyToMany.class);
+                OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+                OneToOne oneToOne = field.getAnnotation(OneToOne.class);
+                ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+                boolean ownsCollection = field.getAnnotation(ElementCollection.class) != null ||
+                        manyToMany != null && manyToMany.mappedBy().isEmpty() ||
+                        oneToMany != null && oneToMany.mappedBy().isEmpty();
+                boolean cascadesRemoval =
+                        manyToMany != null && cascadesRemoval(manyToMany.cascade()) ||
+                        oneToMany != null && (oneToMany.orphanRemoval() || cascadesRemoval(oneToMany.cascade())) ||
+                        oneToOne != null && (oneToOne.orphanRemoval() || cascadesRemoval(oneToOne.cascade())) ||
+                        manyToOne != null && cascadesRemoval(manyToOne.cascade());
+                if(ownsCollection || cascadesRemoval) return field.getSimpleName().toString();
+            }
+        return null;
+    }
+
+    private static boolean cascadesRemoval(CascadeType[] cascadeTypes) {
+        for (CascadeType cascadeType : cascadeTypes)
+            if(cascadeType == CascadeType.ALL || cascadeType == CascadeType.REMOVE) return true;
+        return false;
+    }
+
+    //whether the given entity has a @Version field, including inherited fields
+    private static boolean isLuceneSearchField(TypeElement typeElement, String fieldName) {
+        FuzzySearchByFields classLevelAnnotation = typeElement.getAnnotation(FuzzySearchByFields.class);
+        if(classLevelAnnotation == null || classLevelAnnotation.strategy() != FuzzySearchStrategy.LUCENE) return false;
+        if(Arrays.asList(classLevelAnnotation.fields()).contains(fieldName)) return true;
+        for (TypeElement type = typeElement; type != null; type = superclassOf(type))
+            for (Element field : type.getEnclosedElements())
+                if(field.getKind().isField() && field.getSimpleName().contentEquals(fieldName))
+                    return field.getAnnotation(FuzzySearchBy.class) != null;
+        return false;
+    }
+
+    static boolean isVersioned(TypeElement typeElement) {
+        for (TypeElement type = typeElement; type != null; type = superclassOf(type))
+            for (Element field : type.getEnclosedElements())
+                if(field.getKind().isField() && field.getAnnotation(Version.class) != null) return true;
+        return false;
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
     private static Map<String, TypeName> resolveFieldTypesOf(TypeElement typeElement) {
         Map<String, TypeName> result = new HashMap<>();
         for(Element field : typeElement.getEnclosedElements())
@@ -73,22 +386,62 @@ public class SqlQueryMethodParser {
         String placeholder = entityName.substring(0, 1).toLowerCase();
         switch (resolver.type()){
             case SELECT_BY: return "SELECT " + placeholder + " FROM " + entityName + " " + placeholder + " ";
-            /*case AVG: return "SELECT AVG("  + placeholder +  ".__ARGS__" +  ") FROM " + entityName + " " + placeholder + " ";
-            case COUNT: return "SELECT COUNT(" + "__ARGS__" + ") FROM " + entityName + " " + placeholder + " ";
-            case MAX: return "SELECT MAX(" + placeholder + ".__ARGS__" + ") FROM " + entityName + " " + placeholder + " ";
-            case MIN: return "SELECT MIN(" + placeholder + ".__ARGS__" + ") FROM " + entityName + " " + placeholder + " ";
-            case SUM: return "SELECT SUM(" + placeholder + ".__ARGS__" + ") FROM " + entityName + " " + placeholder + " ";
-            case UPDATE: return "UPDATE " + entityName + " " + placeholder +  " SET ";
-            case DELETE: return "DELETE " + entityName + " " + placeholder + " ";*/
+            case AVG:
+            case COUNT:
+            case MAX:
+            case MIN:
+            case SUM: return "SELECT " + aggregateSelection(resolver, typeElement, placeholder) +
+                    " FROM " + entityName + " " + placeholder + " ";
+            //as per updateIsArchivedByIdIn(...), UPDATE VERSIONED increments the @Version of each updated record
+            case UPDATE: return "UPDATE " + (isVersioned(typeElement) ? "VERSIONED " : "") + entityName + " " + placeholder +
+                    " SET " + setClause(resolver, placeholder) + " ";
+            case DELETE: return "DELETE FROM " + entityName + " " + placeholder + " ";
         }
         return null;
     }
 
+    /*
+    i.e. 'SUM(p.amount)', or - given a groupBy - a constructor expression
+    such as 'new com.example.PersonSumByCityResult(p.city, SUM(p.amount))'
+    */
+    private static String aggregateSelection(WithResolver resolver, TypeElement typeElement, String placeholder) {
+        String aggregate = resolver.type().name() + "(" + placeholder +
+                (resolver.field().equals("") ? "" : "." + resolver.field()) + ")";
+        if(resolver.groupBy().length == 0) return aggregate;
+        StringBuilder selection = new StringBuilder("new ").append(resultTypeOf(resolver, typeElement)).append("(");
+        for (String groupByField : resolver.groupBy())
+            selection.append(placeholder).append(".").append(groupByField).append(", ");
+        return selection.append(aggregate).append(")").toString();
+    }
+
+    //i.e. 'p.status = :newStatus, p.reason = :newReason'
+    private static String setClause(WithResolver resolver, String placeholder) {
+        StringBuilder setClause = new StringBuilder();
+        for (int i = 0; i < resolver.set().length; i++) {
+            String field = resolver.set()[i];
+            setClause.append(i == 0 ? "" : ", ").append(placeholder).append(".").append(field)
+                    .append(" = :new").append(toPascalCase(field));
+        }
+        return setClause.toString();
+    }
+
+    private static String groupByClause(WithResolver resolver, TypeElement typeElement) {
+        if(resolver.groupBy().length == 0) return "";
+        String entityName = resolveEntityName(typeElement);
+        String placeholder = entityName.substring(0, 1).toLowerCase();
+        StringBuilder groupByClause = new StringBuilder("GROUP BY ");
+        for (int i = 0; i < resolver.groupBy().length; i++)
+            groupByClause.append(i == 0 ? "" : ", ").append(placeholder).append(".").append(resolver.groupBy()[i]);
+        return groupByClause.append(" ").toString();
+    }
+
     private static String whereClause(WithResolver resolver, TypeElement typeElement){
         String entityName = resolveEntityName(typeElement);
         String placeholder = entityName.substring(0, 1).toLowerCase();
         StringBuilder whereClause = new StringBuilder(resolver.where());
         String conditional = isPreDefinedConditional(whereClause);
+        //i.e. an aggregate over all records
+        if(conditional != null && resolver.args().length == 0) return "";
         if(conditional != null){
             whereClause = new StringBuilder("WHERE");
             String[] args = resolver.args();
@@ -112,7 +465,7 @@ public class SqlQueryMethodParser {
         }
     }
 
-    private static String resolveEntityName(TypeElement typeElement) {
+    static String resolveEntityName(TypeElement typeElement) {
         Entity entityAnnotation = typeElement.getAnnotation(Entity.class);
         Table tableAnnotation = typeElement.getAnnotation(Table.class);
         if(entityAnnotation != null && !entityAnnotation.name().equals("")){
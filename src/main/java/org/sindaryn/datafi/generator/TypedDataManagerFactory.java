@@ -0,0 +1,313 @@
+package org.sindaryn.datafi.generator;
+
+import com.squareup.javapoet.*;
+import lombok.Data;
+import lombok.NonNull;
+import org.sindaryn.datafi.annotations.Cached;
+import org.sindaryn.datafi.annotations.GetAllBy;
+import org.sindaryn.datafi.annotations.GetBy;
+import org.sindaryn.datafi.annotations.GetByUnique;
+import org.sindaryn.datafi.annotations.WithResolver;
+import org.sindaryn.datafi.service.DataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static com.squareup.javapoet.ParameterizedTypeName.get;
+import static org.sindaryn.datafi.StaticUtils.*;
+import static org.sindaryn.datafi.generator.CustomResolversFactory.getResolvers;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.idFieldNameOf;
+import static org.sindaryn.datafi.generator.ValueTypeFactory.projectionTypeOf;
+
+@Data
+public class TypedDataManagerFactory {
+    @NonNull
+    private ProcessingEnvironment processingEnv;
+
+    /**
+     * generate '<entity name>DataManager.java' - a DataManager<entity> subclass with a
+     * real method for each custom resolver of the given entity, each of which
+     * directly calls its counterpart in the respective '<entity name>Dao'.
+     * The protected findBy(...), findAllBy(...), findByUnique(...) and invokeResolver(...) hooks behind the
+     * string based getBy(...), getAllBy(...), getByUnique(...) and selectByResolver(...) are overridden to
+     * dispatch to the same direct calls. All of these are timed, as per BaseDataManager.timed(...).
+     * For @Cached entities, getByUnique<Field>(...) goes through getByUnique(...), and as such through the cache. loadByUnique<Field>(...) is generated
+     * for each @GetByUnique field, and goes through the batching loadByUnique(...).
+     * Each of the typed finders also has an async '<method name>Async(...)' counterpart.
+     * @param entity - the given data model entity / table
+     * @param annotatedFields - fields annotated with @GetBy, @GetAllBy or @GetByUnique
+     * @param customResolvers - the @WithResolver(...) methods of the generated dao
+     * @param hasFuzzySearch - whether or not the generated dao includes a fuzzySearch method
+     * @return the type name of the generated class
+     */
+    public ClassName generateTypedDataManager(TypeElement entity,
+                                              List<VariableElement> annotatedFields,
+                                              List<MethodSpec> customResolvers,
+                                              boolean hasFuzzySearch) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String entityName = entity.getSimpleName().toString();
+        ClassName entityType = ClassName.get(entity);
+        ClassName daoType = ClassName.get(packageName, entityName + "Dao");
+        String daoFieldName = camelCaseNameOf(entity) + "Dao";
+        ClassName typedDataManagerType = typedDataManagerTypeOf(entity);
+        if(annotatedFields == null) annotatedFields = Collections.emptyList();
+        if(customResolvers == null) customResolvers = Collections.emptyList();
+
+        TypeSpec.Builder builder = TypeSpec.classBuilder(typedDataManagerType)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "$S", "unchecked")
+                        .build())
+                .superclass(get(ClassName.get(DataManager.class), entityType))
+                .addField(FieldSpec.builder(daoType, daoFieldName, Modifier.PRIVATE)
+                        .addAnnotation(Autowired.class)
+                        .build())
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addModifiers(Modifier.PUBLIC)
+                        .addStatement("super($T.class)", entityType)
+                        .build());
+
+        CodeBlock.Builder getByCases = CodeBlock.builder();
+        CodeBlock.Builder getAllByCases = CodeBlock.builder();
+        CodeBlock.Builder getByUniqueCases = CodeBlock.builder();
+        for (VariableElement field : annotatedFields) {
+            final String fieldName = field.getSimpleName().toString();
+            final String pascalCaseName = toPascalCase(fieldName);
+            final TypeName fieldType = TypeName.get(field.asType());
+            if(field.getAnnotation(GetBy.class) != null){
+                builder.addMethod(delegatingMethod("getBy" + pascalCaseName, "getBy", fieldName,
+                        get(ClassName.get(List.class), entityType), daoFieldName, "findBy" + pascalCaseName,
+                        ParameterSpec.builder(fieldType, fieldName).build()));
+                getByCases.add("case $S:\n$>return $N.$N(($T) attributeValue);\n$<",
+                        fieldName, daoFieldName, "findBy" + pascalCaseName, fieldType.box());
+                builder.addMethod(delegatingMethod("streamBy" + pascalCaseName, "streamBy", fieldName,
+                        get(ClassName.get(Stream.class), entityType), daoFieldName, "streamBy" + pascalCaseName,
+                        ParameterSpec.builder(fieldType, fieldName).build()));
+                builder.addMethod(asyncMethod("getBy" + pascalCaseName,
+                        get(ClassName.get(List.class), entityType), ParameterSpec.builder(fieldType, fieldName).build()));
+                if(field.getAnnotation(GetBy.class).projection().length > 0){
+                    TypeName projectionListType = get(ClassName.get(List.class), projectionTypeOf(entity, "By" + pascalCaseName));
+                    builder.addMethod(delegatingMethod("getProjectedBy" + pascalCaseName, "getProjectedBy", fieldName,
+                            projectionListType, daoFieldName, "findProjectedBy" + pascalCaseName,
+                            ParameterSpec.builder(fieldType, fieldName).build()));
+                    builder.addMethod(asyncMethod("getProjectedBy" + pascalCaseName, projectionListType,
+                            ParameterSpec.builder(fieldType, fieldName).build()));
+                }
+            }
+            if(field.getAnnotation(GetAllBy.class) != null){
+                builder.addMethod(delegatingMethod("getAllBy" + pascalCaseName, "getAllBy", fieldName,
+                        get(ClassName.get(List.class), entityType), daoFieldName, "findAllBy" + pascalCaseName + "In",
+                        ParameterSpec.builder(get(ClassName.get(List.class), fieldType.box()), toPlural(fieldName)).build()));
+                getAllByCases.add("case $S:\n$>return $N.$N(($T) $T.asList(attributeValues));\n$<",
+                        fieldName, daoFieldName, "findAllBy" + pascalCaseName + "In", List.class, Arrays.class);
+                builder.addMethod(delegatingMethod("streamAllBy" + pascalCaseName, "streamAllBy", fieldName,
+                        get(ClassName.get(Stream.class), entityType), daoFieldName, "streamAllBy" + pascalCaseName + "In",
+                        ParameterSpec.builder(get(ClassName.get(List.class), fieldType.box()), toPlural(fieldName)).build()));
+                builder.addMethod(asyncMethod("getAllBy" + pascalCaseName, get(ClassName.get(List.class), entityType),
+                        ParameterSpec.builder(get(ClassName.get(List.class), fieldType.box()), toPlural(fieldName)).build()));
+                if(field.getAnnotation(GetAllBy.class).projection().length > 0){
+                    TypeName projectionListType = get(ClassName.get(List.class), projectionTypeOf(entity, "AllBy" + pascalCaseName));
+                    builder.addMethod(delegatingMethod("getAllProjectedBy" + pascalCaseName, "getAllProjectedBy", fieldName,
+                            projectionListType, daoFieldName, "findAllProjectedBy" + pascalCaseName + "In",
+                            ParameterSpec.builder(get(ClassName.get(List.class), fieldType.box()), toPlural(fieldName)).build()));
+                    builder.addMethod(asyncMethod("getAllProjectedBy" + pascalCaseName, projectionListType,
+                            ParameterSpec.builder(get(ClassName.get(List.class), fieldType.box()), toPlural(fieldName)).build()));
+                }
+            }
+            if(field.getAnnotation(GetByUnique.class) != null && field.getAnnotation(GetBy.class) == null){
+                if(entity.getAnnotation(Cached.class) != null)
+                    builder.addMethod(MethodSpec.methodBuilder("getByUnique" + pascalCaseName)
+                            .addModifiers(Modifier.PUBLIC)
+                            .addParameter(fieldType, fieldName)
+                            .returns(get(ClassName.get(Optional.class), entityType))
+                            .addStatement("return getByUnique($S, $N)", fieldName, fieldName)
+                            .build());
+                else
+                    builder.addMethod(delegatingMethod("getByUnique" + pascalCaseName, "getByUnique", fieldName,
+                            get(ClassName.get(Optional.class), entityType), daoFieldName, "findBy" + pascalCaseName,
+                            ParameterSpec.builder(fieldType, fieldName).build()));
+                getByUniqueCases.add("case $S:\n$>return $N.$N(($T) attributeValue);\n$<",
+                        fieldName, daoFieldName, "findBy" + pascalCaseName, fieldType.box());
+                builder.addMethod(MethodSpec.methodBuilder("loadByUnique" + pascalCaseName)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(fieldType, fieldName)
+                        .returns(get(ClassName.get(CompletableFuture.class), get(ClassName.get(Optional.class), entityType)))
+                        .addStatement("return loadByUnique($S, $N)", fieldName, fieldName)
+                        .build());
+                builder.addMethod(asyncMethod("getByUnique" + pascalCaseName,
+                        get(ClassName.get(Optional.class), entityType), ParameterSpec.builder(fieldType, fieldName).build()));
+            }
+        }
+
+        CodeBlock.Builder selectByResolverCases = CodeBlock.builder();
+        final TypeName entityListType = get(ClassName.get(List.class), entityType);
+        final Map<String, String> resolverOperations = resolverOperationsOf(entity);
+        for (MethodSpec resolver : customResolvers) {
+            List<ParameterSpec> parameters = new ArrayList<>();
+            CodeBlock.Builder castArgs = CodeBlock.builder();
+            for (int i = 0; i < resolver.parameters.size(); i++) {
+                ParameterSpec parameter = resolver.parameters.get(i);
+                parameters.add(ParameterSpec.builder(parameter.type, parameter.name).build());
+                castArgs.add(i == 0 ? "($T) args[$L]" : ", ($T) args[$L]", parameter.type.box(), i);
+            }
+            String operation = resolverOperations.get(resolver.name);
+            ParameterSpec[] resolverParameters = parameters.toArray(new ParameterSpec[0]);
+            if(operation.equals("updateByResolver") || operation.equals("deleteByResolver")){
+                //via updateByResolver(...) / deleteByResolver(...), which also evict the entity cache
+                builder.addMethod(modifyingMethod(resolver.name, operation, "", null, resolverParameters));
+                if(idFieldNameOf(entity) != null)
+                    builder.addMethod(modifyingMethod(resolver.name, operation, "InChunks",
+                            ParameterSpec.builder(int.class, "chunkSize").build(), resolverParameters));
+                builder.addMethod(asyncMethod(resolver.name, resolver.returnType, false, resolverParameters));
+                continue;
+            }
+            builder.addMethod(delegatingMethod(resolver.name, operation, resolver.name,
+                    resolver.returnType, daoFieldName, resolver.name, resolverParameters));
+            builder.addMethod(asyncMethod(resolver.name, resolver.returnType, resolverParameters));
+            if(entityListType.equals(resolver.returnType))
+                selectByResolverCases.add("case $S:\n$>return $N.$N($L);\n$<",
+                        resolver.name, daoFieldName, resolver.name, castArgs.build());
+        }
+
+        if(!getByCases.isEmpty())
+            builder.addMethod(dispatchingOverride("findBy", entityListType, getByCases.build(),
+                    ParameterSpec.builder(String.class, "attributeName").build(),
+                    ParameterSpec.builder(Object.class, "attributeValue").build()));
+        if(!getAllByCases.isEmpty())
+            builder.addMethod(dispatchingOverride("findAllBy", entityListType, getAllByCases.build(),
+                    ParameterSpec.builder(String.class, "attributeName").build(),
+                    ParameterSpec.builder(Object[].class, "attributeValues").build()));
+        if(!getByUniqueCases.isEmpty())
+            builder.addMethod(dispatchingOverride("findByUnique", get(ClassName.get(Optional.class), entityType),
+                    getByUniqueCases.build(),
+                    ParameterSpec.builder(String.class, "attributeName").build(),
+                    ParameterSpec.builder(Object.class, "attributeValue").build()));
+        if(!selectByResolverCases.isEmpty())
+            builder.addMethod(dispatchingOverride("invokeResolver", entityListType, selectByResolverCases.build(),
+                    ParameterSpec.builder(String.class, "resolverName").build(),
+                    ParameterSpec.builder(Object[].class, "args").build())
+                    .toBuilder().varargs().build());
+        if(hasFuzzySearch)
+            builder.addMethod(MethodSpec.methodBuilder("fuzzySearchPage")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PROTECTED)
+                    .addParameter(String.class, "searchTerm")
+                    .addParameter(Pageable.class, "paginator")
+                    .returns(get(ClassName.get(Page.class), entityType))
+                    .addStatement("return $N.fuzzySearch(searchTerm, paginator)", daoFieldName)
+                    .build());
+
+        writeToJavaFile(entityName, packageName, builder, processingEnv, "typed data manager", entity);
+        return typedDataManagerType;
+    }
+
+    //the '<entity name>DataManager' generated for the given entity
+    public ClassName typedDataManagerTypeOf(TypeElement entity) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        return ClassName.get(packageName, entity.getSimpleName() + "DataManager");
+    }
+
+    //a direct call to the dao, recorded by the DataManagerMetrics under the given operation and resolver name
+    private MethodSpec delegatingMethod(String methodName, String operation, String resolver, TypeName returnType,
+                                        String daoFieldName, String daoMethodName, ParameterSpec... parameters) {
+        CodeBlock.Builder args = CodeBlock.builder();
+        for (int i = 0; i < parameters.length; i++)
+            args.add(i == 0 ? "$N" : ", $N", parameters[i]);
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(methodName)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameters(Arrays.asList(parameters))
+                .returns(returnType);
+        if(returnType.equals(TypeName.VOID))
+            builder.addStatement("timed($S, () -> $N.$N($L))", operation, daoFieldName, daoMethodName, args.build());
+        else
+            builder.addStatement("return timed($S, $S, () -> $N.$N($L))",
+                    operation, resolver, daoFieldName, daoMethodName, args.build());
+        return builder.build();
+    }
+
+    //'<methodName>Async(...)' - runs '<methodName>(...)' of the very same data manager via readOnlyAsync(...)
+    private MethodSpec asyncMethod(String methodName, TypeName returnType, ParameterSpec... parameters) {
+        return asyncMethod(methodName, returnType, true, parameters);
+    }
+
+    //as per the above, via async(...) if not read only
+    private MethodSpec asyncMethod(String methodName, TypeName returnType, boolean readOnly, ParameterSpec... parameters) {
+        CodeBlock.Builder args = CodeBlock.builder();
+        for (int i = 0; i < parameters.length; i++)
+            args.add(i == 0 ? "$N" : ", $N", parameters[i]);
+        return MethodSpec.methodBuilder(methodName + "Async")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameters(Arrays.asList(parameters))
+                .returns(get(ClassName.get(CompletableFuture.class), returnType.box()))
+                .addStatement("return $N(() -> $N($L))", readOnly ? "readOnlyAsync" : "async", methodName, args.build())
+                .build();
+    }
+
+    /**
+     * '<resolverName><suffix>(...)' - runs an UPDATE or DELETE resolver via updateByResolver(...) or deleteByResolver(...),
+     * or via updateByResolverInChunks(chunkSize, ...) or deleteByResolverInChunks(chunkSize, ...) given a chunkSize parameter
+     */
+    private MethodSpec modifyingMethod(String resolverName, String operation, String suffix,
+                                       ParameterSpec chunkSize, ParameterSpec... parameters) {
+        CodeBlock.Builder args = CodeBlock.builder().add("$S", resolverName);
+        if(chunkSize != null) args.add(", $N", chunkSize);
+        for (ParameterSpec parameter : parameters)
+            args.add(", $N", parameter);
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(resolverName + suffix).addModifiers(Modifier.PUBLIC);
+        if(chunkSize != null) builder.addParameter(chunkSize);
+        return builder.addParameters(Arrays.asList(parameters))
+                .returns(int.class)
+                .addStatement("return $N($L)", operation + suffix, args.build())
+                .build();
+    }
+
+    /**
+     * the DataManagerMetrics operation each generated resolver method is recorded under, by method name -
+     * as per the type of its @WithResolver(...), including the streaming and projected counterparts of SELECT_BY resolvers
+     */
+    private static Map<String, String> resolverOperationsOf(TypeElement entity) {
+        Map<String, String> result = new HashMap<>();
+        for (WithResolver resolver : getResolvers(entity)) {
+            switch (resolver.type()){
+                case SELECT_BY:
+                    result.put(resolver.name(), "selectByResolver");
+                    //as per parseStreamingResolver(...)
+                    result.put("stream" + toPascalCase(resolver.name()), "selectByResolver");
+                    //as per parseProjectedResolver(...)
+                    if(resolver.projection().length > 0)
+                        result.put(resolver.name() + "Projected", "selectProjectedByResolver");
+                    break;
+                case UPDATE: result.put(resolver.name(), "updateByResolver");
+                    break;
+                case DELETE: result.put(resolver.name(), "deleteByResolver");
+                    break;
+                default: result.put(resolver.name(), "aggregateByResolver");
+            }
+        }
+        return result;
+    }
+
+    private MethodSpec dispatchingOverride(String methodName, TypeName returnType, CodeBlock cases,
+                                           ParameterSpec nameParameter, ParameterSpec valueParameter) {
+        return MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                //the protected hooks behind getBy(...), getAllBy(...), getByUnique(...) and selectByResolver(...)
+                .addModifiers(Modifier.PROTECTED)
+                .addParameter(nameParameter)
+                .addParameter(valueParameter)
+                .returns(returnType)
+                .beginControlFlow("switch ($N)", nameParameter)
+                .addCode(cases)
+                .addCode("default:\n$>return super.$N($N, $N);\n$<", methodName, nameParameter, valueParameter)
+                .endControlFlow()
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package org.sindaryn.datafi.generator;
+
+import com.squareup.javapoet.*;
+import lombok.Data;
+import lombok.NonNull;
+import org.sindaryn.datafi.annotations.WithResolver;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.persistence.ElementCollection;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import java.util.*;
+
+import static org.sindaryn.datafi.StaticUtils.*;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.resultFieldsOf;
+import static org.sindaryn.datafi.generator.SqlQueryMethodParser.resultTypeOf;
+
+/**
+ * Generates the immutable value types instantiated by jpql constructor expressions -
+ * the results of grouped aggregate resolvers, and the projections of @GetBy, @GetAllBy and @WithResolver finders.
+ * These are plain objects rather than managed entities, and as such aren't snapshotted for dirty checking.
+ */
+@Data
+public class ValueTypeFactory {
+    @NonNull
+    private ProcessingEnvironment processingEnv;
+    //the value types generated so far, by which name clashes between them are detected
+    private final Set<ClassName> generatedTypes = new HashSet<>();
+
+    /**
+     * generate '<entity name><resolver name>Result.java' - an immutable holder of the groupBy fields
+     * and aggregated value of a single group, as instantiated by the resolver's jpql constructor expression
+     * @param resolver - an aggregate resolver with a groupBy
+     * @param entity - the entity declaring the resolver
+     */
+    public void generateAggregateResult(WithResolver resolver, TypeElement entity) {
+        writeValueType(resultTypeOf(resolver, entity), resultFieldsOf(resolver, entity), entity, "aggregate result");
+    }
+
+    /**
+     * generate the given projection type, holding the given fields of the given entity - in order,
+     * as selected by the finder's jpql constructor expression
+     * @param annotatedElement - the element declaring the projection, to which errors are reported
+     * @return false if the projection is invalid, in which case nothing is generated
+     */
+    public boolean generateProjection(TypeElement entity, Element annotatedElement, ClassName projectionType, String[] projection) {
+        Map<String, TypeName> fieldTypes = fieldTypesOf(entity, processingEnv);
+        Map<String, TypeName> fields = new LinkedHashMap<>();
+        for (String field : projection) {
+            if(!fieldTypes.containsKey(field)){
+                logCompilationError(processingEnv, annotatedElement, "No such field in projection: " + field);
+                return false;
+            }
+            String unprojectable = unprojectableReasonOf(fieldOf(entity, field));
+            if(unprojectable != null){
+                logCompilationError(processingEnv, annotatedElement, unprojectable + " in projection: " + field);
+                return false;
+            }
+            //boxed, as hibernate matches constructor expressions against the boxed types of the selected values
+            if(fields.put(field, fieldTypes.get(field).box()) != null){
+                logCompilationError(processingEnv, annotatedElement, "Duplicate field in projection: " + field);
+                return false;
+            }
+        }
+        //i.e. '@GetBy' on a field named 'name', and a @WithResolver(...) named 'byName'
+        if(generatedTypes.contains(projectionType)){
+            logCompilationError(processingEnv, annotatedElement, projectionType.simpleName() +
+                    " is already generated for another finder of " + entity.getSimpleName() + " - rename either one");
+            return false;
+        }
+        writeValueType(projectionType, fields, entity, "projection");
+        return true;
+    }
+
+    /*
+    collections can't be selected by a constructor expression, and selecting an association
+    implicitly inner joins it - dropping records without one - and loads it as a managed entity
+    */
+    private String unprojectableReasonOf(Element field) {
+        if(field.getAnnotation(OneToMany.class) != null || field.getAnnotation(ManyToMany.class) != null ||
+                field.getAnnotation(ElementCollection.class) != null || isCollectionOrMap(field.asType()))
+            return "Collection valued fields can't be projected";
+        if(field.getAnnotation(ManyToOne.class) != null || field.getAnnotation(OneToOne.class) != null)
+            return "Associations can't be projected";
+        return null;
+    }
+
+    private boolean isCollectionOrMap(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        TypeMirror erasure = types.erasure(type);
+        return types.isAssignable(erasure, types.erasure(elements.getTypeElement(Collection.class.getName()).asType())) ||
+                types.isAssignable(erasure, types.erasure(elements.getTypeElement(Map.class.getName()).asType()));
+    }
+
+    //the field of the given name, including inherited fields
+    private Element fieldOf(TypeElement entity, String fieldName) {
+        for (Element member : processingEnv.getElementUtils().getAllMembers(entity))
+            if(member.getKind() == ElementKind.FIELD && member.getSimpleName().contentEquals(fieldName)) return member;
+        throw new IllegalArgumentException("No such field: " + fieldName);
+    }
+
+    //'<entity name><qualifier>Projection' - i.e. 'PersonByNameProjection' for the projection of @GetBy on Person.name
+    public static ClassName projectionTypeOf(TypeElement entity, String qualifier) {
+        return ClassName.get(ClassName.get(entity).packageName(), entity.getSimpleName() + qualifier + "Projection");
+    }
+
+    //i.e. 'new com.example.PersonByNameProjection(p.id, p.name)'
+    public static String constructorExpression(ClassName valueType, String[] fields, String placeholder) {
+        StringBuilder expression = new StringBuilder("new ").append(valueType).append("(");
+        for (int i = 0; i < fields.length; i++)
+            expression.append(i == 0 ? "" : ", ").append(placeholder).append(".").append(fields[i]);
+        return expression.append(")").toString();
+    }
+
+    private void writeValueType(ClassName valueType, Map<String, TypeName> fields, TypeElement entity, String templateType) {
+        TypeSpec.Builder builder = TypeSpec.classBuilder(valueType).addModifiers(Modifier.PUBLIC);
+        MethodSpec.Builder constructor = MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC);
+        List<MethodSpec> getters = new ArrayList<>();
+        CodeBlock.Builder toString = CodeBlock.builder().add("return $S", valueType.simpleName() + "(");
+        boolean first = true;
+        for (Map.Entry<String, TypeName> field : fields.entrySet()) {
+            String fieldName = field.getKey();
+            builder.addField(field.getValue(), fieldName, Modifier.PRIVATE, Modifier.FINAL);
+            getters.add(MethodSpec.methodBuilder("get" + toPascalCase(fieldName))
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(field.getValue())
+                    .addStatement("return $N", fieldName)
+                    .build());
+            constructor.addParameter(field.getValue(), fieldName).addStatement("this.$N = $N", fieldName, fieldName);
+            toString.add(" + $S + $N", (first ? "" : ", ") + fieldName + "=", fieldName);
+            first = false;
+        }
+        builder.addMethod(constructor.build())
+                .addMethods(getters)
+                .addMethod(MethodSpec.methodBuilder("toString")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addStatement(toString.add(" + $S", ")").build())
+                        .build());
+        generatedTypes.add(valueType);
+        writeToJavaFile(valueType.simpleName(), valueType.packageName(), builder, processingEnv, templateType, entity);
+    }
+}
@@ -0,0 +1,20 @@
+package org.sindaryn.datafi.metrics;
+
+/**
+ * Receives a single call per DataManager operation. Called on the thread which ran the operation,
+ * so implementations must be thread safe, and cheap - i.e. no allocation upon recording an
+ * operation which has already been seen.
+ * The recorder in use is chosen via the 'datafi.metrics.recorder' property - 'in-memory' (default),
+ * 'micrometer' or 'none'. Any other value leaves it to a DataManagerMetrics bean of your own.
+ */
+public interface DataManagerMetrics {
+    /**
+     * @param entityName - the simple name of the entity
+     * @param operation - the DataManager method, i.e. "getBy"
+     * @param resolver - the field or resolver name the operation was called with, i.e. "name" - or null
+     * @param durationNanos - wall clock time of the operation
+     * @param rows - the number of records returned or affected, or -1 if unknown (i.e. streams and aggregates)
+     * @param failed - whether the operation threw an exception
+     */
+    void record(String entityName, String operation, String resolver, long durationNanos, long rows, boolean failed);
+}
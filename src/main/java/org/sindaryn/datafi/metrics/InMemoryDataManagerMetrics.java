@@ -0,0 +1,72 @@
+package org.sindaryn.datafi.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default DataManagerMetrics - counters and a latency histogram per operation, held in memory
+ * and read via snapshot(). Counts are cumulative since startup.
+ */
+@Component
+@ConditionalOnProperty(name = "datafi.metrics.recorder", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryDataManagerMetrics implements DataManagerMetrics {
+    private final OperationTable<Recorder> recorders = new OperationTable<>(Recorder::new);
+
+    @Override
+    public void record(String entityName, String operation, String resolver, long durationNanos, long rows, boolean failed) {
+        Recorder recorder = recorders.get(entityName, operation, resolver);
+        recorder.count.increment();
+        recorder.totalNanos.add(durationNanos);
+        recorder.maxNanos.accumulate(durationNanos);
+        recorder.latencies.record(durationNanos);
+        if(failed) recorder.errorCount.increment();
+        else if(rows >= 0) {
+            recorder.rowReportingCount.increment();
+            recorder.rowCount.add(rows);
+        }
+    }
+
+    public List<OperationMetrics> snapshot() {
+        List<OperationMetrics> result = new ArrayList<>();
+        recorders.values().forEach(recorder -> result.add(recorder.snapshot()));
+        return result;
+    }
+
+    //null if the given operation hasn't been recorded yet
+    public OperationMetrics snapshot(String entityName, String operation, String resolver) {
+        for (Recorder recorder : recorders.values())
+            if(recorder.entityName.equals(entityName) && recorder.operation.equals(operation) &&
+                    (resolver == null ? recorder.resolver == null : resolver.equals(recorder.resolver)))
+                return recorder.snapshot();
+        return null;
+    }
+
+    private static class Recorder {
+        private final String entityName;
+        private final String operation;
+        private final String resolver;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder rowCount = new LongAdder();
+        private final LongAdder rowReportingCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private Recorder(String entityName, String operation, String resolver) {
+            this.entityName = entityName;
+            this.operation = operation;
+            this.resolver = resolver;
+        }
+
+        private OperationMetrics snapshot() {
+            return new OperationMetrics(entityName, operation, resolver, count.sum(), errorCount.sum(), rowCount.sum(),
+                    rowReportingCount.sum(), totalNanos.sum(), latencies.valueAt(0.5), latencies.valueAt(0.99), maxNanos.get());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.sindaryn.datafi.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free log-linear histogram of nanosecond durations. Each power of two range
+ * is split into 8 buckets, so percentiles are accurate to within 12.5% across the whole
+ * range of a long - with no allocation upon recording, and about 4kb of memory overall.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * @param percentile - between 0 and 1, i.e. 0.99
+     * @return the upper bound of the bucket containing the given percentile, or 0 if nothing was recorded
+     */
+    long valueAt(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += snapshot[i] = counts.get(i);
+        if(total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if(seen >= rank) return i + 1 < BUCKETS ? lowerBoundOf(i + 1) - 1 : Long.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    static int indexOf(long value) {
+        if(value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBoundOf(int index) {
+        if(index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,60 @@
+package org.sindaryn.datafi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes DataManager metrics to the application's MeterRegistry:
+ * a 'datafi.operations' timer tagged by entity, operation, resolver and outcome,
+ * and a 'datafi.operations.rows' distribution summary of the records returned or affected.
+ */
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(name = "datafi.metrics.recorder", havingValue = "micrometer")
+public class MicrometerDataManagerMetrics implements DataManagerMetrics {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    //meters are registered once, rather than looked up by name and tags upon each call
+    private final OperationTable<Meters> meters = new OperationTable<>(this::register);
+
+    @Override
+    public void record(String entityName, String operation, String resolver, long durationNanos, long rows, boolean failed) {
+        Meters operationMeters = meters.get(entityName, operation, resolver);
+        (failed ? operationMeters.errors : operationMeters.successes).record(durationNanos, TimeUnit.NANOSECONDS);
+        if(!failed && rows >= 0) operationMeters.rows.record(rows);
+    }
+
+    private Meters register(String entityName, String operation, String resolver) {
+        Tags tags = Tags.of("entity", entityName, "operation", operation,
+                "resolver", resolver != null ? resolver : "none");
+        return new Meters(timer(tags.and("outcome", "success")), timer(tags.and("outcome", "error")),
+                DistributionSummary.builder("datafi.operations.rows").tags(tags).register(meterRegistry));
+    }
+
+    private Timer timer(Tags tags) {
+        return Timer.builder("datafi.operations")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static class Meters {
+        private final Timer successes;
+        private final Timer errors;
+        private final DistributionSummary rows;
+
+        private Meters(Timer successes, Timer errors, DistributionSummary rows) {
+            this.successes = successes;
+            this.errors = errors;
+            this.rows = rows;
+        }
+    }
+}
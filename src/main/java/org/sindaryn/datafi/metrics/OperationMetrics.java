@@ -0,0 +1,37 @@
+package org.sindaryn.datafi.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A point in time snapshot of the metrics of a single operation, as recorded by InMemoryDataManagerMetrics.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OperationMetrics {
+    private final String entityName;
+    private final String operation;
+    //null if the operation wasn't called with a field or resolver name
+    private final String resolver;
+    private final long count;
+    private final long errorCount;
+    //records returned or affected, excluding operations which return streams or aggregates
+    private final long rowCount;
+    //successful calls which reported a row count, as opposed to failed calls and those returning streams or aggregates
+    private final long rowReportingCount;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    //per call which reported a row count
+    public double meanRows() {
+        return rowReportingCount == 0 ? 0 : (double) rowCount / rowReportingCount;
+    }
+}
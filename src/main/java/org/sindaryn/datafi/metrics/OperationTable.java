@@ -0,0 +1,44 @@
+package org.sindaryn.datafi.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-operation state, keyed by entity, operation and resolver name. Nested maps rather than a composite
+ * key, such that looking up the state of an operation which has already been seen doesn't allocate.
+ */
+class OperationTable<V> {
+    //stands in for a null resolver name, as concurrent maps don't allow null keys
+    static final String NO_RESOLVER = "";
+
+    interface Factory<V> {
+        V create(String entityName, String operation, String resolver);
+    }
+
+    private final Map<String, Map<String, Map<String, V>>> entries = new ConcurrentHashMap<>();
+    private final Factory<V> factory;
+
+    OperationTable(Factory<V> factory) {
+        this.factory = factory;
+    }
+
+    V get(String entityName, String operation, String resolver) {
+        final String resolverKey = resolver != null ? resolver : NO_RESOLVER;
+        Map<String, Map<String, V>> byOperation = entries.get(entityName);
+        if(byOperation == null) byOperation = entries.computeIfAbsent(entityName, key -> new ConcurrentHashMap<>());
+        Map<String, V> byResolver = byOperation.get(operation);
+        if(byResolver == null) byResolver = byOperation.computeIfAbsent(operation, key -> new ConcurrentHashMap<>());
+        V result = byResolver.get(resolverKey);
+        if(result == null)
+            result = byResolver.computeIfAbsent(resolverKey, key -> factory.create(entityName, operation, resolver));
+        return result;
+    }
+
+    List<V> values() {
+        List<V> result = new ArrayList<>();
+        entries.values().forEach(byOperation -> byOperation.values().forEach(byResolver -> result.addAll(byResolver.values())));
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package org.sindaryn.datafi.persistence;
+
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+
+/**
+ * The generated dao of each Archivable entity extends this interface,
+ * and implements updateIsArchivedByIdIn(...) with a bulk jpql UPDATE.
+ */
+@NoRepositoryBean
+public interface ArchivableDao<TID, T> extends GenericDao<TID, T> {
+    /**
+     * Sets 'isArchived' of all records with the given ids in a single statement,
+     * without loading them into the persistence context.
+     * @param isArchived - the value to set
+     * @param ids - the ids of the records to update
+     * @return the number of updated records
+     */
+    int updateIsArchivedByIdIn(Boolean isArchived, Collection<TID> ids);
+}
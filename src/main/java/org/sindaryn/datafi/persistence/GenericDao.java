@@ -2,9 +2,26 @@ package org.sindaryn.datafi.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @NoRepositoryBean
 public interface GenericDao<TID , T>
         extends JpaRepository<T, TID>, JpaSpecificationExecutor<T> {
+    //jdbc fetch size of all Stream<T> returning dao methods
+    String STREAM_FETCH_SIZE = "1000";
+
+    @Query("SELECT e FROM #{#entityName} e")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    Stream<T> streamAll();
 }
@@ -5,4 +5,12 @@ public class IdFactory {
     public static Long getNextId(){
         return sequenceGenerator.nextId();
     }
+    //reserves n ids at once, i.e. ahead of a saveAll(...)
+    public static long[] getNextIds(int n){
+        return sequenceGenerator.nextIds(n);
+    }
+    //the max n which can be passed to getNextIds(n)
+    public static long maxBatchSize(){
+        return sequenceGenerator.maxBatchSize();
+    }
 }
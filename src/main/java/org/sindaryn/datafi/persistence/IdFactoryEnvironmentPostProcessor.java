@@ -0,0 +1,23 @@
+package org.sindaryn.datafi.persistence;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * IdFactory resolves the 'datafi.node-id' and 'datafi.max-clock-skew-ms' system properties once, upon first use -
+ * which may well precede the application context. As such, these are copied from the spring Environment
+ * (i.e. application.properties) to system properties before any bean is created, unless already set.
+ */
+public class IdFactoryEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        copyToSystemProperties(environment, NodeIdProviders.NODE_ID_PROPERTY);
+        copyToSystemProperties(environment, SequenceGenerator.MAX_CLOCK_SKEW_PROPERTY);
+    }
+
+    private static void copyToSystemProperties(ConfigurableEnvironment environment, String propertyName) {
+        String value = environment.getProperty(propertyName);
+        if(value != null && System.getProperty(propertyName) == null) System.setProperty(propertyName, value);
+    }
+}
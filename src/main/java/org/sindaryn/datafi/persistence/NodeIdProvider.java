@@ -0,0 +1,13 @@
+package org.sindaryn.datafi.persistence;
+
+import java.util.OptionalInt;
+
+/**
+ * A source for the node id of a SequenceGenerator.
+ * See NodeIdProviders for the built in sources.
+ */
+@FunctionalInterface
+public interface NodeIdProvider {
+    //empty if this source has no node id to offer
+    OptionalInt getNodeId();
+}
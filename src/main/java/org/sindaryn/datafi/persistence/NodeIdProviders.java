@@ -0,0 +1,80 @@
+package org.sindaryn.datafi.persistence;
+
+import java.net.NetworkInterface;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+import java.util.OptionalInt;
+
+public class NodeIdProviders {
+
+    public static final String NODE_ID_PROPERTY = "datafi.node-id";
+    public static final String NODE_ID_ENVIRONMENT_VARIABLE = "DATAFI_NODE_ID";
+
+    private static final int maxNodeId = 1023;
+
+    /**
+     * The "datafi.node-id" system property, then the "DATAFI_NODE_ID"
+     * environment variable, then a hash of the network interfaces'
+     * MAC addresses, and finally a random node id.
+     */
+    public static NodeIdProvider defaultProvider() {
+        return firstOf(
+                systemProperty(NODE_ID_PROPERTY),
+                environmentVariable(NODE_ID_ENVIRONMENT_VARIABLE),
+                macAddressHash(),
+                random());
+    }
+
+    public static NodeIdProvider firstOf(NodeIdProvider... providers) {
+        return () -> {
+            for (NodeIdProvider provider : providers) {
+                OptionalInt nodeId = provider.getNodeId();
+                if(nodeId.isPresent()) return nodeId;
+            }
+            return OptionalInt.empty();
+        };
+    }
+
+    public static NodeIdProvider systemProperty(String propertyName) {
+        return () -> parse(System.getProperty(propertyName), "system property " + propertyName);
+    }
+
+    public static NodeIdProvider environmentVariable(String variableName) {
+        return () -> parse(System.getenv(variableName), "environment variable " + variableName);
+    }
+
+    public static NodeIdProvider macAddressHash() {
+        return () -> {
+            try {
+                StringBuilder sb = new StringBuilder();
+                Enumeration<NetworkInterface> networkInterfaces = NetworkInterface.getNetworkInterfaces();
+                while (networkInterfaces.hasMoreElements()) {
+                    NetworkInterface networkInterface = networkInterfaces.nextElement();
+                    byte[] mac = networkInterface.getHardwareAddress();
+                    if (mac != null) {
+                        for(int i = 0; i < mac.length; i++) {
+                            sb.append(String.format("%02X", mac[i]));
+                        }
+                    }
+                }
+                if(sb.length() == 0) return OptionalInt.empty();
+                return OptionalInt.of(sb.toString().hashCode() & maxNodeId);
+            } catch (Exception ex) {
+                return OptionalInt.empty();
+            }
+        };
+    }
+
+    public static NodeIdProvider random() {
+        return () -> OptionalInt.of(new SecureRandom().nextInt() & maxNodeId);
+    }
+
+    private static OptionalInt parse(String value, String source) {
+        if(value == null || value.trim().isEmpty()) return OptionalInt.empty();
+        try {
+            return OptionalInt.of(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid node id '" + value + "' in " + source, e);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package org.sindaryn.datafi.persistence;
 
-import java.net.NetworkInterface;
-import java.security.SecureRandom;
-import java.time.Instant;
-import java.util.Enumeration;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock free, time ordered 64 bit ("snowflake") id generator:
+ * 42 bits of milliseconds since the custom epoch, 10 bits of node id and a 12 bit sequence.
+ * The timestamp and sequence of the last issued id share a single state word, such that
+ * issuing an id - or reserving a batch of them - is a single compare-and-set.
+ * When the sequence of the current millisecond runs out, or the system clock moves backwards,
+ * ids are borrowed from the following milliseconds, up to maxClockSkewMillis ahead of the clock.
+ */
 public class SequenceGenerator {
     private static final int TOTAL_BITS = 64;
     private static final int EPOCH_BITS = 42;
@@ -17,86 +25,109 @@ public class SequenceGenerator {
     // Custom Epoch (January 1, 2015 Midnight UTC = 2015-01-01T00:00:00Z)
     private static final long CUSTOM_EPOCH = 1420070400000L;
 
-    private final int nodeId;
+    public static final String MAX_CLOCK_SKEW_PROPERTY = "datafi.max-clock-skew-ms";
+    public static final long DEFAULT_MAX_CLOCK_SKEW_MILLIS = 1000L;
+
+    private final long nodeIdBits;
+    private final long maxClockSkewMillis;
+    // milliseconds since the unix epoch
+    private final LongSupplier clock;
 
-    private long lastTimestamp = -1L;
-    private long sequence = 0L;
+    // (timestamp << SEQUENCE_BITS) | sequence, of the last issued id
+    private final AtomicLong state = new AtomicLong();
 
     // Create SequenceGenerator with a nodeId
     public SequenceGenerator(int nodeId) {
+        this(nodeId, Long.getLong(MAX_CLOCK_SKEW_PROPERTY, DEFAULT_MAX_CLOCK_SKEW_MILLIS));
+    }
+
+    public SequenceGenerator(int nodeId, long maxClockSkewMillis) {
+        this(nodeId, maxClockSkewMillis, System::currentTimeMillis);
+    }
+
+    // with a clock of the caller's choosing, i.e. one which moves backwards
+    SequenceGenerator(int nodeId, long maxClockSkewMillis, LongSupplier clock) {
         if(nodeId < 0 || nodeId > maxNodeId) {
             throw new IllegalArgumentException(String.format("NodeId must be between %d and %d", 0, maxNodeId));
         }
-        this.nodeId = nodeId;
+        if(maxClockSkewMillis < 1) {
+            throw new IllegalArgumentException("maxClockSkewMillis must be positive");
+        }
+        this.nodeIdBits = ((long) nodeId) << (TOTAL_BITS - EPOCH_BITS - NODE_ID_BITS);
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        this.clock = clock;
     }
 
-    // Let SequenceGenerator generate a nodeId
-    public SequenceGenerator() {
-        this.nodeId = createNodeId();
+    // Resolve the nodeId from the given source(s)
+    public SequenceGenerator(NodeIdProvider nodeIdProvider) {
+        this(nodeIdProvider.getNodeId()
+                .orElseThrow(() -> new IllegalStateException("No node id available from " + nodeIdProvider)));
     }
 
+    // Resolve the nodeId from the default sources - see NodeIdProviders.defaultProvider()
+    public SequenceGenerator() {
+        this(NodeIdProviders.defaultProvider());
+    }
 
     public long nextId() {
-        long currentTimestamp = timestamp();
-
-        synchronized (this) {
-            if(currentTimestamp < lastTimestamp) {
-                throw new IllegalStateException("Invalid System Clock!");
-            }
-
-            if (currentTimestamp == lastTimestamp) {
-                sequence = (sequence + 1) & maxSequence;
-                if(sequence == 0) {
-                    // Sequence Exhausted, wait till next millisecond.
-                    currentTimestamp = waitNextMillis(currentTimestamp);
-                }
-            } else {
-                // reset sequence to start with zero for the next millisecond
-                sequence = 0;
-            }
-
-            lastTimestamp = currentTimestamp;
-        }
-
-        long id = currentTimestamp << (TOTAL_BITS - EPOCH_BITS);
-        id |= (nodeId << (TOTAL_BITS - EPOCH_BITS - NODE_ID_BITS));
-        id |= sequence;
-        return id;
+        return toId(reserve(1));
     }
 
-
-    // Get current timestamp in milliseconds, adjust for the custom epoch.
-    private static long timestamp() {
-        return Instant.now().toEpochMilli() - CUSTOM_EPOCH;
+    /**
+     * Reserve n consecutive ids with a single compare-and-set.
+     * @param n - the number of ids to reserve
+     * @return the reserved ids, in ascending order
+     */
+    public long[] nextIds(int n) {
+        if(n < 1 || n > maxBatchSize()) {
+            throw new IllegalArgumentException(String.format("Batch size must be between %d and %d", 1, maxBatchSize()));
+        }
+        long first = reserve(n);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            // the sequence overflows into the timestamp, which is exactly what's wanted
+            ids[i] = toId(first + i);
+        }
+        return ids;
     }
 
-    // Block and wait till next millisecond
-    private long waitNextMillis(long currentTimestamp) {
-        while (currentTimestamp == lastTimestamp) {
-            currentTimestamp = timestamp();
-        }
-        return currentTimestamp;
+    public long maxBatchSize() {
+        return maxClockSkewMillis * (maxSequence + 1);
     }
 
-    private int createNodeId() {
-        int nodeId;
-        try {
-            StringBuilder sb = new StringBuilder();
-            Enumeration<NetworkInterface> networkInterfaces = NetworkInterface.getNetworkInterfaces();
-            while (networkInterfaces.hasMoreElements()) {
-                NetworkInterface networkInterface = networkInterfaces.nextElement();
-                byte[] mac = networkInterface.getHardwareAddress();
-                if (mac != null) {
-                    for(int i = 0; i < mac.length; i++) {
-                        sb.append(String.format("%02X", mac[i]));
-                    }
+    // returns the state word of the first of the n reserved ids
+    private long reserve(int n) {
+        while (true) {
+            long now = timestamp();
+            long current = state.get();
+            long first = Math.max(current + 1, now << SEQUENCE_BITS);
+            long last = first + n - 1;
+            long lead = (last >>> SEQUENCE_BITS) - now;
+            if(lead > maxClockSkewMillis) {
+                long excess = lead - maxClockSkewMillis;
+                if(excess > maxClockSkewMillis) {
+                    throw new IllegalStateException(String.format(
+                            "System clock is %dms behind the last issued id, which exceeds the tolerated skew of %dms",
+                            lead, maxClockSkewMillis));
                 }
+                // sequence exhausted (or small clock regression) - let the clock catch up
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(excess));
+                continue;
+            }
+            if(state.compareAndSet(current, last)) {
+                return first;
             }
-            nodeId = sb.toString().hashCode();
-        } catch (Exception ex) {
-            nodeId = (new SecureRandom().nextInt());
         }
-        nodeId = nodeId & maxNodeId;
-        return nodeId;
     }
-}
\ No newline at end of file
+
+    private long toId(long stateWord) {
+        long timestamp = stateWord >>> SEQUENCE_BITS;
+        long sequence = stateWord & maxSequence;
+        return (timestamp << (TOTAL_BITS - EPOCH_BITS)) | nodeIdBits | sequence;
+    }
+
+    // Get current timestamp in milliseconds, adjust for the custom epoch.
+    private long timestamp() {
+        return clock.getAsLong() - CUSTOM_EPOCH;
+    }
+}
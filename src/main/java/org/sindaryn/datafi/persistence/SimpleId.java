@@ -1,17 +1,27 @@
 package org.sindaryn.datafi.persistence;
 
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Embeddable;
 import java.io.Serializable;
 
+/**
+ * The id is assigned when the owning entity is first persisted
+ * (see StandardPersistableEntity.initId()), rather than upon
+ * instantiation - such that hydrating existing records doesn't
+ * consume a freshly generated id per row.
+ */
 @lombok.Getter @lombok.Setter
 @Embeddable
 @NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
 public class SimpleId implements Serializable{
-    private Long id = IdFactory.getNextId();
+    private Long id;
     @Override
     public String toString(){
-        return this.id.toString();
+        return String.valueOf(this.id);
     }
 }
@@ -6,6 +6,14 @@ import javax.persistence.MappedSuperclass;
 public abstract class StandardPersistableEntity extends BasePersistableEntity<SimpleId> {
     @Override
     public void initId() {
-        this.id = new SimpleId();
+        //respect an id which has been explicitly assigned before the first persist
+        if(this.id == null || this.id.getId() == null)
+            this.id = new SimpleId(IdFactory.getNextId());
+    }
+
+    //as per initId(), with an id reserved ahead of time via IdFactory.getNextIds(n)
+    public void initId(long reservedId) {
+        if(this.id == null || this.id.getId() == null)
+            this.id = new SimpleId(reservedId);
     }
 }
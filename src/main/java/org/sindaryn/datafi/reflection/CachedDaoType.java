@@ -0,0 +1,168 @@
+package org.sindaryn.datafi.reflection;
+
+import org.springframework.data.domain.Pageable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+
+/**
+ * Resolver dispatch table for a given autogenerated dao interface.
+ * Method handles are resolved and adapted once, and then cached under the
+ * very attribute / resolver name the caller passes in, such that
+ * repeated dispatch is a single map lookup with no allocation.
+ */
+public class CachedDaoType {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    @lombok.Getter
+    private final Class<?> daoType;
+    //all single-signature methods declared by the dao, keyed by method name
+    private final Map<String, Method> declaredMethods;
+    //keyed by the name passed in by the caller, i.e. "name" for findByName
+    private final Map<String, MethodHandle> findByResolvers = new ConcurrentHashMap<>();
+    private final Map<String, MethodHandle> findAllByResolvers = new ConcurrentHashMap<>();
+    private final Map<String, MethodHandle> streamByResolvers = new ConcurrentHashMap<>();
+    private final Map<String, MethodHandle> streamAllByResolvers = new ConcurrentHashMap<>();
+    private final Map<String, MethodHandle> customResolvers = new ConcurrentHashMap<>();
+    private volatile MethodHandle fuzzySearch;
+
+    public CachedDaoType(Class<?> daoType) {
+        this.daoType = daoType;
+        this.declaredMethods = new HashMap<>();
+        Set<String> overloadedNames = new HashSet<>();
+        for (Method method : daoType.getMethods()) {
+            if(Modifier.isStatic(method.getModifiers()) || method.isDefault()) continue;
+            if(declaredMethods.put(method.getName(), method) != null)
+                overloadedNames.add(method.getName());
+        }
+        //overloads cannot be told apart by name alone
+        overloadedNames.forEach(declaredMethods::remove);
+    }
+
+    public Object invokeFindBy(Object dao, String attributeName, Object attributeValue) {
+        MethodHandle handle = findByResolvers.get(attributeName);
+        if(handle == null)
+            handle = findByResolvers.computeIfAbsent(attributeName,
+                    name -> unaryHandle("findBy" + toPascalCase(name)));
+        try {
+            return (Object) handle.invokeExact(dao, attributeValue);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    public Object invokeFindAllBy(Object dao, String attributeName, List<?> attributeValues) {
+        MethodHandle handle = findAllByResolvers.get(attributeName);
+        if(handle == null)
+            handle = findAllByResolvers.computeIfAbsent(attributeName,
+                    name -> unaryHandle("findAllBy" + toPascalCase(name) + "In"));
+        try {
+            return (Object) handle.invokeExact(dao, (Object) attributeValues);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    public Object invokeStreamBy(Object dao, String attributeName, Object attributeValue) {
+        MethodHandle handle = streamByResolvers.get(attributeName);
+        if(handle == null)
+            handle = streamByResolvers.computeIfAbsent(attributeName,
+                    name -> unaryHandle("streamBy" + toPascalCase(name)));
+        try {
+            return (Object) handle.invokeExact(dao, attributeValue);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    public Object invokeStreamAllBy(Object dao, String attributeName, List<?> attributeValues) {
+        MethodHandle handle = streamAllByResolvers.get(attributeName);
+        if(handle == null)
+            handle = streamAllByResolvers.computeIfAbsent(attributeName,
+                    name -> unaryHandle("streamAllBy" + toPascalCase(name) + "In"));
+        try {
+            return (Object) handle.invokeExact(dao, (Object) attributeValues);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    public Object invokeResolver(Object dao, String resolverName, Object[] args) {
+        MethodHandle handle = customResolvers.get(resolverName);
+        if(handle == null)
+            handle = customResolvers.computeIfAbsent(resolverName, this::spreadingHandle);
+        try {
+            return (Object) handle.invokeExact(dao, args);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    public int parameterCountOf(String methodName) {
+        return methodNamed(methodName).getParameterCount();
+    }
+
+    public Object invokeFuzzySearch(Object dao, String searchTerm, Pageable paginator) {
+        MethodHandle handle = fuzzySearch;
+        if(handle == null)
+            fuzzySearch = handle = adaptedHandle(methodNamed("fuzzySearch"),
+                    methodType(Object.class, Object.class, String.class, Pageable.class));
+        try {
+            return (Object) handle.invokeExact(dao, searchTerm, paginator);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    private MethodHandle unaryHandle(String methodName) {
+        Method method = methodNamed(methodName);
+        if(method.getParameterCount() != 1)
+            throw new IllegalArgumentException(methodName + " of " + daoType.getSimpleName() + " is not a single argument resolver");
+        return adaptedHandle(method, methodType(Object.class, Object.class, Object.class));
+    }
+
+    private MethodHandle spreadingHandle(String methodName) {
+        Method method = methodNamed(methodName);
+        try {
+            return lookup.unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(methodType(Object.class, Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private MethodHandle adaptedHandle(Method method, MethodType type) {
+        try {
+            return lookup.unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Method methodNamed(String methodName) {
+        Method method = declaredMethods.get(methodName);
+        if(method == null)
+            throw new IllegalArgumentException("No resolver named " + methodName + " in " + daoType.getSimpleName());
+        return method;
+    }
+
+    private static RuntimeException rethrow(Throwable throwable) {
+        if(throwable instanceof RuntimeException) return (RuntimeException) throwable;
+        if(throwable instanceof Error) throw (Error) throwable;
+        return new RuntimeException(throwable);
+    }
+}
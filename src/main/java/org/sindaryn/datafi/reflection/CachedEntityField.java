@@ -17,4 +17,6 @@ public class CachedEntityField {
     private boolean isNonApiUpdatable;
     @NonNull
     private boolean isNonNullable;
+    //position within CachedEntityType's indexed accessor arrays
+    private int index;
 }
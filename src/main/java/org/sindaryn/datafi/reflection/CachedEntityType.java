@@ -1,5 +1,8 @@
 package org.sindaryn.datafi.reflection;
 
+import org.sindaryn.datafi.annotations.FuzzySearchBy;
+import org.sindaryn.datafi.annotations.FuzzySearchByFields;
+import org.sindaryn.datafi.annotations.FuzzySearchStrategy;
 import org.sindaryn.datafi.annotations.NonApiUpdatable;
 import org.sindaryn.datafi.annotations.NonApiUpdatables;
 import org.sindaryn.datafi.annotations.NonNullable;
@@ -8,9 +11,13 @@ import javax.persistence.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
-import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+import static org.sindaryn.datafi.reflection.LambdaAccessorFactory.getterOf;
+import static org.sindaryn.datafi.reflection.LambdaAccessorFactory.setterOf;
 
 @lombok.Getter
 public class CachedEntityType {
@@ -19,9 +26,26 @@ public class CachedEntityType {
     private Object defaultInstance;
     private Map<String, CachedEntityField> fields;
     private List<Field> cascadeUpdatableFields;
+    private CachedEntityField[] cascadeUpdatableEntityFields;
     private Map<String, Method> publicMethods;
+    //the compile time generated '<entity name>Accessor', if there is one
+    private EntityAccessor<Object> accessor;
+    private Set<String> accessorReadableFields;
+    private Set<String> accessorWritableFields;
+    //indexed by CachedEntityField.index, built once per type
+    private CachedEntityField[] indexedFields;
+    private Function<Object, Object>[] fieldGetters;
+    private BiConsumer<Object, Object>[] fieldSetters;
+    //@FuzzySearchBy(...) and @FuzzySearchByFields(...) fields, and the strategy by which they're searched
+    private List<String> fuzzySearchFields;
+    private FuzzySearchStrategy fuzzySearchStrategy;
 
     public CachedEntityType(Class<?> clazz, Collection<Field> fields, Collection<Method> publicMethods) {
+        this(clazz, fields, publicMethods, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CachedEntityType(Class<?> clazz, Collection<Field> fields, Collection<Method> publicMethods, EntityAccessor<?> accessor) {
         this.clazz = clazz;
         this.fields = new HashMap<>();
         fields.forEach(field -> {
@@ -34,28 +58,76 @@ public class CachedEntityType {
         });
         this.publicMethods = new HashMap<>();
         publicMethods.forEach(publicMethod -> this.publicMethods.put(publicMethod.getName(), publicMethod));
+        this.accessor = (EntityAccessor<Object>) accessor;
+        this.accessorReadableFields = accessor != null ? new HashSet<>(Arrays.asList(accessor.readableFields())) : Collections.emptySet();
+        this.accessorWritableFields = accessor != null ? new HashSet<>(Arrays.asList(accessor.writableFields())) : Collections.emptySet();
+        setIndexedAccessors();
         this.defaultInstance = genDefaultInstance(clazz);
         setCascadeUpdatableFields();
+        setFuzzySearchFields(fields);
+    }
+
+    public Object getId(Object instance){
+        if(accessor != null) return accessor.getId(instance);
+        return invokeGetter(instance, "id");
     }
 
     public Object invokeGetter(Object instance, String fieldName){
-        try {
-            return publicMethods.get("get" + toPascalCase(fieldName)).invoke(instance);
-        } catch (Exception e){
-            throw new RuntimeException(e);
-        }
+        if(accessorReadableFields.contains(fieldName))
+            return accessor.get(instance, fieldName);
+        return getFieldValue(instance, indexOf(fieldName));
     }
 
     public void invokeSetter(Object instance, String fieldName, Object value){
-        try {
-            publicMethods.get("set" + toPascalCase(fieldName)).invoke(instance, value);
-        } catch (Exception e){
-            throw new RuntimeException(e);
+        if(accessorWritableFields.contains(fieldName)){
+            accessor.set(instance, fieldName, value);
+            return;
+        }
+        setFieldValue(instance, indexOf(fieldName), value);
+    }
+
+    public Object getFieldValue(Object instance, int fieldIndex){
+        return fieldGetters[fieldIndex].apply(instance);
+    }
+
+    public void setFieldValue(Object instance, int fieldIndex, Object value){
+        fieldSetters[fieldIndex].accept(instance, value);
+    }
+
+    //a shallow copy - a new instance sharing the field values of the given one
+    public Object copyOf(Object instance){
+        Object copy = genDefaultInstance(clazz);
+        for (int i = 0; i < indexedFields.length; i++) {
+            if(fieldGetters[i] == null) continue;
+            setFieldValue(copy, i, getFieldValue(instance, i));
+        }
+        return copy;
+    }
+
+    private int indexOf(String fieldName){
+        CachedEntityField field = fields.get(fieldName);
+        if(field == null)
+            throw new IllegalArgumentException("No such field " + fieldName + " in " + clazz.getSimpleName());
+        return field.getIndex();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setIndexedAccessors(){
+        this.indexedFields = fields.values().toArray(new CachedEntityField[0]);
+        this.fieldGetters = new Function[indexedFields.length];
+        this.fieldSetters = new BiConsumer[indexedFields.length];
+        for (int i = 0; i < indexedFields.length; i++) {
+            CachedEntityField field = indexedFields[i];
+            field.setIndex(i);
+            if(Modifier.isStatic(field.getField().getModifiers())) continue;
+            fieldGetters[i] = getterOf(field.getField(), publicMethods);
+            fieldSetters[i] = setterOf(field.getField(), publicMethods);
         }
     }
 
     private boolean isNonApiUpdatable(Field field) {
-        return  field.isAnnotationPresent(NonApiUpdatable.class) ||
+        return  Modifier.isStatic(field.getModifiers()) ||
+                field.isAnnotationPresent(NonApiUpdatable.class) ||
                 isInNonCascadeUpdatables(field) ||
                 field.isAnnotationPresent(Id.class) ||
                 field.isAnnotationPresent(EmbeddedId.class) ||
@@ -83,6 +155,18 @@ public class CachedEntityType {
                 (field.isAnnotationPresent(ManyToOne.class) && !field.getAnnotation(ManyToOne.class).optional());
     }
 
+    private void setFuzzySearchFields(Collection<Field> fields) {
+        FuzzySearchByFields classLevelAnnotation = clazz.getAnnotation(FuzzySearchByFields.class);
+        List<String> classLevelFieldNames = classLevelAnnotation != null ?
+                Arrays.asList(classLevelAnnotation.fields()) : Collections.emptyList();
+        this.fuzzySearchFields = new ArrayList<>();
+        fields.forEach(field -> {
+            if(field.isAnnotationPresent(FuzzySearchBy.class) || classLevelFieldNames.contains(field.getName()))
+                fuzzySearchFields.add(field.getName());
+        });
+        this.fuzzySearchStrategy = classLevelAnnotation != null ? classLevelAnnotation.strategy() : FuzzySearchStrategy.LIKE;
+    }
+
     public static Object genDefaultInstance(Class<?> clazz){
         Constructor[] cons = clazz.getDeclaredConstructors();
         try {
@@ -100,9 +184,13 @@ public class CachedEntityType {
 
     private void setCascadeUpdatableFields(){
         this.cascadeUpdatableFields = new ArrayList<>();
-        fields.values().forEach(_field -> {
-            if(!_field.isNonApiUpdatable())
+        List<CachedEntityField> cascadeUpdatable = new ArrayList<>();
+        for (CachedEntityField _field : indexedFields) {
+            if(!_field.isNonApiUpdatable()){
                 cascadeUpdatableFields.add(_field.getField());
-        });
+                cascadeUpdatable.add(_field);
+            }
+        }
+        this.cascadeUpdatableEntityFields = cascadeUpdatable.toArray(new CachedEntityField[0]);
     }
 }
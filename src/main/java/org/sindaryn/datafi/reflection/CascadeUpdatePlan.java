@@ -0,0 +1,105 @@
+package org.sindaryn.datafi.reflection;
+
+import lombok.Getter;
+import org.hibernate.Hibernate;
+
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The precompiled cascadedUpdate(...) of a given entity type - a flat array of steps,
+ * each of which either copies a non null field value from the source to the target,
+ * or recurses into a @OneToOne / @ManyToOne field by way of the plan of the field's type.
+ * Built once per type by ReflectionCache upon first use, and not modified thereafter.
+ */
+public class CascadeUpdatePlan {
+    @Getter
+    private final CachedEntityType entityType;
+    private final Constructor<?> defaultConstructor;
+    //one entry per cascade updatable field - its accessor index, and its nested plan if it's a foreign key
+    private int[] fieldIndexes;
+    private CascadeUpdatePlan[] nestedPlans;
+
+    CascadeUpdatePlan(CachedEntityType entityType) {
+        this.entityType = entityType;
+        this.defaultConstructor = defaultConstructorOf(entityType.getClazz());
+    }
+
+    //called once this plan is registered, such that cyclic references between entity types can be resolved
+    void link(Function<Class<?>, CascadeUpdatePlan> plans) {
+        CachedEntityField[] fields = entityType.getCascadeUpdatableEntityFields();
+        int[] indexes = new int[fields.length];
+        CascadeUpdatePlan[] nested = new CascadeUpdatePlan[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            indexes[i] = fields[i].getIndex();
+            //foreign keys to types which aren't cached entities are copied as is
+            if(isForeignKey(fields[i].getField()))
+                nested[i] = plans.apply(fields[i].getField().getType());
+        }
+        this.fieldIndexes = indexes;
+        this.nestedPlans = nested;
+    }
+
+    /**
+     * @param target - the entity to update
+     * @param source - the entity whose non null field values are to be copied
+     * @param onNestedChange - called with each nested entity which changed, after its own nested entities.
+     *                       Returns the instance the target should reference from then on, i.e. a merged copy
+     * @return whether any of the target's own fields changed
+     */
+    public boolean apply(Object target, Object source, BiFunction<CascadeUpdatePlan, Object, Object> onNestedChange) {
+        boolean changed = false;
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            final int index = fieldIndexes[i];
+            Object sourceValue = entityType.getFieldValue(source, index);
+            //if field value is null, there's nothing to update to
+            if(sourceValue == null) continue;
+            Object targetValue = entityType.getFieldValue(target, index);
+            CascadeUpdatePlan nestedPlan = nestedPlans[i];
+            if(nestedPlan == null){
+                //comparing an uninitialized lazy collection would load it - and fail for detached targets
+                if(Hibernate.isInitialized(targetValue) && Objects.equals(targetValue, sourceValue)) continue;
+                entityType.setFieldValue(target, index, sourceValue);
+                changed = true;
+                continue;
+            }
+            //a newly referenced entity changes the foreign key itself
+            boolean isNew = targetValue == null;
+            if(isNew) targetValue = nestedPlan.newInstance();
+            if(!nestedPlan.apply(targetValue, sourceValue, onNestedChange) && !isNew) continue;
+            Object persisted = onNestedChange.apply(nestedPlan, targetValue);
+            if(isNew || persisted != targetValue)
+                entityType.setFieldValue(target, index, persisted);
+            changed |= isNew;
+        }
+        return changed;
+    }
+
+    //a fresh instance per call, rather than a shared default instance
+    public Object newInstance() {
+        try {
+            return defaultConstructor.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isForeignKey(Field field) {
+        return field.isAnnotationPresent(OneToOne.class) || field.isAnnotationPresent(ManyToOne.class);
+    }
+
+    private static Constructor<?> defaultConstructorOf(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("No default constructor found for " + clazz.getSimpleName());
+        }
+    }
+}
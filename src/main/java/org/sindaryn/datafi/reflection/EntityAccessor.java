@@ -0,0 +1,16 @@
+package org.sindaryn.datafi.reflection;
+
+/**
+ * Direct (non reflective) read and write access to the properties of a given entity.
+ * An implementation - '<entity name>Accessor' - is generated at compile time
+ * for each entity, and is preferred by CachedEntityType over reflection.
+ * @param <T>
+ */
+public interface EntityAccessor<T> {
+    Object getId(T instance);
+    Object get(T instance, String fieldName);
+    void set(T instance, String fieldName, Object value);
+    //the names of the fields for which get(...) and / or set(...) are supported
+    String[] readableFields();
+    String[] writableFields();
+}
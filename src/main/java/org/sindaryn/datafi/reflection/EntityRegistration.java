@@ -0,0 +1,15 @@
+package org.sindaryn.datafi.reflection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EntityRegistration {
+    private final Class<?> entityType;
+    private final Class<?> idType;
+    //the generated '<entity name>Dao'
+    private final Class<?> daoType;
+    //the generated '<entity name>Accessor'
+    private final Class<?> accessorType;
+}
@@ -0,0 +1,12 @@
+package org.sindaryn.datafi.reflection;
+
+import java.util.List;
+
+/**
+ * The entities seen by the annotation processor, along with the types generated for each of them.
+ * Implemented by the 'DatafiEntityRegistry' generated within the base package of each compiled module,
+ * such that ReflectionCache needn't scan the classpath for entities upon startup.
+ */
+public interface EntityRegistry {
+    List<EntityRegistration> entities();
+}
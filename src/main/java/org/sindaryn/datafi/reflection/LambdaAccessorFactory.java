@@ -0,0 +1,117 @@
+package org.sindaryn.datafi.reflection;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.sindaryn.datafi.StaticUtils.toPascalCase;
+
+/**
+ * Builds JIT inlinable property accessors for entities which
+ * have no compile time generated '<entity name>Accessor'.
+ * Public getters and setters are bound via LambdaMetafactory; where there
+ * are none (or they cannot be bound), a field MethodHandle is used instead.
+ */
+public class LambdaAccessorFactory {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    @SuppressWarnings("unchecked")
+    public static Function<Object, Object> getterOf(Field field, Map<String, Method> publicMethods) {
+        Method getter = publicMethods.get("get" + toPascalCase(field.getName()));
+        if(getter != null && getter.getParameterCount() == 0 &&
+                getter.getReturnType().equals(field.getType()) && isBindable(getter)) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        "apply",
+                        methodType(Function.class),
+                        methodType(Object.class, Object.class),
+                        lookup.unreflect(getter),
+                        methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable ignored) {
+                //fall through to field access
+            }
+        }
+        try {
+            field.setAccessible(true);
+            final MethodHandle handle = lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class));
+            return instance -> {
+                try {
+                    return (Object) handle.invokeExact(instance);
+                } catch (Throwable throwable) {
+                    throw new RuntimeException(throwable);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BiConsumer<Object, Object> setterOf(Field field, Map<String, Method> publicMethods) {
+        Method setter = publicMethods.get("set" + toPascalCase(field.getName()));
+        if(setter != null && setter.getParameterCount() == 1 &&
+                setter.getParameterTypes()[0].equals(field.getType()) && isBindable(setter)) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        "accept",
+                        methodType(BiConsumer.class),
+                        methodType(void.class, Object.class, Object.class),
+                        lookup.unreflect(setter),
+                        methodType(void.class, setter.getDeclaringClass(), wrap(field.getType())));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable ignored) {
+                //fall through to field access
+            }
+        }
+        try {
+            field.setAccessible(true);
+            final MethodHandle handle = lookup.unreflectSetter(field).asType(methodType(void.class, Object.class, Object.class));
+            return (instance, value) -> {
+                try {
+                    handle.invokeExact(instance, value);
+                } catch (Throwable throwable) {
+                    throw new RuntimeException(throwable);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            //i.e. final fields
+            return (instance, value) -> {
+                try {
+                    field.set(instance, value);
+                } catch (IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            };
+        }
+    }
+
+    /**
+     * The generated lambda class is defined within this library's class loader,
+     * so the declaring class of the accessor method must be both public and
+     * visible from it (this is not the case with e.g. devtools' restart class loader).
+     */
+    private static boolean isBindable(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if(!Modifier.isPublic(declaringClass.getModifiers()) || Modifier.isStatic(method.getModifiers()))
+            return false;
+        try {
+            return Class.forName(declaringClass.getName(), false, LambdaAccessorFactory.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if(!type.isPrimitive()) return type;
+        return methodType(type).wrap().returnType();
+    }
+}
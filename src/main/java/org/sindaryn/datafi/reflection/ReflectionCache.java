@@ -15,47 +15,116 @@ import javax.persistence.Table;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ReflectionCache {
 
-    private Reflections reflections;
+    /**
+     * Keyed by entity simple name. Each CachedEntityType is only built upon first
+     * being looked up, such that startup time doesn't grow with the number of entities.
+     */
     @Getter
     private Map<String, CachedEntityType> entitiesCache;
-    @Getter
-    private Map<Map.Entry<String, Class<?>[]>, Method> resolversCache;
+    //cascadedUpdate(...) plans, keyed by entity type - built upon first use, guarded by this
+    private final Map<Class<?>, CascadeUpdatePlan> cascadeUpdatePlans = new HashMap<>();
+    //resolver dispatch tables, keyed by dao interface
+    private final Map<Class<?>, CachedDaoType> daosCache = new ConcurrentHashMap<>();
 
     @Autowired
     private BasePackageResolver basePackageResolver;
+    //generated at compile time - one per compiled module
+    @Autowired(required = false)
+    private List<EntityRegistry> entityRegistries;
     @PostConstruct
     private void init() {
-        reflections = new Reflections(basePackageResolver.getBasePackage());
-        entitiesCache = new HashMap<>();
-        resolversCache = new HashMap<>();
-        Set<Class<?>> dataModelEntityTypes = getAnnotatedEntities();
-        for (Class<?> currentType : dataModelEntityTypes) {
-            if (isPersistableEntity(currentType))
-                entitiesCache.put(
-                        currentType.getSimpleName(),
-                        new CachedEntityType(
-                                currentType,
-                                getClassFields(currentType),
-                                getPublicMethodsOf(currentType)));
+        Map<String, EntityRegistration> registrations = new HashMap<>();
+        if(entityRegistries != null && !entityRegistries.isEmpty()){
+            entityRegistries.forEach(registry -> registry.entities().forEach(registration ->
+                    registrations.put(registration.getEntityType().getSimpleName(), registration)));
+        } else {
+            //modules compiled without the annotation processor
+            for (Class<?> currentType : getAnnotatedEntities())
+                if (isPersistableEntity(currentType))
+                    registrations.put(currentType.getSimpleName(), new EntityRegistration(currentType, null, null, null));
+        }
+        entitiesCache = new LazyEntityTypes(registrations);
+    }
+
+    public synchronized CascadeUpdatePlan getCascadeUpdatePlan(Class<?> entityType) {
+        CascadeUpdatePlan plan = cascadeUpdatePlanOf(entityType);
+        if(plan == null)
+            throw new IllegalArgumentException("No cascade update plan for " + entityType.getSimpleName());
+        return plan;
+    }
+
+    //null if the given type isn't an entity
+    private CascadeUpdatePlan cascadeUpdatePlanOf(Class<?> type) {
+        CascadeUpdatePlan plan = cascadeUpdatePlans.get(type);
+        if(plan != null) return plan;
+        CachedEntityType entityType = entitiesCache.get(type.getSimpleName());
+        if(entityType == null || entityType.getClazz() != type) return null;
+        plan = new CascadeUpdatePlan(entityType);
+        //registered prior to linking, such that cyclic references between entity types resolve to it
+        cascadeUpdatePlans.put(type, plan);
+        plan.link(this::cascadeUpdatePlanOf);
+        return plan;
+    }
+
+    private static CachedEntityType entityTypeOf(EntityRegistration registration) {
+        Class<?> type = registration.getEntityType();
+        return new CachedEntityType(
+                type,
+                getClassFields(type),
+                getPublicMethodsOf(type),
+                registration.getAccessorType() != null ?
+                        instantiateAccessor(registration.getAccessorType()) :
+                        loadGeneratedAccessor(type));
+    }
+
+    /**
+     * Load the '<entity name>Accessor' generated at compile time for the given entity.
+     * Returns null if there isn't one (i.e. the entity was not seen by the annotation processor),
+     * in which case property access falls back to reflection.
+     */
+    private static EntityAccessor<?> loadGeneratedAccessor(Class<?> entityType) {
+        String accessorName = entityType.getPackage().getName() + "." + entityType.getSimpleName() + "Accessor";
+        try {
+            return instantiateAccessor(Class.forName(accessorName, true, entityType.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            return null;
         }
     }
 
+    private static EntityAccessor<?> instantiateAccessor(Class<?> accessorType) {
+        if(!EntityAccessor.class.isAssignableFrom(accessorType)) return null;
+        try {
+            return (EntityAccessor<?>) accessorType.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public CachedDaoType getDaoType(Class<?> daoInterface) {
+        CachedDaoType daoType = daosCache.get(daoInterface);
+        if(daoType == null)
+            daoType = daosCache.computeIfAbsent(daoInterface, CachedDaoType::new);
+        return daoType;
+    }
+
     private boolean isPersistableEntity(Class<?> currentType) {
         return currentType.isAnnotationPresent(Table.class) || currentType.isAnnotationPresent(Entity.class);
     }
 
     private Set<Class<?>> getAnnotatedEntities() {
+        Reflections reflections = new Reflections(basePackageResolver.getBasePackage());
         Set<Class<?>> entities = reflections.getTypesAnnotatedWith(Entity.class);
         entities.addAll(reflections.getTypesAnnotatedWith(Table.class));
         entities = Sets.newHashSet(entities);
         return entities;
     }
 
-    private Collection<Method> getPublicMethodsOf(@NonNull Class<?> startClass) {
+    private static Collection<Method> getPublicMethodsOf(@NonNull Class<?> startClass) {
         List<Method> currentClassMethods = Lists.newArrayList(startClass.getMethods());
         Class<?> parentClass = startClass.getSuperclass();
         if (parentClass != null) {
@@ -76,4 +145,43 @@ public class ReflectionCache {
         }
         return currentClassFields;
     }
+
+    /**
+     * A read only map of the registered entity types, each of which is built upon first being looked up.
+     * Iterating over it builds all of them.
+     */
+    private static class LazyEntityTypes extends AbstractMap<String, CachedEntityType> {
+        private final Map<String, EntityRegistration> registrations;
+        private final Map<String, CachedEntityType> entityTypes = new ConcurrentHashMap<>();
+
+        private LazyEntityTypes(Map<String, EntityRegistration> registrations) {
+            this.registrations = registrations;
+        }
+
+        @Override
+        public CachedEntityType get(Object simpleName) {
+            CachedEntityType result = entityTypes.get(simpleName);
+            if(result != null) return result;
+            EntityRegistration registration = registrations.get(simpleName);
+            if(registration == null) return null;
+            return entityTypes.computeIfAbsent((String) simpleName, name -> entityTypeOf(registration));
+        }
+
+        @Override
+        public boolean containsKey(Object simpleName) {
+            return registrations.containsKey(simpleName);
+        }
+
+        @Override
+        public int size() {
+            return registrations.size();
+        }
+
+        @Override
+        public Set<Entry<String, CachedEntityType>> entrySet() {
+            Map<String, CachedEntityType> result = new HashMap<>();
+            registrations.keySet().forEach(simpleName -> result.put(simpleName, get(simpleName)));
+            return Collections.unmodifiableMap(result).entrySet();
+        }
+    }
 }
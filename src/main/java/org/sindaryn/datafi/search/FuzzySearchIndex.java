@@ -0,0 +1,22 @@
+package org.sindaryn.datafi.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * An index backing fuzzySearchBy(...) for entities using FuzzySearchStrategy.LUCENE.
+ * Entries are keyed by entity type and id, and hold the entity's fuzzy search fields.
+ */
+public interface FuzzySearchIndex {
+    //add or replace the entry of the given entity
+    void index(Object entity);
+    void remove(Object entity);
+    void removeAll(Class<?> entityType);
+    /**
+     * @param entityType - the type of entities to search
+     * @param searchTerm - the search term
+     * @param paginator - the page to return. May only be sorted by fuzzy search fields.
+     * @return the ids of the matching entities, by descending relevance unless sorted otherwise
+     */
+    Page<Object> searchIds(Class<?> entityType, String searchTerm, Pageable paginator);
+}
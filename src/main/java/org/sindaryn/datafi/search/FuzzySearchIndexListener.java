@@ -0,0 +1,48 @@
+package org.sindaryn.datafi.search;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Keeps the FuzzySearchIndex in sync with entities using FuzzySearchStrategy.LUCENE.
+ * Register via @EntityListeners(FuzzySearchIndexListener.class) on the entity.
+ * Changes made within a transaction are applied to the index once the transaction commits.
+ */
+public class FuzzySearchIndexListener {
+    //jpa instantiates entity listeners itself, so the index is handed over statically
+    private static volatile FuzzySearchIndex fuzzySearchIndex;
+
+    static void setFuzzySearchIndex(FuzzySearchIndex index) {
+        fuzzySearchIndex = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        final FuzzySearchIndex index = fuzzySearchIndex;
+        if(index != null) afterCommit(() -> index.index(entity));
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        final FuzzySearchIndex index = fuzzySearchIndex;
+        if(index != null) afterCommit(() -> index.remove(entity));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
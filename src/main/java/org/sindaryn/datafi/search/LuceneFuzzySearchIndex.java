@@ -0,0 +1,267 @@
+package org.sindaryn.datafi.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.sindaryn.datafi.reflection.CachedEntityType;
+import org.sindaryn.datafi.reflection.ReflectionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lucene backed FuzzySearchIndex. Kept in memory unless 'datafi.fuzzy-search.lucene.directory'
+ * is set, in which case the index is stored within (and reopened from) the given directory -
+ * with pending changes committed every 'datafi.fuzzy-search.lucene.commit-interval-ms'.
+ * Every search term token must match at least one of the entity's fuzzy search fields,
+ * either as a prefix or within a small edit distance.
+ */
+@Slf4j
+@Component
+@ConditionalOnClass(name = "org.apache.lucene.index.IndexWriter")
+public class LuceneFuzzySearchIndex implements FuzzySearchIndex {
+    private static final String TYPE = "_type";
+    private static final String KEY = "_key";
+    private static final String ID = "_id";
+    private static final long COMMIT_FAILURE_LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Value("${datafi.fuzzy-search.lucene.directory:}")
+    private String directoryPath;
+    @Value("${datafi.fuzzy-search.lucene.commit-interval-ms:1000}")
+    private long commitIntervalMillis;
+    @Autowired
+    private ReflectionCache reflectionCache;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    //null if the index is kept in memory, in which case there's nothing to commit to
+    private ScheduledExecutorService committer;
+    //only ever accessed by the committer thread
+    private long lastCommitFailureLoggedAt;
+    private int unloggedCommitFailures;
+
+    @PostConstruct
+    private void init() throws IOException {
+        directory = directoryPath.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(directoryPath));
+        indexWriter = new IndexWriter(directory,
+                new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(indexWriter, null);
+        FuzzySearchIndexListener.setFuzzySearchIndex(this);
+        if(directoryPath.isEmpty() || commitIntervalMillis <= 0) return;
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datafi-lucene-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void close() throws IOException {
+        FuzzySearchIndexListener.setFuzzySearchIndex(null);
+        if(committer != null) committer.shutdown();
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Override
+    public void index(Object entity) {
+        CachedEntityType entityType = entityTypeOf(entity.getClass());
+        if(entityType == null || entityType.getFuzzySearchFields().isEmpty()) return;
+        Object id = entityType.getId(entity);
+        String key = keyOf(entity.getClass(), id);
+        Document document = new Document();
+        document.add(new StringField(TYPE, entity.getClass().getSimpleName(), Field.Store.NO));
+        document.add(new StringField(KEY, key, Field.Store.NO));
+        document.add(new StoredField(ID, serialize(id)));
+        for (String fieldName : entityType.getFuzzySearchFields()) {
+            String value = (String) entityType.invokeGetter(entity, fieldName);
+            if(value == null) continue;
+            document.add(new TextField(fieldName, value, Field.Store.NO));
+            //to allow for sorting by this field
+            document.add(new SortedDocValuesField(fieldName, new BytesRef(value.toLowerCase())));
+        }
+        try {
+            indexWriter.updateDocument(new Term(KEY, key), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void remove(Object entity) {
+        CachedEntityType entityType = entityTypeOf(entity.getClass());
+        if(entityType == null) return;
+        try {
+            indexWriter.deleteDocuments(new Term(KEY, keyOf(entity.getClass(), entityType.getId(entity))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //changes made since the last commit are lost upon a crash, as the index is reopened from its last commit
+    private void commit() {
+        try {
+            if(indexWriter.hasUncommittedChanges()) indexWriter.commit();
+        } catch (IOException | RuntimeException e) {
+            //retried upon the next interval - an exception would cancel all further commits
+            logCommitFailure(e);
+        }
+    }
+
+    //at most once per COMMIT_FAILURE_LOG_INTERVAL_MILLIS, as a failing commit is likely to fail upon every interval
+    private void logCommitFailure(Exception e) {
+        long now = System.currentTimeMillis();
+        if(now - lastCommitFailureLoggedAt < COMMIT_FAILURE_LOG_INTERVAL_MILLIS) {
+            unloggedCommitFailures++;
+            return;
+        }
+        log.warn("Failed to commit the lucene fuzzy search index in {} ({} more failures since the last warning), retrying every {}ms",
+                directoryPath, unloggedCommitFailures, commitIntervalMillis, e);
+        lastCommitFailureLoggedAt = now;
+        unloggedCommitFailures = 0;
+    }
+
+    @Override
+    public void removeAll(Class<?> entityType) {
+        try {
+            indexWriter.deleteDocuments(new Term(TYPE, entityType.getSimpleName()));
+            indexWriter.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Page<Object> searchIds(Class<?> entityType, String searchTerm, Pageable paginator) {
+        CachedEntityType cachedEntityType = entityTypeOf(entityType);
+        if(cachedEntityType == null || cachedEntityType.getFuzzySearchFields().isEmpty())
+            throw new IllegalArgumentException("No fuzzy search fields found for " + entityType.getSimpleName());
+        Query query = queryOf(entityType, cachedEntityType.getFuzzySearchFields(), searchTerm);
+        Sort sort = sortOf(paginator, cachedEntityType.getFuzzySearchFields());
+        int offset = (int) paginator.getOffset();
+        int limit = offset + paginator.getPageSize();
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = sort != null ? searcher.search(query, limit, sort) : searcher.search(query, limit);
+                List<Object> ids = new ArrayList<>(paginator.getPageSize());
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    BytesRef id = searcher.doc(topDocs.scoreDocs[i].doc).getBinaryValue(ID);
+                    ids.add(deserialize(id, entityType.getClassLoader()));
+                }
+                return new PageImpl<>(ids, paginator, searcher.count(query));
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query queryOf(Class<?> entityType, List<String> fields, String searchTerm) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(TYPE, entityType.getSimpleName())), BooleanClause.Occur.FILTER);
+        for (String token : tokensOf(searchTerm)) {
+            BooleanQuery.Builder tokenQuery = new BooleanQuery.Builder();
+            for (String field : fields) {
+                //prefix matches rank above typo tolerant ones
+                tokenQuery.add(new BoostQuery(new PrefixQuery(new Term(field, token)), 2f), BooleanClause.Occur.SHOULD);
+                tokenQuery.add(new FuzzyQuery(new Term(field, token), token.length() > 4 ? 2 : 1), BooleanClause.Occur.SHOULD);
+            }
+            query.add(tokenQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> tokensOf(String searchTerm) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream("", searchTerm)) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken())
+                tokens.add(term.toString());
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    private Sort sortOf(Pageable paginator, List<String> fields) {
+        if(paginator.getSort().isUnsorted()) return null;
+        List<SortField> sortFields = new ArrayList<>();
+        paginator.getSort().forEach(order -> {
+            if(!fields.contains(order.getProperty()))
+                throw new IllegalArgumentException(
+                        "Lucene fuzzy search results can only be sorted by fuzzy search fields, not by " + order.getProperty());
+            sortFields.add(new SortField(order.getProperty(), SortField.Type.STRING, order.isDescending()));
+        });
+        return new Sort(sortFields.toArray(new SortField[0]));
+    }
+
+    private CachedEntityType entityTypeOf(Class<?> entityType) {
+        return reflectionCache.getEntitiesCache().get(entityType.getSimpleName());
+    }
+
+    private static String keyOf(Class<?> entityType, Object id) {
+        return entityType.getSimpleName() + ":" + id;
+    }
+
+    //ids are stored as is, such that the matching entities can be loaded via findAllById(...)
+    private static byte[] serialize(Object id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(BytesRef bytes, ClassLoader classLoader) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.bytes, bytes.offset, bytes.length)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(desc);
+                }
+            }
+        }) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package org.sindaryn.datafi.service;
 
+import com.google.common.collect.Lists;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.sindaryn.datafi.persistence.Archivable;
+import org.sindaryn.datafi.persistence.ArchivableDao;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 
@@ -14,37 +26,143 @@ import static org.sindaryn.datafi.StaticUtils.*;
 @NoArgsConstructor
 public class ArchivableDataManager<T extends Archivable> extends BaseDataManager<T> {
 
+
     public ArchivableDataManager(@NonNull Class<T> clazz) {
         super(clazz);
     }
 
     public T archive(T input) {
-        Object id = getId(input, reflectionCache);
-        final String simpleName = input.getClass().getSimpleName();
-        T toArchive = findById(id).orElse(null);
-        if(toArchive == null) throwEntityNotFoundException(simpleName, id);
-        toArchive.setIsArchived(true);
-        return save(toArchive);
+        return timed("archive", null, () -> loadAndSetIsArchived(input, true));
     }
     public T deArchive(T input) {
+        return timed("deArchive", null, () -> loadAndSetIsArchived(input, false));
+    }
+
+    private T loadAndSetIsArchived(T input, boolean isArchived) {
         Object id = getId(input, reflectionCache);
         final String simpleName = input.getClass().getSimpleName();
-        T toDeArchive = findById(id).orElse(null);
-        if(toDeArchive == null) throwEntityNotFoundException(simpleName, id);
-        toDeArchive.setIsArchived(false);
-        return save(toDeArchive);
+        T toUpdate = findById(id).orElse(null);
+        if(toUpdate == null) throwEntityNotFoundException(simpleName, id);
+        toUpdate.setIsArchived(isArchived);
+        return save(toUpdate);
     }
-    public List<T> archiveCollection(Collection<T> input) {
-        final Class<T> clazz = (Class<T>) input.iterator().next().getClass();
-        List<Object> ids = getIdList(input, reflectionCache);
-        List<T> toArchive = findAllById(ids);
-        toArchive.forEach(item -> item.setIsArchived(true));
-        return saveAll(toArchive);
+
+    /**
+     * Marks the given records as archived with a single UPDATE statement per chunk of ids,
+     * without loading them from the database. Ids without a record are skipped. Instances
+     * of the updated records which are managed by the current persistence context are
+     * refreshed, the given ones are otherwise left as is.
+     * @return the number of archived records
+     */
+    public int archiveCollection(Collection<T> input) {
+        return timedModifying("archiveCollection", null, () -> setIsArchived(input, true));
+    }
+    public int deArchiveCollection(Collection<T> input) {
+        return timedModifying("deArchiveCollection", null, () -> setIsArchived(input, false));
+    }
+
+    /**
+     * Marks all records matching the given specification as archived, within a single transaction.
+     * The specification is applied to a query selecting the ids of the matching records - as such,
+     * it may join, add subqueries or call distinct(), but shouldn't fetch. The matching ids are
+     * then archived with a single UPDATE statement per chunk of ids.
+     * @return the number of archived records
+     */
+    public int archiveWhere(Specification<T> specification) {
+        return timedModifying("archiveWhere", null, () -> setIsArchivedWhere(specification, true));
+    }
+    public int deArchiveWhere(Specification<T> specification) {
+        return timedModifying("deArchiveWhere", null, () -> setIsArchivedWhere(specification, false));
     }
-    public List<T> deArchiveCollection(Collection<T> input) {
+
+    private int setIsArchived(Collection<T> input, boolean isArchived) {
+        if(input.isEmpty()) return 0;
+        if(!(getDao() instanceof ArchivableDao))
+            return setIsArchivedOneByOne(input, isArchived);
+        final ArchivableDao archivableDao = (ArchivableDao) getDao();
+        //one of the bind parameters is taken up by 'isArchived'
+        final int chunkSize = Math.max(1, getBindParameterLimit().get() - 1);
+        final List<Object> ids = getIdList(input, reflectionCache);
+        int result = new TransactionTemplate(getTransactionManager()).execute(status -> {
+            int updated = 0;
+            for (List<Object> chunk : Lists.partition(ids, chunkSize))
+                updated += archivableDao.updateIsArchivedByIdIn(isArchived, chunk);
+            refreshManaged(ids);
+            return updated;
+        });
+        evictFromCache(ids);
+        return result;
+    }
+
+    //the dao was not generated with updateIsArchivedByIdIn(...)
+    private int setIsArchivedOneByOne(Collection<T> input, boolean isArchived) {
         List<Object> ids = getIdList(input, reflectionCache);
-        List<T> toDeArchive = findAllById(ids);
-        toDeArchive.forEach(item -> item.setIsArchived(false));
-        return saveAll(toDeArchive);
+        List<T> toUpdate = findAllById(ids);
+        toUpdate.forEach(item -> item.setIsArchived(isArchived));
+        return saveAll(toUpdate).size();
+    }
+
+    /*
+     * bulk updates bypass the persistence context, so managed instances of the updated records would otherwise
+     * keep their stale 'isArchived' and @Version - and fail optimistic locking once flushed. Rather than clearing
+     * the whole persistence context, only those instances are refreshed.
+     */
+    private void refreshManaged(Collection<Object> ids) {
+        final EntityManager entityManager = getEntityManager();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(getClazz());
+        for (Object id : ids) {
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey((Serializable) id, persister));
+            if(managed != null) entityManager.refresh(managed);
+        }
+    }
+
+    /*
+     * the specification is given the very query which selects the ids, rather than being applied to the
+     * CriteriaUpdate itself - which has no CriteriaQuery of its own to pass along. Matching via an 'id IN (subquery)'
+     * would do the same in a single statement, but MySQL doesn't allow for a subquery of the updated table.
+     */
+    private int setIsArchivedWhere(Specification<T> specification, boolean isArchived) {
+        final EntityManager entityManager = getEntityManager();
+        //one of the bind parameters is taken up by 'isArchived'
+        final int chunkSize = Math.max(1, getBindParameterLimit().get() - 1);
+        return new TransactionTemplate(getTransactionManager()).execute(status -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Object> query = criteriaBuilder.createQuery(Object.class);
+            Root<T> matching = query.from(getClazz());
+            Predicate predicate = specification.toPredicate(matching, query, criteriaBuilder);
+            query.select(matching.get(idAttributeName()));
+            if(predicate != null) query.where(predicate);
+            List<Object> ids = entityManager.createQuery(query).getResultList();
+            int result = 0;
+            for (List<Object> chunk : Lists.partition(ids, chunkSize)) {
+                CriteriaUpdate<T> update = criteriaBuilder.createCriteriaUpdate(getClazz());
+                Root<T> root = update.from(getClazz());
+                update.set(root.<Boolean>get("isArchived"), isArchived);
+                incrementVersion(update, root, criteriaBuilder);
+                update.where(root.get(idAttributeName()).in(chunk));
+                result += entityManager.createQuery(update).executeUpdate();
+            }
+            refreshManaged(ids);
+            evictFromCache(ids);
+            return result;
+        });
+    }
+
+    private String idAttributeName() {
+        EntityType<T> entityType = getEntityManager().getMetamodel().entity(getClazz());
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    //bulk updates bypass optimistic locking, so keep numeric @Version columns consistent manually
+    private void incrementVersion(CriteriaUpdate<T> update, Root<T> root, CriteriaBuilder criteriaBuilder) {
+        EntityType<T> entityType = getEntityManager().getMetamodel().entity(getClazz());
+        if(!entityType.hasVersionAttribute()) return;
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if(attribute.isVersion() && Number.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(attribute.getJavaType()))) {
+                Path<Number> version = root.get(attribute.getName());
+                update.set(version, criteriaBuilder.sum(version, 1));
+            }
+        }
     }
 }
@@ -0,0 +1,134 @@
+package org.sindaryn.datafi.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the async operations of all DataManagers - on virtual threads if available (java 21+),
+ * otherwise on a fixed pool of platform threads. Either way, no more operations run at once than
+ * the connection pool of the datasource can serve, as each of them holds a connection throughout.
+ * Can be set explicitly via the 'datafi.async.max-concurrency' property.
+ */
+@Component
+public class AsyncDataExecutor {
+    //hikari's default
+    private static final int DEFAULT_POOL_SIZE = 10;
+    //getters of the max pool size of hikari, commons-dbcp2 and tomcat-jdbc respectively
+    private static final String[] POOL_SIZE_GETTERS = {"getMaximumPoolSize", "getMaxTotal", "getMaxActive"};
+
+    @Value("${datafi.async.max-concurrency:0}")
+    private int configuredMaxConcurrency;
+    @Value("${datafi.async.virtual-threads:true}")
+    private boolean useVirtualThreads;
+    //resolved lazily, as a context may have several datasources or none at all
+    @Autowired
+    private ObjectProvider<DataSource> dataSourceProvider;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    //resolved upon first use
+    @Getter
+    private volatile int maxConcurrency;
+    private volatile Semaphore permits;
+    private volatile ExecutorService executor;
+
+    /**
+     * Runs the given operation within a transaction of its own, once a permit is available.
+     * Take note that it can't join the transaction of the caller, and as such doesn't see its uncommitted changes.
+     * Operations started from within an async operation share the same permits - waiting on them from within
+     * it can deadlock once all permits are held by operations doing the same.
+     */
+    public <R> CompletableFuture<R> supplyAsync(Supplier<R> operation, boolean readOnly) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(readOnly);
+        final Semaphore permits = permits();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } finally {
+                permits.release();
+            }
+        }, executor());
+    }
+
+    private Semaphore permits() {
+        Semaphore result = permits;
+        if(result != null) return result;
+        synchronized (this) {
+            if(permits == null) {
+                maxConcurrency = configuredMaxConcurrency > 0 ? configuredMaxConcurrency : resolvePoolSize();
+                permits = new Semaphore(maxConcurrency);
+            }
+            return permits;
+        }
+    }
+
+    private ExecutorService executor() {
+        ExecutorService result = executor;
+        if(result != null) return result;
+        synchronized (this) {
+            if(executor == null) {
+                executor = useVirtualThreads ? virtualThreadExecutor() : null;
+                if(executor == null) executor = platformThreadExecutor(maxConcurrency);
+            }
+            return executor;
+        }
+    }
+
+    //null prior to java 21 - looked up reflectively, as datafi itself targets java 8
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService platformThreadExecutor(int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "datafi-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private int resolvePoolSize() {
+        DataSource dataSource = dataSourceProvider.getIfUnique();
+        if(dataSource == null) return DEFAULT_POOL_SIZE;
+        for (String getterName : POOL_SIZE_GETTERS) {
+            try {
+                Method getter = dataSource.getClass().getMethod(getterName);
+                int poolSize = ((Number) getter.invoke(dataSource)).intValue();
+                if(poolSize > 0) return poolSize;
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                //not this connection pool
+            }
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if(executor != null) executor.shutdown();
+    }
+}
@@ -1,29 +1,58 @@
 package org.sindaryn.datafi.service;
 
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.val;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.sindaryn.datafi.annotations.FuzzySearchStrategy;
+import org.sindaryn.datafi.cache.EntityCache;
+import org.sindaryn.datafi.cache.EntityCacheRegistry;
+import org.sindaryn.datafi.cache.EntityCacheStats;
+import org.sindaryn.datafi.metrics.DataManagerMetrics;
 import org.sindaryn.datafi.persistence.GenericDao;
+import org.sindaryn.datafi.reflection.CachedDaoType;
+import org.sindaryn.datafi.reflection.CachedEntityField;
 import org.sindaryn.datafi.reflection.CachedEntityType;
+import org.sindaryn.datafi.reflection.CascadeUpdatePlan;
 import org.sindaryn.datafi.reflection.ReflectionCache;
-import org.springframework.aop.framework.Advised;
+import org.sindaryn.datafi.search.FuzzySearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.ManyToOne;
-import javax.persistence.OneToOne;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
-import static com.google.common.collect.Maps.immutableEntry;
 import static org.sindaryn.datafi.StaticUtils.*;
 
 @Service
@@ -32,19 +61,62 @@ import static org.sindaryn.datafi.StaticUtils.*;
 @RequiredArgsConstructor
 public abstract class BaseDataManager<T> {
     @NonNull
+    @Getter(AccessLevel.PROTECTED)
     private Class<T> clazz;
     private String clazzSimpleName;
     @Autowired
     protected ReflectionCache reflectionCache;
-    /**
-     * compile a list of all the the jpa repositories which were
-     * autogenerated at compile time, and map each data access object
-     * - or 'dao' to the name of its respective jpa repository.
-     */
+    //all the jpa repositories which were autogenerated at compile time, as mapped by the DaoCollector
     private Map<String, GenericDao> daoMap;
+    @Getter(AccessLevel.PROTECTED)
     private GenericDao dao;
+    //resolver dispatch table of this manager's dao
+    private CachedDaoType daoType;
     @Autowired//autowiring daos via proxy because cannot autowire directly in abstract class
     private DaoCollector daoCollector;
+    @Autowired
+    private EntityCacheRegistry entityCacheRegistry;
+    //null unless T is annotated with @Cached
+    private EntityCache cache;
+    //only present if lucene is on the classpath
+    @Autowired(required = false)
+    private FuzzySearchIndex fuzzySearchIndex;
+    @PersistenceContext
+    @Getter(AccessLevel.PROTECTED)
+    private EntityManager entityManager;
+    @Autowired
+    @Getter(AccessLevel.PROTECTED)
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    @Getter(AccessLevel.PROTECTED)
+    private BindParameterLimit bindParameterLimit;
+    //applied to cascaded updates, unless hibernate.jdbc.batch_size is set
+    @Value("${datafi.jdbc-batch-size:50}")
+    private int jdbcBatchSize;
+    //records per jdbc round trip - or per COPY - of bulkInsert(...)
+    @Value("${datafi.bulk-insert.chunk-size:10000}")
+    private int bulkInsertChunkSize;
+    @Value("${datafi.bulk-insert.postgres-copy:true}")
+    private boolean bulkInsertViaCopy;
+    //resolved upon first use of bulkInsert(...)
+    private volatile BulkInserter bulkInserter;
+    //resolved upon first use of cascadedUpdate(...)
+    private volatile CascadeUpdatePlan cascadeUpdatePlan;
+    //direct writers of collection valued associations, keyed by '<owner class>.<field name>'
+    private final Map<String, Optional<CollectionAssociation>> associations = new ConcurrentHashMap<>();
+    //built upon first use of keyset pagination
+    private volatile KeysetQueries<T> keysetQueries;
+    @Autowired
+    private BatchLoaderExecutor batchLoaderExecutor;
+    //created upon first use of loadById(...)
+    private volatile BatchLoader<Object, T> idLoader;
+    //keyed by the name of the unique field
+    private final Map<String, BatchLoader<Object, T>> uniqueLoaders = new ConcurrentHashMap<>();
+    @Autowired
+    private AsyncDataExecutor asyncDataExecutor;
+    //null if datafi.metrics.recorder is set to 'none'
+    @Autowired(required = false)
+    private DataManagerMetrics metrics;
     /*@Autowired
     private EntityTypeRuntimeResolver<T> typeRuntimeResolver;*/
 
@@ -52,95 +124,261 @@ public abstract class BaseDataManager<T> {
         this.clazz = type;
         this.clazzSimpleName = type.getSimpleName();
         dao = daoMap.get(clazzSimpleName);
+        cache = entityCacheRegistry.cacheOf(type);
+        if(dao != null)
+            daoType = reflectionCache.getDaoType(daoCollector.daoInterfaceOf(dao));
     }
 
     @PostConstruct
     private void init(){
-        daoMap = new HashMap<>();
-        List<? extends GenericDao> daos = daoCollector.getDaos();
-        daos.forEach(dao -> {
-            String entityName = extractEntityName(dao);
-            if(entityName != null)
-                daoMap.put(entityName, dao);
-        });
+        daoMap = daoCollector.getDaosByEntityName();
         if(clazz != null)
             setType(clazz);
     }
 
-    //spring framework instantiates proxies for each autowired instance.
-    //if we want the actual name of the actual bean, we need to
-    //'deproxy' the instance.
-    private String extractEntityName(GenericDao dao) {
-        val interfaces = ((Advised)dao).getProxiedInterfaces();
-        String daoName = "";
-        for(Class<?> interface_ : interfaces){
-            if(interface_.getSimpleName().contains("Dao")){
-                daoName = interface_.getSimpleName();
-                break;
-            }
-        }
-        int endIndex = daoName.indexOf("Dao");
-        return endIndex != -1 ? daoName.substring(0, endIndex) : null;
+    public List<T> findAll(){
+        if(metrics == null) return daoMap.get(clazzSimpleName).findAll();
+        return timed("findAll", null, () -> daoMap.get(clazzSimpleName).findAll());
     }
-
-    public List<T> findAll(){return daoMap.get(clazzSimpleName).findAll();}
     
     public List<T> findAll(Sort sort) {
-        return dao.findAll(sort);
+        if(metrics == null) return dao.findAll(sort);
+        return timed("findAll", null, () -> dao.findAll(sort));
     }
 
-    public Page<T> findAll(Pageable pageable) {return dao.findAll(pageable);}
+    public Page<T> findAll(Pageable pageable) {
+        if(metrics == null) return dao.findAll(pageable);
+        return timed("findAll", null, () -> dao.findAll(pageable));
+    }
 
-    public List<T> findAllById(Iterable<?> iterable) {return dao.findAllById(iterable);}
+    public List<T> findAllById(Iterable<?> iterable) {
+        if(metrics == null) return dao.findAllById(iterable);
+        return timed("findAllById", null, () -> dao.findAllById(iterable));
+    }
 
-    public long count() {return dao.count();}
+    public long count() {return timed("count", null, () -> dao.count());}
 
     public void deleteById(Object id) {
-        dao.deleteById(id);
+        timed("deleteById", () -> dao.deleteById(id));
+        evictFromCache(Collections.singletonList(id));
     }
 
     public void delete(T t) {
-        dao.delete(t);
+        timed("delete", () -> dao.delete(t));
+        evictEntityFromCache(t);
     }
 
     public void deleteAll(Iterable<? extends T> iterable) {
-        dao.deleteAll(iterable);
+        timed("deleteAll", () -> dao.deleteAll(iterable));
+        evictEntitiesFromCache(iterable);
     }
 
     public void deleteAll() {
-        dao.deleteAll();
+        timed("deleteAll", () -> dao.deleteAll());
+        evictAllFromCache();
     }
 
     public <S extends T> S save(S s) {
-        return (S) dao.save(s);
+        S result = metrics == null ? (S) dao.save(s) : timed("save", null, () -> (S) dao.save(s));
+        evictEntityFromCache(result);
+        return result;
     }
 
     public <S extends T> List<S> saveAll(Iterable<S> iterable) {
-        return dao.saveAll(iterable);
+        List<S> result = metrics == null ? (List<S>) dao.saveAll(iterable) :
+                timed("saveAll", null, () -> (List<S>) dao.saveAll(iterable));
+        evictEntitiesFromCache(result);
+        return result;
+    }
+
+    /**
+     * Inserts the given new records directly via jdbc, datafi.bulk-insert.chunk-size at a time - i.e. for append only
+     * records, such as events. Ids are assigned up front, a chunk at a time, and the records are neither merged,
+     * nor checked for existence, nor attached to the persistence context. Joins the transaction of the caller, if any.
+     * Records of FuzzySearchStrategy.LUCENE entities are held on to until the transaction commits, and then indexed.
+     * @return the number of records inserted, and the rate at which they were inserted
+     */
+    public BulkInsertStats bulkInsert(Collection<? extends T> entities) {
+        return bulkInsert(entities.stream());
+    }
+
+    //the stream is consumed a chunk at a time, but isn't closed
+    public BulkInsertStats bulkInsert(Stream<? extends T> entities) {
+        return timed("bulkInsert", null, () -> {
+            final long start = System.nanoTime();
+            final BulkInserter inserter = bulkInserter();
+            //entity listeners aren't invoked, FuzzySearchIndexListener included
+            final FuzzySearchIndex index =
+                    entityType().getFuzzySearchStrategy() == FuzzySearchStrategy.LUCENE ? fuzzySearchIndex : null;
+            Long rows = new TransactionTemplate(transactionManager).execute(status -> {
+                long inserted = 0;
+                List<T> chunk = new ArrayList<>();
+                for (Iterator<? extends T> iterator = entities.iterator(); iterator.hasNext();) {
+                    chunk.add(iterator.next());
+                    if(chunk.size() < bulkInsertChunkSize && iterator.hasNext()) continue;
+                    inserted += inserter.insert(entityManager, chunk, bindParameterLimit.get(), jdbcBatchSize, bulkInsertViaCopy);
+                    if(index != null) indexAfterCommit(index, new ArrayList<>(chunk));
+                    chunk.clear();
+                }
+                return inserted;
+            });
+            return new BulkInsertStats(rows != null ? rows : 0, System.nanoTime() - start);
+        });
     }
 
+    private static void indexAfterCommit(FuzzySearchIndex index, List<?> inserted){
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                inserted.forEach(index::index);
+            }
+        });
+    }
+
+    private BulkInserter bulkInserter(){
+        BulkInserter inserter = bulkInserter;
+        if(inserter == null) bulkInserter = inserter = BulkInserter.of(entityManager, clazz, entityType());
+        return inserter;
+    }
+
+    //served from the cache if T is annotated with @Cached, unless called within a read-write transaction
     public Optional<T> findById(Object id) {
-        return dao.findById(id);
+        if(metrics == null) return findByIdImpl(id);
+        return timed("findById", null, () -> findByIdImpl(id));
+    }
+
+    private Optional<T> findByIdImpl(Object id) {
+        if(!isCacheable()) return (Optional<T>) dao.findById(id);
+        T cached = cachedCopyOf(id);
+        if(cached != null) return Optional.of(cached);
+        long token = cache.token(id);
+        Optional<T> result = dao.findById(id);
+        result.ifPresent(entity -> putInCache(id, entity, token));
+        return result;
+    }
+
+    /**
+     * Loads the record with the given id as part of a batch - concurrent calls from any thread
+     * within a short window (datafi.batch-loading.window-micros) are served by a single
+     * findAllById(...) query, i.e. to avoid n+1 queries when resolving graphql fields.
+     * The returned records are detached, as they're loaded within a transaction of their own.
+     * Served from the cache if T is annotated with @Cached.
+     * @param id - must be of the very same type as the id of T, as results are matched to ids by equality
+     */
+    public CompletableFuture<Optional<T>> loadById(Object id) {
+        if(cache != null){
+            T cached = cachedCopyOf(id);
+            if(cached != null) return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        BatchLoader<Object, T> loader = idLoader;
+        if(loader == null){
+            //once only, such that concurrent first calls share the same batches
+            synchronized (uniqueLoaders){
+                loader = idLoader;
+                if(loader == null) idLoader = loader = batchLoader(this::loadAllById);
+            }
+        }
+        return loader.load(id);
+    }
+
+    /**
+     * Loads the record with the given unique field value as part of a batch, as per loadById(...).
+     * Requires the field to be annotated with @GetByUnique, which also generates the
+     * findAllBy<Field>In(...) query each batch is served by.
+     */
+    public CompletableFuture<Optional<T>> loadByUnique(String attributeName, Object attributeValue) {
+        if(cache != null){
+            Object id = cache.idOf(attributeName, attributeValue);
+            T cached = id != null ? cachedCopyOf(id) : null;
+            if(isCachedByUnique(cached, attributeName, attributeValue))
+                return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        BatchLoader<Object, T> loader = uniqueLoaders.get(attributeName);
+        if(loader == null)
+            loader = uniqueLoaders.computeIfAbsent(attributeName,
+                    name -> batchLoader(values -> loadAllByUnique(name, values)));
+        return loader.load(attributeValue);
+    }
+
+    /**
+     * Batch size and wait time metrics of loadById(...), or of loadByUnique(...)
+     * if given the name of a unique field.
+     */
+    public BatchLoaderStats batchLoaderStats(String attributeName){
+        BatchLoader<Object, T> loader = attributeName == null ? idLoader : uniqueLoaders.get(attributeName);
+        return loader != null ? loader.stats() : new BatchLoaderStats(0, 0, 0, 0);
+    }
+
+    public BatchLoaderStats batchLoaderStats(){
+        return batchLoaderStats(null);
+    }
+
+    private BatchLoader<Object, T> batchLoader(Function<List<Object>, Map<Object, T>> batchFunction){
+        return new BatchLoader<>(batchFunction, batchLoaderExecutor.get(),
+                batchLoaderExecutor.getWindowMicros(), batchLoaderExecutor.getMaxBatchSize(bindParameterLimit));
+    }
+
+    private Map<Object, T> loadAllById(List<Object> ids){
+        final CachedEntityType entityType = entityType();
+        Map<Object, T> result = new HashMap<>();
+        final long[] tokens = cache != null ? cache.tokens() : null;
+        for (T entity : timed("loadById", null, () -> readOnlyChunked(ids, chunk -> (List<T>) dao.findAllById(chunk)))) {
+            Object id = entityType.getId(entity);
+            result.put(id, entity);
+            if(cache != null) putInCache(id, entity, tokens);
+        }
+        return result;
+    }
+
+    private Map<Object, T> loadAllByUnique(String attributeName, List<Object> values){
+        final CachedEntityType entityType = entityType();
+        Map<Object, T> result = new HashMap<>();
+        final long[] tokens = cache != null ? cache.tokens() : null;
+        for (T entity : timed("loadByUnique", attributeName, () -> readOnlyChunked(values,
+                chunk -> (List<T>) daoType.invokeFindAllBy(dao, attributeName, chunk)))) {
+            Object value = entityType.invokeGetter(entity, attributeName);
+            result.put(value, entity);
+            if(cache != null) cacheByUnique(entity, attributeName, value, tokens);
+        }
+        return result;
+    }
+
+    //a single read only transaction, with one query per chunk of keys
+    private List<T> readOnlyChunked(List<Object> keys, Function<List<Object>, List<T>> query){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            List<T> result = new ArrayList<>(keys.size());
+            for (List<Object> chunk : Lists.partition(keys, bindParameterLimit.get()))
+                result.addAll(query.apply(chunk));
+            return result;
+        });
     }
 
     public boolean existsById(Object id) {
-        return dao.existsById(id);
+        if(cache != null && cache.get(id) != null) return true;
+        if(metrics == null) return dao.existsById(id);
+        return timed("existsById", null, () -> dao.existsById(id));
     }
 
     public void flush() {
-        dao.flush();
+        timed("flush", () -> dao.flush());
     }
 
     public <S extends T> S saveAndFlush(S s) {
-        return (S) dao.saveAndFlush(s);
+        S result = timed("saveAndFlush", null, () -> (S) dao.saveAndFlush(s));
+        evictEntityFromCache(result);
+        return result;
     }
 
     public void deleteInBatch(Iterable<T> iterable) {
-        dao.deleteInBatch(iterable);
+        timed("deleteInBatch", () -> dao.deleteInBatch(iterable));
+        evictEntitiesFromCache(iterable);
     }
 
     public void deleteAllInBatch() {
-        dao.deleteAllInBatch();
+        timed("deleteAllInBatch", () -> dao.deleteAllInBatch());
+        evictAllFromCache();
     }
 
     public T getOne(Object id) {
@@ -148,226 +386,594 @@ public abstract class BaseDataManager<T> {
     }
 
     public <S extends T> Optional<S> findOne(Example<S> example) {
-        return dao.findOne(example);
+        return timed("findOne", null, () -> (Optional<S>) dao.findOne(example));
     }
 
     public <S extends T> List<S> findAll(Example<S> example) {
-        return dao.findAll(example);
+        return timed("findAll", null, () -> (List<S>) dao.findAll(example));
     }
 
     public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
-        return dao.findAll(example, sort);
+        return timed("findAll", null, () -> (List<S>) dao.findAll(example, sort));
     }
 
     public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
-        return dao.findAll(example, pageable);
+        return timed("findAll", null, () -> (Page<S>) dao.findAll(example, pageable));
     }
 
     public <S extends T> long count(Example<S> example) {
-        return dao.count(example);
+        return timed("count", null, () -> dao.count(example));
     }
 
     public <S extends T> boolean exists(Example<S> example) {
-        return dao.exists(example);
+        return timed("exists", null, () -> dao.exists(example));
     }
 
 
     public List<T> getBy(String attributeName, Object attributeValue){
-        try{
-            Class<?>[] params = new Class<?>[]{attributeValue.getClass()};
-            String resolverName = "findBy" + toPascalCase(attributeName);
-            Method methodToInvoke = getMethodToInvoke(resolverName, params, dao);
-            return (List<T>) methodToInvoke.invoke(dao, new Object[]{attributeValue});
-        }catch (Exception e){
-            throw new RuntimeException(e);
-        }
+        if(metrics == null) return findBy(attributeName, attributeValue);
+        return timed("getBy", attributeName, () -> findBy(attributeName, attributeValue));
     }
 
+    //overridden by the generated '<entity name>DataManager' with a direct call to its dao
+    protected List<T> findBy(String attributeName, Object attributeValue){
+        return (List<T>) daoType.invokeFindBy(dao, attributeName, attributeValue);
+    }
+
+    //served from the cache if T is annotated with @Cached, unless called within a read-write transaction
     public Optional<T> getByUnique(String attributeName, Object attributeValue){
-        try{
-            Class<?>[] params = new Class<?>[]{attributeValue.getClass()};
-            String resolverName = "findBy" + toPascalCase(attributeName);
-            Method methodToInvoke = getMethodToInvoke(resolverName, params, dao);
-            return (Optional<T>) methodToInvoke.invoke(dao, new Object[]{attributeValue});
-        }catch (Exception e){
-            throw new RuntimeException(e);
+        if(metrics == null) return getByUniqueImpl(attributeName, attributeValue);
+        return timed("getByUnique", attributeName, () -> getByUniqueImpl(attributeName, attributeValue));
+    }
+
+    private Optional<T> getByUniqueImpl(String attributeName, Object attributeValue){
+        if(!isCacheable()) return findByUnique(attributeName, attributeValue);
+        Object id = cache.idOf(attributeName, attributeValue);
+        if(id != null){
+            T cached = findById(id).orElse(null);
+            if(isCachedByUnique(cached, attributeName, attributeValue)) return Optional.of(cached);
         }
+        //the id isn't known until the record is read
+        long[] tokens = cache.tokens();
+        Optional<T> result = findByUnique(attributeName, attributeValue);
+        result.ifPresent(entity -> cacheByUnique(entity, attributeName, attributeValue, tokens));
+        return result;
+    }
+
+    //the unique value may have since moved to a different record
+    private boolean isCachedByUnique(T cached, String attributeName, Object attributeValue){
+        return cached != null && Objects.equals(entityType().invokeGetter(cached, attributeName), attributeValue);
+    }
+
+    private void cacheByUnique(T entity, String attributeName, Object attributeValue, long[] tokens){
+        Object entityId = entityType().getId(entity);
+        putInCache(entityId, entity, tokens);
+        cache.putUniqueKey(attributeName, attributeValue, entityId);
+    }
+
+    //records read within a read-write transaction are managed, and may be about to change
+    private boolean isCacheable(){
+        return cache != null && (!TransactionSynchronizationManager.isActualTransactionActive() ||
+                TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    //every caller gets a copy of its own, such that changes made to it don't leak into the cache
+    private T cachedCopyOf(Object id){
+        Object cached = cache.get(id);
+        return cached != null ? (T) entityType().copyOf(cached) : null;
+    }
+
+    //the token is that of EntityCache.token(id), as taken before the entity was read
+    private void putInCache(Object id, T entity, long token){
+        cache.put(id, entityType().copyOf(entity), token);
+    }
+
+    //as per putInCache(id, entity, token), given EntityCache.tokens()
+    private void putInCache(Object id, T entity, long[] tokens){
+        cache.put(id, entityType().copyOf(entity), tokens);
+    }
+
+    //overridden by the generated '<entity name>DataManager' with a direct call to its dao
+    protected Optional<T> findByUnique(String attributeName, Object attributeValue){
+        return (Optional<T>) daoType.invokeFindBy(dao, attributeName, attributeValue);
     }
 
     public List<T> getAllBy(String attributeName, Object[] attributeValues){
-        try{
-            Class<?>[] params = new Class<?>[]{List.class};
-            String resolverName = "findAllBy" + toPascalCase(attributeName) + "In";
-            Method methodToInvoke = getMethodToInvoke(resolverName, params, dao);
-            return (List<T>) methodToInvoke.invoke(dao, Arrays.asList(attributeValues));
-        }catch (Exception e){
-            throw new RuntimeException(e);
-        }
+        if(metrics == null) return findAllBy(attributeName, attributeValues);
+        return timed("getAllBy", attributeName, () -> findAllBy(attributeName, attributeValues));
+    }
+
+    //overridden by the generated '<entity name>DataManager' with a direct call to its dao
+    protected List<T> findAllBy(String attributeName, Object[] attributeValues){
+        return (List<T>) daoType.invokeFindAllBy(dao, attributeName, Arrays.asList(attributeValues));
     }
 
     public Optional<T> findOne(Specification<T> specification) {
-        return dao.findOne(specification);
+        if(metrics == null) return (Optional<T>) dao.findOne(specification);
+        return timed("findOne", null, () -> (Optional<T>) dao.findOne(specification));
     }
 
     public List<T> findAll(Specification<T> specification) {
-        return dao.findAll(specification);
+        if(metrics == null) return (List<T>) dao.findAll(specification);
+        return timed("findAll", null, () -> (List<T>) dao.findAll(specification));
     }
 
     public Page<T> findAll(Specification<T> specification, Pageable pageable) {
-        return dao.findAll(specification, pageable);
+        if(metrics == null) return (Page<T>) dao.findAll(specification, pageable);
+        return timed("findAll", null, () -> (Page<T>) dao.findAll(specification, pageable));
     }
 
     public List<T> findAll(Specification<T> specification, Sort sort) {
-        return dao.findAll(specification, sort);
+        if(metrics == null) return (List<T>) dao.findAll(specification, sort);
+        return timed("findAll", null, () -> (List<T>) dao.findAll(specification, sort));
     }
 
     public long count(Specification<T> specification) {
-        return dao.count(specification);
+        if(metrics == null) return dao.count(specification);
+        return timed("count", null, () -> dao.count(specification));
     }
 
     public List<T> selectByResolver(String resolverName, Object... args){
-        try{
-            Class<?>[] params = new Class<?>[args.length];
-            for (int i = 0; i < args.length; i++) params[i] = args[i].getClass();
-            Method methodToInvoke = getMethodToInvoke(resolverName, params, dao);
-            return (List<T>) methodToInvoke.invoke(dao, args);
-        }catch (Exception e){
-            throw new RuntimeException(e);
+        if(metrics == null) return invokeResolver(resolverName, args);
+        return timed("selectByResolver", resolverName, () -> invokeResolver(resolverName, args));
+    }
+
+    /**
+     * Runs a @WithResolver(type = AVG / COUNT / MAX / MIN / SUM, ...) resolver, aggregating within the database.
+     * Returns the aggregated value, or - given a groupBy - a List of the resolver's '<entity name><resolver name>Result'.
+     */
+    public <R> R aggregateByResolver(String resolverName, Object... args){
+        return timed("aggregateByResolver", resolverName, () -> (R) daoType.invokeResolver(dao, resolverName, args));
+    }
+
+    /**
+     * As per getBy(...), for fields annotated with @GetBy(projection = {...}) - selecting only the projected fields,
+     * into a List of '<entity name>By<field name>Projection'. These are plain objects rather than managed entities.
+     */
+    public <P> List<P> getProjectedBy(String attributeName, Object attributeValue){
+        return timed("getProjectedBy", attributeName, () -> (List<P>) daoType.invokeResolver(dao,
+                "findProjectedBy" + toPascalCase(attributeName), new Object[]{attributeValue}));
+    }
+
+    //as per getProjectedBy(...), for fields annotated with @GetAllBy(projection = {...})
+    public <P> List<P> getAllProjectedBy(String attributeName, Object[] attributeValues){
+        return timed("getAllProjectedBy", attributeName, () -> (List<P>) daoType.invokeResolver(dao,
+                "findAllProjectedBy" + toPascalCase(attributeName) + "In", new Object[]{Arrays.asList(attributeValues)}));
+    }
+
+    //as per getProjectedBy(...), for @WithResolver(type = SELECT_BY, projection = {...}, ...) resolvers
+    public <P> List<P> selectProjectedByResolver(String resolverName, Object... args){
+        return timed("selectProjectedByResolver", resolverName,
+                () -> (List<P>) daoType.invokeResolver(dao, resolverName + "Projected", args));
+    }
+
+    /**
+     * Runs a @WithResolver(type = UPDATE, ...) resolver as a single bulk statement, bypassing the persistence context.
+     * The args are those of the resolver followed by the 'new<field name>' value of each field it sets.
+     * @return the number of records updated
+     */
+    public int updateByResolver(String resolverName, Object... args){
+        return timedModifying("updateByResolver", resolverName, () -> executeModifyingResolver(resolverName, args));
+    }
+
+    //as per updateByResolver(...), for @WithResolver(type = DELETE, ...) resolvers
+    public int deleteByResolver(String resolverName, Object... args){
+        return timedModifying("deleteByResolver", resolverName, () -> executeModifyingResolver(resolverName, args));
+    }
+
+    /**
+     * As per updateByResolver(...), one chunk of matching records at a time - each updated in a transaction
+     * of its own, such that no single statement holds its locks for long. Chunks are selected in order of id,
+     * and as such each record is updated at most once. Must not be called within a transaction which holds
+     * locks on the matching records. Not available for entities with a composite id.
+     * @param chunkSize - the number of records per statement, at most the bind parameter limit
+     * @return the number of records updated
+     */
+    public int updateByResolverInChunks(String resolverName, int chunkSize, Object... args){
+        return timedModifying("updateByResolver", resolverName, () -> executeModifyingResolverInChunks(resolverName, chunkSize, args));
+    }
+
+    //as per updateByResolverInChunks(...), for @WithResolver(type = DELETE, ...) resolvers
+    public int deleteByResolverInChunks(String resolverName, int chunkSize, Object... args){
+        return timedModifying("deleteByResolver", resolverName, () -> executeModifyingResolverInChunks(resolverName, chunkSize, args));
+    }
+
+    private int executeModifyingResolver(String resolverName, Object[] args){
+        int affected = (Integer) daoType.invokeResolver(dao, resolverName, args);
+        //bulk statements bypass the cache
+        evictAllFromCache();
+        return affected;
+    }
+
+    private int executeModifyingResolverInChunks(String resolverName, int chunkSize, Object[] args){
+        final Pageable chunk = PageRequest.of(0, Math.min(chunkSize, bindParameterLimit.get()));
+        //the FirstIds and IdsAfter queries take the resolver's args alone, without the values it sets
+        final Object[] whereArgs = Arrays.copyOf(args, daoType.parameterCountOf(resolverName + "FirstIds") - 1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int affected = 0;
+        List<Object> ids = (List<Object>) daoType.invokeResolver(dao, resolverName + "FirstIds", append(whereArgs, chunk));
+        while (!ids.isEmpty()){
+            final List<Object> chunkIds = ids;
+            affected += transactionTemplate.execute(status ->
+                    (Integer) daoType.invokeResolver(dao, resolverName + "ByIdIn", append(args, chunkIds)));
+            evictFromCache(chunkIds);
+            if(ids.size() < chunk.getPageSize()) break;
+            ids = (List<Object>) daoType.invokeResolver(dao, resolverName + "IdsAfter",
+                    append(whereArgs, ids.get(ids.size() - 1), chunk));
         }
+        return affected;
     }
 
+    private static Object[] append(Object[] args, Object... extraArgs){
+        Object[] result = Arrays.copyOf(args, args.length + extraArgs.length);
+        System.arraycopy(extraArgs, 0, result, args.length, extraArgs.length);
+        return result;
+    }
+
+    //overridden by the generated '<entity name>DataManager' with a direct call to its dao
+    protected List<T> invokeResolver(String resolverName, Object... args){
+        return (List<T>) daoType.invokeResolver(dao, resolverName, args);
+    }
+
+    /**
+     * Streams all records of T. Rows are fetched from the database in batches as the stream
+     * is consumed, and the entities are read only. Must be called within a transaction, and the
+     * stream must be closed once done - i.e. via try-with-resources. Take note that consumed
+     * entities remain in the persistence context until detached - see forEachChunk(...).
+     */
+    public Stream<T> streamAll(){
+        return timed("streamAll", null, () -> (Stream<T>) dao.streamAll());
+    }
+
+    //as per streamAll(), restricted to records matching the given specification
+    public Stream<T> streamAll(Specification<T> specification){
+        return timed("streamAll", null, () -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> query = criteriaBuilder.createQuery(clazz);
+            Root<T> root = query.from(clazz);
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if(predicate != null) query.where(predicate);
+            return entityManager.createQuery(query.select(root))
+                    .setHint(org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, Integer.valueOf(GenericDao.STREAM_FETCH_SIZE))
+                    .setHint(org.hibernate.jpa.QueryHints.HINT_READONLY, true)
+                    .getResultStream();
+        });
+    }
+
+    //as per streamAll(), for fields annotated with @GetBy
+    public Stream<T> streamBy(String attributeName, Object attributeValue){
+        return timed("streamBy", attributeName, () -> (Stream<T>) daoType.invokeStreamBy(dao, attributeName, attributeValue));
+    }
+
+    //as per streamAll(), for fields annotated with @GetAllBy
+    public Stream<T> streamAllBy(String attributeName, Object[] attributeValues){
+        return timed("streamAllBy", attributeName,
+                () -> (Stream<T>) daoType.invokeStreamAllBy(dao, attributeName, Arrays.asList(attributeValues)));
+    }
+
+    //as per streamAll(), for @WithResolver(type = SELECT_BY, ...) resolvers
+    public Stream<T> streamByResolver(String resolverName, Object... args){
+        return timed("streamByResolver", resolverName,
+                () -> (Stream<T>) daoType.invokeResolver(dao, "stream" + toPascalCase(resolverName), args));
+    }
+
+    /**
+     * Passes all records of T to the consumer, chunkSize records at a time. Runs within
+     * its own read only transaction, and clears the persistence context after each chunk,
+     * such that memory use stays flat regardless of the number of records.
+     * Changes made to the passed in entities are not saved.
+     */
+    public void forEachChunk(int chunkSize, Consumer<List<T>> consumer){
+        forEachChunk(null, chunkSize, consumer);
+    }
+
+    //as per forEachChunk(chunkSize, consumer), restricted to records matching the given specification
+    public void forEachChunk(Specification<T> specification, int chunkSize, Consumer<List<T>> consumer){
+        if(chunkSize <= 0) throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        //a persistence context of its own, so as not to clear that of the caller
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.execute(status -> {
+            try (Stream<T> stream = specification == null ? streamAll() : streamAll(specification)) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if(chunk.size() < chunkSize && iterator.hasNext()) continue;
+                    consumer.accept(chunk);
+                    //detaches the chunk, as well as anything the consumer may have lazily loaded
+                    entityManager.clear();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Copies the non null fields of source onto toUpdate, recursing into @OneToOne / @ManyToOne fields.
+     * Only entities whose fields actually changed are saved, all within a single transaction
+     * and a single jdbc batched flush.
+     */
     public T cascadedUpdate(T toUpdate, T source){
-        return (T) cascadedUpdateImpl(toUpdate, source);
+        return timed("cascadedUpdate", null, () -> new TransactionTemplate(transactionManager).execute(status -> {
+            T result = cascadedUpdateImpl(toUpdate, source);
+            batchedFlush();
+            return result;
+        }));
     }
 
+    /**
+     * Saves the given entities, and adds them to the given collection of toAddTo. The association
+     * is written directly - via the foreign key, or the join table - without loading the collection.
+     * Ordered lists and maps are the exception, and are updated by way of the loaded collection.
+     * @param toAddTo - the entity containing the collection, of which only the id is used
+     * @param fieldName - the name of the collection field, i.e. "friends" for 'Set<Person> friends'
+     * @param toAdd - the new entities to add
+     */
     public<HasTs> List<T> addNewToCollectionIn(HasTs toAddTo, String fieldName, List<T> toAdd){
+        return timed("addNewToCollectionIn", fieldName, () -> addNewToCollectionInImpl(toAddTo, fieldName, toAdd));
+    }
+
+    private<HasTs> List<T> addNewToCollectionInImpl(HasTs toAddTo, String fieldName, List<T> toAdd){
+        final CachedEntityType ownerType = ownerTypeOf(toAddTo);
+        final CollectionAssociation association = associationOf(ownerType, fieldName);
+        final Object ownerId = ownerType.getId(toAddTo);
+        entityCacheRegistry.evict(ownerType.getClazz(), Collections.singletonList(ownerId));
+        if(association == null) return addNewToLoadedCollectionIn(toAddTo, fieldName, toAdd);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            if(association.isMappedBy()){
+                //the new entities own the foreign key, so referencing the owner is all it takes
+                Object owner = entityManager.getReference(ownerType.getClazz(), ownerId);
+                CachedEntityType entityType = entityType();
+                toAdd.forEach(item -> entityType.invokeSetter(item, association.getMappedBy(), owner));
+                return dao.saveAll(toAdd);
+            }
+            List<T> saved = dao.saveAll(toAdd);
+            association.attach(entityManager, ownerId, idList(saved), bindParameterLimit.get(), jdbcBatchSize);
+            return saved;
+        });
+    }
+
+    /**
+     * Adds the given existing entities to the given collection of toAddTo, as per addNewToCollectionIn(...).
+     * Only the ids of toAddTo and toAttach are used.
+     * @return the attached entities, as reloaded after the update
+     */
+    public<HasTs> List<T> attachExistingToCollectionIn(HasTs toAddTo, String fieldName, List<T> toAttach){
+        return timed("attachExistingToCollectionIn", fieldName,
+                () -> attachExistingToCollectionInImpl(toAddTo, fieldName, toAttach));
+    }
+
+    private<HasTs> List<T> attachExistingToCollectionInImpl(HasTs toAddTo, String fieldName, List<T> toAttach){
+        final CachedEntityType ownerType = ownerTypeOf(toAddTo);
+        final CollectionAssociation association = associationOf(ownerType, fieldName);
+        final Object ownerId = ownerType.getId(toAddTo);
+        final List<Object> ids = idList(toAttach);
+        entityCacheRegistry.evict(ownerType.getClazz(), Collections.singletonList(ownerId));
+        evictFromCache(ids);
+        if(association == null) return attachExistingToLoadedCollectionIn(toAddTo, fieldName, toAttach);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            association.attach(entityManager, ownerId, ids, bindParameterLimit.get(), jdbcBatchSize);
+            //bulk updates bypass the persistence context
+            entityManager.clear();
+            return (List<T>) dao.findAllById(ids);
+        });
+    }
+
+    /**
+     * Removes the given entities from the given collection of toDetachFrom, without deleting them and without
+     * loading the collection. For @OneToMany(mappedBy = ...) associations, the foreign key is set to null.
+     * Only the ids of toDetachFrom and toDetach are used.
+     * @return the number of removed associations
+     */
+    public<HasTs> int detachFromCollectionIn(HasTs toDetachFrom, String fieldName, List<T> toDetach){
+        return timed("detachFromCollectionIn", fieldName,
+                () -> detachFromCollectionInImpl(toDetachFrom, fieldName, toDetach));
+    }
+
+    private<HasTs> int detachFromCollectionInImpl(HasTs toDetachFrom, String fieldName, List<T> toDetach){
+        final CachedEntityType ownerType = ownerTypeOf(toDetachFrom);
+        final CollectionAssociation association = associationOf(ownerType, fieldName);
+        final Object ownerId = ownerType.getId(toDetachFrom);
+        final List<Object> ids = idList(toDetach);
+        entityCacheRegistry.evict(ownerType.getClazz(), Collections.singletonList(ownerId));
+        evictFromCache(ids);
+        if(association == null) return detachFromLoadedCollectionIn(toDetachFrom, fieldName, toDetach);
+        return new TransactionTemplate(transactionManager).execute(status ->
+                association.detach(entityManager, ownerId, ids, bindParameterLimit.get(), jdbcBatchSize));
+    }
+
+    private CachedEntityType ownerTypeOf(Object owner){
+        return reflectionCache.getEntitiesCache().get(Hibernate.getClass(owner).getSimpleName());
+    }
+
+    private CollectionAssociation associationOf(CachedEntityType ownerType, String fieldName){
+        CachedEntityField field = ownerType.getFields().get(fieldName);
+        if(field == null)
+            throw new IllegalArgumentException("No such field " + fieldName + " in " + ownerType.getClazz().getSimpleName());
+        return associations.computeIfAbsent(ownerType.getClazz().getName() + "." + fieldName,
+                role -> Optional.ofNullable(CollectionAssociation.of(entityManager, ownerType.getClazz(), field.getField())))
+                .orElse(null);
+    }
+
+    //ordered lists and maps
+    private<HasTs> List<T> addNewToLoadedCollectionIn(HasTs toAddTo, String fieldName, List<T> toAdd){
 
         GenericDao toAddDao = dao;
-        final String toAddToName = toAddTo.getClass().getSimpleName();
+        final String toAddToName = Hibernate.getClass(toAddTo).getSimpleName();
         GenericDao toAddToDao = daoMap.get(toAddToName);
+        CachedEntityType toAddToType = reflectionCache.getEntitiesCache().get(toAddToName);
 
-        toAddTo = (HasTs) toAddToDao.findById(reflectionCache.getEntitiesCache().get(toAddToName).invokeGetter(toAddTo, "id")).orElse(null);
+        toAddTo = (HasTs) toAddToDao.findById(toAddToType.getId(toAddTo)).orElse(null);
         if(toAddTo == null) throw new IllegalArgumentException("Could not find an entity with the given id");
-        Method existingCollectionGetter = getMethodToInvoke("get" + toPascalCase(fieldName) ,toAddTo);
-        Collection<T> existingCollection = (Collection<T>) invoke(existingCollectionGetter, toAddTo);
+        Collection<T> existingCollection = (Collection<T>) toAddToType.invokeGetter(toAddTo, fieldName);
         existingCollection.addAll(toAdd);
-        Method existingCollectionSetter = getMethodToInvoke("set" + toPascalCase(fieldName) ,toAddTo);
-        invoke(existingCollectionSetter, toAddTo, existingCollection);
+        toAddToType.invokeSetter(toAddTo, fieldName, existingCollection);
 
         toAddToDao.save(toAddTo);
         toAddDao.saveAll(toAdd);
         return toAdd;
     }
 
-    public<HasTs> List<T> attachExistingToCollectionIn(HasTs toAddTo, String fieldName, List<T> toAttach){
+    private<HasTs> List<T> attachExistingToLoadedCollectionIn(HasTs toAddTo, String fieldName, List<T> toAttach){
 
         GenericDao toAttachDao = dao;
-        final String toAttachToName = toAddTo.getClass().getSimpleName();
+        final String toAttachToName = Hibernate.getClass(toAddTo).getSimpleName();
         GenericDao toAttachToDao = daoMap.get(toAttachToName);
+        CachedEntityType toAttachToType = reflectionCache.getEntitiesCache().get(toAttachToName);
 
         toAttach = toAttachDao.findAllById(idList(toAttach));
-        toAddTo = (HasTs) toAttachToDao.findById(reflectionCache.getEntitiesCache().get(toAttachToName).invokeGetter(toAddTo, "id")).orElse(null);
+        toAddTo = (HasTs) toAttachToDao.findById(toAttachToType.getId(toAddTo)).orElse(null);
         if(toAddTo == null) throw new IllegalArgumentException("Could not find an entity with the given id");
-        Method existingCollectionGetter = getMethodToInvoke("get" + toPascalCase(fieldName) ,toAddTo);
-        Collection<T> existingCollection = (Collection<T>) invoke(existingCollectionGetter, toAddTo);
+        Collection<T> existingCollection = (Collection<T>) toAttachToType.invokeGetter(toAddTo, fieldName);
         existingCollection.addAll(toAttach);
-        Method existingCollectionSetter = getMethodToInvoke("set" + toPascalCase(fieldName) ,toAddTo);
-        invoke(existingCollectionSetter, toAddTo, existingCollection);
+        toAttachToType.invokeSetter(toAddTo, fieldName, existingCollection);
         toAttachToDao.save(toAddTo);
         return toAttach;
     }
 
+    private<HasTs> int detachFromLoadedCollectionIn(HasTs toDetachFrom, String fieldName, List<T> toDetach){
+        final String toDetachFromName = Hibernate.getClass(toDetachFrom).getSimpleName();
+        GenericDao toDetachFromDao = daoMap.get(toDetachFromName);
+        CachedEntityType toDetachFromType = reflectionCache.getEntitiesCache().get(toDetachFromName);
+        final Set<Object> ids = new HashSet<>(idList(toDetach));
+        final CachedEntityType entityType = entityType();
+
+        toDetachFrom = (HasTs) toDetachFromDao.findById(toDetachFromType.getId(toDetachFrom)).orElse(null);
+        if(toDetachFrom == null) throw new IllegalArgumentException("Could not find an entity with the given id");
+        Collection<T> existingCollection = (Collection<T>) toDetachFromType.invokeGetter(toDetachFrom, fieldName);
+        int sizeBefore = existingCollection.size();
+        existingCollection.removeIf(item -> ids.contains(entityType.getId(item)));
+        toDetachFromType.invokeSetter(toDetachFrom, fieldName, existingCollection);
+        toDetachFromDao.save(toDetachFrom);
+        return sizeBefore - existingCollection.size();
+    }
+
     public List<T> cascadeUpdateCollection(Iterable<T> toUpdate, Iterable<T> updated){
         Iterator<T> updatedEntitiesIterator = updated.iterator();
         Iterator<T> entitiesToUpdateIterator = toUpdate.iterator();
-        T entityToUpdate, updatedEntity;
-
-        while(updatedEntitiesIterator.hasNext() && entitiesToUpdateIterator.hasNext()){
-            updatedEntity = updatedEntitiesIterator.next();
-            entityToUpdate = entitiesToUpdateIterator.next();
-            cascadedUpdateImpl(entityToUpdate, updatedEntity);
-        }
-        return dao.saveAll(toUpdate);
-    }
-
-    private Object cascadedUpdateImpl(Object toUpdate, Object source){
-        Class<?> currentClazz = toUpdate.getClass();
-        Collection<Field> fieldsToUpdate = reflectionCache.getEntitiesCache().get(currentClazz.getSimpleName()).getCascadeUpdatableFields();
-        for(Field currentField : fieldsToUpdate){
-            try {
-                currentField.setAccessible(true);
-                Object sourceFieldValue = currentField.get(source);
-                Object targetFieldValue = currentField.get(toUpdate);
-                //if field value is null, there's nothing to update to
-                if(sourceFieldValue == null) continue;
-                //if field is an embedded entity, we need to recursively update all of its fields
-                if(isForeignKey(currentField, toUpdate))
-                    cascadedUpdateImpl(targetFieldValue, sourceFieldValue);
-                    //if field is a collection, that's outside of this use case,
-                else
-                    //else, (...finally) update field value
-                    currentField.set(toUpdate, sourceFieldValue);
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
+        List<T> result = new ArrayList<>();
+        return timed("cascadeUpdateCollection", null, () -> new TransactionTemplate(transactionManager).execute(status -> {
+            T entityToUpdate, updatedEntity;
+            while(updatedEntitiesIterator.hasNext() && entitiesToUpdateIterator.hasNext()){
+                updatedEntity = updatedEntitiesIterator.next();
+                entityToUpdate = entitiesToUpdateIterator.next();
+                result.add(cascadedUpdateImpl(entityToUpdate, updatedEntity));
             }
-        }
-        return daoMap.get(currentClazz.getSimpleName()).save(toUpdate);
-    }
-
-    private boolean isForeignKey(Field currentField, Object owner) {
-        try{
-            currentField.setAccessible(true);
-            boolean isForeignKey = currentField.isAnnotationPresent(OneToOne.class) ||
-                    currentField.isAnnotationPresent(ManyToOne.class);
-            if(isForeignKey) {
-                if(currentField.get(owner) == null)
-                    currentField.set(owner, defaultInstanceOf(currentField.getType()));
-                return true;
+            batchedFlush();
+            return result;
+        }));
+    }
+
+    /**
+     * Applies the non null field values of each of the given entities to the persisted record
+     * with the same id, as per cascadedUpdate(...). The records are loaded with as few
+     * findAllById(...) queries as the database's bind parameter limit allows, and all
+     * changes are written in a single jdbc batched flush. Entities sharing an id are applied
+     * in the given order, such that the last non null value of each field wins.
+     * @param updated - entities containing their id and the values to update, with all other fields null
+     * @return the updated records, in the same order
+     */
+    public List<T> cascadeUpdateCollection(Iterable<T> updated){
+        final List<T> sources = Lists.newArrayList(updated);
+        if(sources.isEmpty()) return new ArrayList<>();
+        final CachedEntityType entityType = entityType();
+        final int chunkSize = bindParameterLimit.get();
+        return timed("cascadeUpdateCollection", null, () -> new TransactionTemplate(transactionManager).execute(status -> {
+            Map<Object, T> toUpdate = new HashMap<>();
+            //entities sharing an id are applied to the same record, which need only be loaded once
+            List<Object> distinctIds = new ArrayList<>(new LinkedHashSet<>(getIdList(sources, reflectionCache)));
+            for (List<Object> ids : Lists.partition(distinctIds, chunkSize))
+                for (T entity : (List<T>) dao.findAllById(ids))
+                    toUpdate.put(entityType.getId(entity), entity);
+            List<T> result = new ArrayList<>(sources.size());
+            for (T source : sources) {
+                final Object id = entityType.getId(source);
+                T target = toUpdate.get(id);
+                if(target == null) throwEntityNotFoundException(clazzSimpleName, id);
+                result.add(cascadedUpdateImpl(target, source));
             }
-            return false;
-        }catch (Exception e){
-            throw new RuntimeException(e);
-        }
+            batchedFlush();
+            return result;
+        }));
     }
 
-    private Object defaultInstanceOf(Class<?> type) {
-        return reflectionCache.getEntitiesCache().get(type.getSimpleName()).getDefaultInstance();
+    //entities without any changes are neither merged nor flushed
+    private T cascadedUpdateImpl(T toUpdate, T source){
+        if(!cascadeUpdatePlan().apply(toUpdate, source, this::saveNested)) return toUpdate;
+        T result = (T) dao.save(toUpdate);
+        evictEntityFromCache(result);
+        return result;
     }
 
-    private Method getMethodToInvoke(String resolverName, Object instance) {
-        return getMethodToInvoke(resolverName, new Class<?>[]{}, instance);
+    //nested entities are saved before the entity referencing them
+    private Object saveNested(CascadeUpdatePlan plan, Object nested){
+        final CachedEntityType nestedType = plan.getEntityType();
+        Object result = daoMap.get(nestedType.getClazz().getSimpleName()).save(nested);
+        entityCacheRegistry.evict(nestedType.getClazz(), Collections.singletonList(nestedType.getId(result)));
+        return result;
     }
 
-    private Method getMethodToInvoke(String resolverName, Class<?>[] params, Object instance){
-        Method methodToInvoke = reflectionCache.getResolversCache().get(immutableEntry(resolverName, params));
-        if(methodToInvoke == null){
-            try {
-                if(params.length > 0)
-                    methodToInvoke = instance.getClass().getMethod(resolverName, params);
-                else
-                    methodToInvoke = instance.getClass().getMethod(resolverName);
-            } catch (NoSuchMethodException e) {
-                throw new RuntimeException(e);
-            }
-            reflectionCache.getResolversCache().put(immutableEntry(resolverName, params), methodToInvoke);
-        }
-        return methodToInvoke;
+    /**
+     * Hit, miss and eviction counts of the cache of T.
+     * @throws IllegalStateException if T isn't annotated with @Cached
+     */
+    public EntityCacheStats cacheStats(){
+        if(cache == null) throw new IllegalStateException(clazzSimpleName + " is not annotated with @Cached");
+        return cache.stats();
+    }
+
+    //for writes which bypass save(...) and delete(...), i.e. bulk updates
+    protected void evictFromCache(Collection<?> ids){
+        if(cache != null) entityCacheRegistry.evict(clazz, ids);
     }
 
-    private Object invoke(Method method, Object instance, Object... args){
-        try{
-            if(args.length > 0) return method.invoke(instance, args);
-            else return method.invoke(instance);
-        }catch (Exception e){
-            throw new RuntimeException(e);
+    protected void evictAllFromCache(){
+        if(cache != null) entityCacheRegistry.evictAll(clazz);
+    }
+
+    private void evictEntityFromCache(Object entity){
+        if(cache != null) entityCacheRegistry.evict(clazz, Collections.singletonList(entityType().getId(entity)));
+    }
+
+    private void evictEntitiesFromCache(Iterable<? extends T> entities){
+        if(cache == null) return;
+        final CachedEntityType entityType = entityType();
+        List<Object> ids = new ArrayList<>();
+        entities.forEach(entity -> ids.add(entityType.getId(entity)));
+        entityCacheRegistry.evict(clazz, ids);
+    }
+
+    //a single flush for all pending changes, sent to the database in jdbc batches
+    //the session may be that of the caller's transaction, so its batch size is restored once flushed
+    private void batchedFlush(){
+        Session session = entityManager.unwrap(Session.class);
+        final Integer previousBatchSize = session.getJdbcBatchSize();
+        if(previousBatchSize != null || session.getSessionFactory().getSessionFactoryOptions().getJdbcBatchSize() > 1){
+            entityManager.flush();
+            return;
         }
+        session.setJdbcBatchSize(jdbcBatchSize);
+        try {
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    private CascadeUpdatePlan cascadeUpdatePlan(){
+        CascadeUpdatePlan result = cascadeUpdatePlan;
+        if(result == null) cascadeUpdatePlan = result = reflectionCache.getCascadeUpdatePlan(clazz);
+        return result;
     }
 
     public List<Object> idList(Iterable<T> collection) {
         CachedEntityType entityType = reflectionCache.getEntitiesCache().get(clazzSimpleName);
         List<Object> ids = new ArrayList<>();
-        collection.forEach(item -> ids.add(entityType.invokeGetter(item, "id")));
+        collection.forEach(item -> ids.add(entityType.getId(item)));
         return ids;
     }
 
@@ -383,20 +989,279 @@ public abstract class BaseDataManager<T> {
 
     //explicit pagination with sort
     public List<T> fuzzySearchBy(String searchTerm, int offset, int limit, String sortBy, Sort.Direction sortDirection){
-        try{
-            if(searchTerm.equals(""))
-                throw new IllegalArgumentException(
-                        "Illegal attempt to search for " + toPlural(clazzSimpleName) + " with blank string"
-                );
-            validateSortByIfNonNull(clazz, sortBy, reflectionCache);
-            Pageable paginator = generatePageRequest(offset, limit, sortBy, sortDirection);
-            Method methodToInvoke =
-                    getMethodToInvoke("fuzzySearch", new Class<?>[]{String.class, Pageable.class}, dao);
-            Page<T> result = (Page<T>) methodToInvoke.invoke(dao, searchTerm, paginator);
-            return result.getContent();
-        }catch (Exception e){
-            throw new RuntimeException(e);
+        if(searchTerm.equals(""))
+            throw new IllegalArgumentException(
+                    "Illegal attempt to search for " + toPlural(clazzSimpleName) + " with blank string"
+            );
+        validateSortByIfNonNull(clazz, sortBy, reflectionCache);
+        Pageable paginator = generatePageRequest(offset, limit, sortBy, sortDirection);
+        return timed("fuzzySearchBy", null, () -> fuzzySearchPage(searchTerm, paginator).getContent());
+    }
+
+    //overridden by the generated '<entity name>DataManager' with a direct call to its dao
+    protected Page<T> fuzzySearchPage(String searchTerm, Pageable paginator){
+        if(entityType().getFuzzySearchStrategy() == FuzzySearchStrategy.LUCENE)
+            return luceneFuzzySearchPage(searchTerm, paginator);
+        return (Page<T>) daoType.invokeFuzzySearch(dao, searchTerm, paginator);
+    }
+
+    /**
+     * Keyset paginated fuzzy search - results are ordered by id, and each slice continues
+     * from the cursor of the previous one. Issues no count query, and costs the same at any depth.
+     * Not supported by FuzzySearchStrategy.LUCENE.
+     * @param searchTerm - the search term
+     * @param afterCursor - KeysetSlice.getNextCursor() of the previous slice, or null for the first slice
+     * @param limit - the max number of results
+     */
+    public KeysetSlice<T> fuzzySearchBy(String searchTerm, String afterCursor, int limit){
+        if(searchTerm.equals(""))
+            throw new IllegalArgumentException(
+                    "Illegal attempt to search for " + toPlural(clazzSimpleName) + " with blank string"
+            );
+        if(entityType().getFuzzySearchStrategy() == FuzzySearchStrategy.LUCENE)
+            throw new UnsupportedOperationException("Keyset pagination is not supported by FuzzySearchStrategy.LUCENE");
+        if(limit <= 0) throw new IllegalArgumentException("Invalid limit: " + limit);
+        KeysetQueries<T> keyset = keysetQueries();
+        Slice<T> slice = timed("fuzzySearchBy", null, () -> afterCursor == null ?
+                (Slice<T>) daoType.invokeResolver(dao, "fuzzySearchFirst",
+                        new Object[]{searchTerm, PageRequest.of(0, limit)}) :
+                (Slice<T>) daoType.invokeResolver(dao, "fuzzySearchAfter",
+                        new Object[]{searchTerm, KeysetCursor.decode(afterCursor, keyset.idKeyType())[0], PageRequest.of(0, limit)}));
+        if(!slice.hasNext() || slice.getContent().isEmpty()) return new KeysetSlice<>(slice.getContent(), null);
+        T last = slice.getContent().get(slice.getContent().size() - 1);
+        return new KeysetSlice<>(slice.getContent(), KeysetCursor.encode(keyset.idKeyOf(entityType().getId(last))));
+    }
+
+    /**
+     * Keyset paginated findAll, ordered by id.
+     * @param afterCursor - KeysetSlice.getNextCursor() of the previous slice, or null for the first slice
+     * @param limit - the max number of results
+     */
+    public KeysetSlice<T> findAllAfter(String afterCursor, int limit){
+        return findAllAfter(afterCursor, limit, null, Sort.Direction.ASC);
+    }
+
+    //ordered by sortBy, then by id
+    public KeysetSlice<T> findAllAfter(String afterCursor, int limit, String sortBy){
+        return findAllAfter(afterCursor, limit, sortBy, Sort.Direction.ASC);
+    }
+
+    /**
+     * Keyset paginated findAll, ordered by (sortBy, id) in the given direction.
+     * Records with a null sortBy value come last. sortBy should be indexed together
+     * with the id - i.e. 'CREATE INDEX ... ON table (sort_by, id)' - and preferably be non nullable.
+     */
+    public KeysetSlice<T> findAllAfter(String afterCursor, int limit, String sortBy, Sort.Direction sortDirection){
+        validateSortByIfNonNull(clazz, sortBy, reflectionCache);
+        final CachedEntityType entityType = entityType();
+        return timed("findAllAfter", sortBy, () -> keysetQueries().slice(null, afterCursor, limit, sortBy, sortDirection,
+                entityType::getId, entity -> entityType.invokeGetter(entity, sortBy)));
+    }
+
+    private KeysetQueries<T> keysetQueries(){
+        KeysetQueries<T> result = keysetQueries;
+        if(result == null) keysetQueries = result = new KeysetQueries<>(clazz, entityManager);
+        return result;
+    }
+
+    private Page<T> luceneFuzzySearchPage(String searchTerm, Pageable paginator){
+        Page<Object> ids = requireFuzzySearchIndex().searchIds(clazz, searchTerm, paginator);
+        if(ids.getContent().isEmpty()) return new PageImpl<>(new ArrayList<>(), paginator, ids.getTotalElements());
+        //findAllById(...) doesn't preserve the order of the given ids
+        Map<String, T> byId = new HashMap<>();
+        CachedEntityType entityType = entityType();
+        for (T entity : findAllById(ids.getContent()))
+            byId.put(String.valueOf(entityType.getId(entity)), entity);
+        List<T> results = new ArrayList<>(ids.getContent().size());
+        for (Object id : ids.getContent()) {
+            T entity = byId.get(String.valueOf(id));
+            if(entity != null) results.add(entity);
+        }
+        return new PageImpl<>(results, paginator, ids.getTotalElements());
+    }
+
+    /**
+     * Rebuilds the fuzzy search index entries of T from scratch, i.e. upon startup
+     * when using an in memory index. Only applicable to FuzzySearchStrategy.LUCENE.
+     */
+    public void rebuildFuzzySearchIndex(){
+        if(entityType().getFuzzySearchStrategy() != FuzzySearchStrategy.LUCENE)
+            throw new IllegalStateException(clazzSimpleName + " does not use FuzzySearchStrategy.LUCENE");
+        FuzzySearchIndex index = requireFuzzySearchIndex();
+        index.removeAll(clazz);
+        forEachChunk(1000, chunk -> chunk.forEach(index::index));
+    }
+
+    private FuzzySearchIndex requireFuzzySearchIndex(){
+        if(fuzzySearchIndex == null)
+            throw new IllegalStateException(
+                    "FuzzySearchStrategy.LUCENE requires org.apache.lucene:lucene-core on the classpath");
+        return fuzzySearchIndex;
+    }
+
+    private CachedEntityType entityType(){
+        return reflectionCache.getEntitiesCache().get(clazzSimpleName);
+    }
+
+    /**
+     * Runs the given call, and records its duration, the number of records it returned or affected,
+     * and whether it failed - tagged by the simple name of T, the given operation and the given resolver name.
+     * The hottest of the operations below check for metrics == null themselves, such that they needn't
+     * allocate the capturing lambda at all when no metrics are recorded.
+     * @param resolver - the field or resolver name the operation was called with, or null
+     */
+    protected <R> R timed(String operation, String resolver, Supplier<R> call){
+        return timed(operation, resolver, call, BaseDataManager::rowsOf);
+    }
+
+    /**
+     * As per timed(...), for bulk UPDATE and DELETE statements - records the number of records
+     * affected, as returned by the given call.
+     */
+    protected int timedModifying(String operation, String resolver, Supplier<Integer> call){
+        return timed(operation, resolver, call, Integer::longValue);
+    }
+
+    private <R> R timed(String operation, String resolver, Supplier<R> call, ToLongFunction<R> rowsOf){
+        if(metrics == null) return call.get();
+        final long start = System.nanoTime();
+        final R result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            metrics.record(clazzSimpleName, operation, resolver, System.nanoTime() - start, 0, true);
+            throw e;
         }
+        metrics.record(clazzSimpleName, operation, resolver, System.nanoTime() - start, rowsOf.applyAsLong(result), false);
+        return result;
+    }
+
+    protected void timed(String operation, Runnable call){
+        timed(operation, null, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    //-1 where unknown, i.e. for streams, which are yet to be consumed, and for aggregates
+    private static long rowsOf(Object result){
+        if(result == null) return 0;
+        if(result instanceof Collection) return ((Collection<?>) result).size();
+        if(result instanceof Optional) return ((Optional<?>) result).isPresent() ? 1 : 0;
+        if(result instanceof Slice) return ((Slice<?>) result).getNumberOfElements();
+        if(result instanceof KeysetSlice) return ((KeysetSlice<?>) result).getContent().size();
+        if(result instanceof BulkInsertStats) return ((BulkInsertStats) result).getRows();
+        if(result instanceof Stream || result instanceof Number || result instanceof Boolean) return -1;
+        return 1;
+    }
+
+    /*
+     * async variants of the core finders and writers. Each runs on the AsyncDataExecutor within
+     * a transaction of its own - read only for finders - so they neither join the transaction of
+     * the caller nor see its uncommitted changes, and the returned entities are detached.
+     */
+
+    public CompletableFuture<Optional<T>> findByIdAsync(Object id){
+        return readOnlyAsync(() -> findById(id));
+    }
+
+    public CompletableFuture<List<T>> findAllByIdAsync(Iterable<?> ids){
+        return readOnlyAsync(() -> findAllById(ids));
+    }
+
+    public CompletableFuture<List<T>> findAllAsync(Specification<T> specification){
+        return readOnlyAsync(() -> findAll(specification));
+    }
+
+    public CompletableFuture<Page<T>> findAllAsync(Specification<T> specification, Pageable pageable){
+        return readOnlyAsync(() -> findAll(specification, pageable));
+    }
+
+    public CompletableFuture<Long> countAsync(Specification<T> specification){
+        return readOnlyAsync(() -> count(specification));
+    }
+
+    public CompletableFuture<List<T>> getByAsync(String attributeName, Object attributeValue){
+        return readOnlyAsync(() -> getBy(attributeName, attributeValue));
+    }
+
+    public CompletableFuture<Optional<T>> getByUniqueAsync(String attributeName, Object attributeValue){
+        return readOnlyAsync(() -> getByUnique(attributeName, attributeValue));
+    }
+
+    public CompletableFuture<List<T>> getAllByAsync(String attributeName, Object[] attributeValues){
+        return readOnlyAsync(() -> getAllBy(attributeName, attributeValues));
+    }
+
+    public CompletableFuture<List<T>> selectByResolverAsync(String resolverName, Object... args){
+        return readOnlyAsync(() -> selectByResolver(resolverName, args));
+    }
+
+    public <R> CompletableFuture<R> aggregateByResolverAsync(String resolverName, Object... args){
+        return readOnlyAsync(() -> aggregateByResolver(resolverName, args));
+    }
+
+    public <P> CompletableFuture<List<P>> getProjectedByAsync(String attributeName, Object attributeValue){
+        return readOnlyAsync(() -> getProjectedBy(attributeName, attributeValue));
+    }
+
+    public <P> CompletableFuture<List<P>> getAllProjectedByAsync(String attributeName, Object[] attributeValues){
+        return readOnlyAsync(() -> getAllProjectedBy(attributeName, attributeValues));
+    }
+
+    public <P> CompletableFuture<List<P>> selectProjectedByResolverAsync(String resolverName, Object... args){
+        return readOnlyAsync(() -> selectProjectedByResolver(resolverName, args));
+    }
+
+    public CompletableFuture<Integer> updateByResolverAsync(String resolverName, Object... args){
+        return async(() -> updateByResolver(resolverName, args));
+    }
+
+    public CompletableFuture<Integer> deleteByResolverAsync(String resolverName, Object... args){
+        return async(() -> deleteByResolver(resolverName, args));
+    }
+
+    public <S extends T> CompletableFuture<S> saveAsync(S s){
+        return async(() -> save(s));
+    }
+
+    public <S extends T> CompletableFuture<List<S>> saveAllAsync(Iterable<S> iterable){
+        return async(() -> saveAll(iterable));
+    }
+
+    public CompletableFuture<BulkInsertStats> bulkInsertAsync(Collection<? extends T> entities){
+        return async(() -> bulkInsert(entities));
+    }
+
+    public CompletableFuture<Void> deleteAsync(T t){
+        return async(() -> {
+            delete(t);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteAllAsync(Iterable<? extends T> iterable){
+        return async(() -> {
+            deleteAll(iterable);
+            return null;
+        });
+    }
+
+    public CompletableFuture<T> cascadedUpdateAsync(T toUpdate, T source){
+        return async(() -> cascadedUpdate(toUpdate, source));
+    }
+
+    public CompletableFuture<List<T>> cascadeUpdateCollectionAsync(Iterable<T> updated){
+        return async(() -> cascadeUpdateCollection(updated));
+    }
+
+    //runs the given operation as per the async variants above, i.e. to group several calls into a single transaction
+    public <R> CompletableFuture<R> async(Supplier<R> operation){
+        return asyncDataExecutor.supplyAsync(operation, false);
+    }
+
+    protected <R> CompletableFuture<R> readOnlyAsync(Supplier<R> operation){
+        return asyncDataExecutor.supplyAsync(operation, true);
     }
 
 }
@@ -0,0 +1,99 @@
+package org.sindaryn.datafi.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces single key lookups from any number of threads into batched lookups.
+ * Keys are collected until either the window elapses or the batch fills up, at which point
+ * the batch function is called once for all of them on the BatchLoaderExecutor, and the
+ * future of each key is completed with its value - or with Optional.empty() if there's none.
+ */
+class BatchLoader<K, V> {
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final ScheduledExecutorService executor;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    //guarded by this
+    private Map<K, Pending<V>> batch = new LinkedHashMap<>();
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder keyCount = new LongAdder();
+    private final LongAccumulator maxDispatchedBatchSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    BatchLoader(Function<List<K>, Map<K, V>> batchFunction, ScheduledExecutorService executor,
+                long windowMicros, int maxBatchSize) {
+        this.batchFunction = batchFunction;
+        this.executor = executor;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    CompletableFuture<Optional<V>> load(K key) {
+        final Map<K, Pending<V>> toDispatch;
+        final Pending<V> pending;
+        synchronized (this) {
+            //identical keys within the same batch share a single future
+            Pending<V> existing = batch.get(key);
+            if(existing != null) return existing.future;
+            pending = new Pending<>();
+            batch.put(key, pending);
+            if(batch.size() >= maxBatchSize){
+                toDispatch = batch;
+                batch = new LinkedHashMap<>();
+            } else {
+                if(batch.size() == 1) {
+                    final Map<K, Pending<V>> current = batch;
+                    executor.schedule(() -> dispatchIfPending(current), windowMicros, TimeUnit.MICROSECONDS);
+                }
+                toDispatch = null;
+            }
+        }
+        if(toDispatch != null) executor.execute(() -> dispatch(toDispatch));
+        return pending.future;
+    }
+
+    BatchLoaderStats stats() {
+        return new BatchLoaderStats(batchCount.sum(), keyCount.sum(), maxDispatchedBatchSize.get(), totalWaitNanos.sum());
+    }
+
+    //unless the given batch has already filled up and been dispatched
+    private void dispatchIfPending(Map<K, Pending<V>> scheduled) {
+        synchronized (this) {
+            if(batch != scheduled) return;
+            batch = new LinkedHashMap<>();
+        }
+        dispatch(scheduled);
+    }
+
+    private void dispatch(Map<K, Pending<V>> toDispatch) {
+        final long dispatchedAt = System.nanoTime();
+        batchCount.increment();
+        keyCount.add(toDispatch.size());
+        maxDispatchedBatchSize.accumulate(toDispatch.size());
+        toDispatch.values().forEach(pending -> totalWaitNanos.add(dispatchedAt - pending.createdAt));
+        Map<K, V> results;
+        try {
+            results = batchFunction.apply(new ArrayList<>(toDispatch.keySet()));
+        } catch (Throwable throwable) {
+            toDispatch.values().forEach(pending -> pending.future.completeExceptionally(throwable));
+            return;
+        }
+        toDispatch.forEach((key, pending) -> pending.future.complete(Optional.ofNullable(results.get(key))));
+    }
+
+    private static class Pending<V> {
+        private final long createdAt = System.nanoTime();
+        private final CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,59 @@
+package org.sindaryn.datafi.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads on which the batches of DataManager.loadById(...) and loadByUnique(...)
+ * are dispatched, shared by all DataManagers. Threads are only started upon first use.
+ */
+@Component
+public class BatchLoaderExecutor {
+    //how long to collect keys for, before dispatching a batch which hasn't yet filled up
+    @Getter
+    @Value("${datafi.batch-loading.window-micros:2000}")
+    private long windowMicros;
+    //0 means as many keys as the database's bind parameter limit allows
+    @Value("${datafi.batch-loading.max-batch-size:0}")
+    private int maxBatchSize;
+    @Value("${datafi.batch-loading.threads:4}")
+    private int threads;
+    private volatile ScheduledExecutorService executor;
+
+    public int getMaxBatchSize(BindParameterLimit bindParameterLimit) {
+        return maxBatchSize > 0 ? maxBatchSize : bindParameterLimit.get();
+    }
+
+    public ScheduledExecutorService get() {
+        ScheduledExecutorService result = executor;
+        if(result != null) return result;
+        synchronized (this) {
+            if(executor == null) executor = newExecutor();
+            return executor;
+        }
+    }
+
+    private ScheduledExecutorService newExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "datafi-batch-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(Math.max(1, threads), threadFactory);
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if(executor != null) executor.shutdown();
+    }
+}
@@ -0,0 +1,27 @@
+package org.sindaryn.datafi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BatchLoaderStats {
+    private final long batchCount;
+    //keys passed to loadById(...) / loadByUnique(...), excluding those coalesced with an already pending identical key
+    private final long keyCount;
+    private final long maxBatchSize;
+    //the time between each key being passed in and its batch being dispatched, summed up
+    private final long totalWaitNanos;
+
+    public double averageBatchSize() {
+        return batchCount == 0 ? 0 : (double) keyCount / batchCount;
+    }
+
+    public double averageWaitMillis() {
+        return keyCount == 0 ? 0 : (double) totalWaitNanos / keyCount / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,52 @@
+package org.sindaryn.datafi.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The max number of bind parameters which can safely be passed to a single statement -
+ * i.e. the max number of ids within a single 'WHERE id IN :ids' clause.
+ * Can be set explicitly via the 'datafi.max-bind-parameters' property,
+ * otherwise resolved according to the database in use.
+ */
+@Component
+public class BindParameterLimit {
+    private static final int DEFAULT_LIMIT = 1000;
+
+    @Value("${datafi.max-bind-parameters:0}")
+    private int configuredLimit;
+    @Autowired
+    private DataSource dataSource;
+    private volatile int limit;
+
+    public int get() {
+        if(limit == 0) limit = configuredLimit > 0 ? configuredLimit : resolveLimit();
+        return limit;
+    }
+
+    private int resolveLimit() {
+        try (Connection connection = dataSource.getConnection()) {
+            return limitOf(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+
+    static int limitOf(String databaseProductName) {
+        if(databaseProductName == null) return DEFAULT_LIMIT;
+        String name = databaseProductName.toLowerCase();
+        if(name.contains("postgres")) return 32767;
+        if(name.contains("mysql") || name.contains("mariadb")) return 65535;
+        if(name.contains("microsoft sql server")) return 2100;
+        if(name.contains("sqlite")) return 999;
+        //oracle doesn't allow for more than 1000 expressions within a single IN list
+        if(name.contains("oracle")) return 1000;
+        if(name.contains("h2") || name.contains("hsql") || name.contains("db2")) return 32767;
+        return DEFAULT_LIMIT;
+    }
+}
@@ -0,0 +1,20 @@
+package org.sindaryn.datafi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkInsertStats {
+    private final long rows;
+    //from the first record being taken off the stream until the last chunk was written - and committed, unless joining the caller's transaction
+    private final long durationNanos;
+
+    public double rowsPerSecond() {
+        return durationNanos == 0 ? 0 : (double) rows * TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+}
@@ -0,0 +1,319 @@
+package org.sindaryn.datafi.service;
+
+import com.google.common.collect.Lists;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.sindaryn.datafi.persistence.BasePersistableEntity;
+import org.sindaryn.datafi.persistence.IdFactory;
+import org.sindaryn.datafi.persistence.SimpleId;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+import org.sindaryn.datafi.reflection.CachedEntityType;
+
+import javax.persistence.EntityManager;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+
+import static org.sindaryn.datafi.service.CollectionAssociation.placeholdersOf;
+
+/**
+ * Inserts new records directly via jdbc - bypassing the persistence context, and with it the
+ * select-before-insert of JpaRepository.saveAll(...). Resolved from hibernate's entity persister
+ * of the given type, with the property values read via its CachedEntityType:
+ *  - PostgreSQL - 'COPY ... FROM STDIN', if the driver is on the classpath and all values can be written as csv.
+ *  - Oracle - batched single row inserts.
+ *  - otherwise - batched multi row inserts, i.e. 'INSERT INTO ... VALUES (?, ?), (?, ?)'.
+ * Only applicable to entities mapped to a single table, outside of any inheritance hierarchy.
+ */
+class BulkInserter {
+    //sql server doesn't allow for more than 1000 rows within a single VALUES list
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    //org.postgresql.PGConnection, its getCopyAPI() and CopyManager.copyIn(String, Reader) - null if the driver isn't on the classpath
+    private static final Class<?> PG_CONNECTION;
+    private static final Method GET_COPY_API;
+    private static final Method COPY_IN;
+
+    static {
+        Class<?> pgConnection = null;
+        Method getCopyApi = null, copyIn = null;
+        try {
+            ClassLoader classLoader = BulkInserter.class.getClassLoader();
+            pgConnection = Class.forName("org.postgresql.PGConnection", false, classLoader);
+            getCopyApi = pgConnection.getMethod("getCopyAPI");
+            copyIn = Class.forName("org.postgresql.copy.CopyManager", false, classLoader)
+                    .getMethod("copyIn", String.class, Reader.class);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            pgConnection = null;
+        }
+        PG_CONNECTION = pgConnection;
+        GET_COPY_API = getCopyApi;
+        COPY_IN = copyIn;
+    }
+
+    private final AbstractEntityPersister persister;
+    private final CachedEntityType entityType;
+    private final String[] columns;
+    //indexes of the persistent properties written after the id, and the number of columns each spans
+    private final int[] properties;
+    private final int[] columnSpans;
+    //whether each of the above is read via the CachedEntityType, rather than via hibernate
+    private final boolean[] isCachedField;
+    //set upon the first value which can't be written as csv, i.e. a lob
+    private volatile boolean isCsvIncompatible;
+
+    private BulkInserter(AbstractEntityPersister persister, CachedEntityType entityType,
+                         String[] columns, int[] properties, int[] columnSpans) {
+        this.persister = persister;
+        this.entityType = entityType;
+        this.columns = columns;
+        this.properties = properties;
+        this.columnSpans = columnSpans;
+        this.isCachedField = new boolean[properties.length];
+        for (int i = 0; i < properties.length; i++)
+            isCachedField[i] = entityType.getFields().containsKey(persister.getPropertyNames()[properties[i]]);
+    }
+
+    static BulkInserter of(EntityManager entityManager, Class<?> type, CachedEntityType entityType) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersister(type);
+        if(!(entityPersister instanceof AbstractEntityPersister))
+            throw new UnsupportedOperationException("bulkInsert(...) isn't applicable to " + type.getSimpleName());
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityPersister;
+        if(persister.isMultiTable() || persister.getEntityMetamodel().isInherited() || persister.getEntityMetamodel().hasSubclasses())
+            throw new UnsupportedOperationException("bulkInsert(...) is only applicable to entities mapped to a single table, " +
+                    "outside of any inheritance hierarchy - which " + type.getSimpleName() + " isn't");
+        List<String> columns = new ArrayList<>(Arrays.asList(persister.getIdentifierColumnNames()));
+        List<Integer> properties = new ArrayList<>();
+        List<Integer> columnSpans = new ArrayList<>();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < types.length; i++) {
+            String[] propertyColumns = persister.getPropertyColumnNames(i);
+            //collections, formulas, and the inverse side of one to one associations aren't written to this table
+            if(!persister.getPropertyInsertability()[i] || types[i].isCollectionType() ||
+                    propertyColumns.length == 0 || Arrays.asList(propertyColumns).contains(null)) continue;
+            columns.addAll(Arrays.asList(propertyColumns));
+            properties.add(i);
+            columnSpans.add(propertyColumns.length);
+        }
+        return new BulkInserter(persister, entityType, columns.toArray(new String[0]),
+                properties.stream().mapToInt(Integer::intValue).toArray(),
+                columnSpans.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Assigns the ids and versions of the given records, and writes them in as few round trips as possible.
+     * @param maxBindParameters - bounds the number of rows per multi row insert
+     * @param batchSize - the number of insert statements per jdbc batch
+     * @param copy - whether to use 'COPY ... FROM STDIN' where applicable
+     * @return the number of rows inserted
+     */
+    long insert(EntityManager entityManager, List<?> entities, int maxBindParameters, int batchSize, boolean copy) {
+        //pending inserts of referenced records must precede these
+        entityManager.flush();
+        final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        prepare(entities, session);
+        return session.doReturningWork(connection -> {
+            String database = String.valueOf(connection.getMetaData().getDatabaseProductName()).toLowerCase();
+            if(copy && database.contains("postgres")){
+                Long copied = copy(connection, entities, session);
+                if(copied != null) return copied;
+            }
+            return insertBatched(connection, entities, rowsPerStatementOf(database, maxBindParameters, columns.length),
+                    batchSize, session);
+        });
+    }
+
+    //as many rows as the bind parameter limit allows for, bar oracle, which doesn't support multi row VALUES lists
+    static int rowsPerStatementOf(String database, int maxBindParameters, int columnCount) {
+        if(database.contains("oracle")) return 1;
+        return Math.max(1, Math.min(MAX_ROWS_PER_STATEMENT, maxBindParameters / columnCount));
+    }
+
+    //as persist(...) would - save for @PrePersist callbacks and entity listeners other than BasePersistableEntity.init()
+    private void prepare(List<?> entities, SessionImplementor session) {
+        reserveIds(entities);
+        for (Object entity : entities) {
+            if(entity instanceof BasePersistableEntity) ((BasePersistableEntity<?>) entity).init();
+            if(persister.getIdentifier(entity, session) == null) generateId(entity, session);
+            if(persister.isVersioned() && persister.getVersion(entity) == null)
+                persister.setPropertyValue(entity, persister.getVersionProperty(), persister.getVersionType().seed(session));
+        }
+    }
+
+    //a single IdFactory.getNextIds(n) for all StandardPersistableEntity records yet to be assigned an id
+    private static void reserveIds(List<?> entities) {
+        List<StandardPersistableEntity> unassigned = new ArrayList<>();
+        for (Object entity : entities) {
+            if(!(entity instanceof StandardPersistableEntity)) continue;
+            SimpleId id = ((StandardPersistableEntity) entity).getId();
+            if(id == null || id.getId() == null) unassigned.add((StandardPersistableEntity) entity);
+        }
+        int maxBatchSize = (int) Math.min(Integer.MAX_VALUE, IdFactory.maxBatchSize());
+        for (List<StandardPersistableEntity> batch : Lists.partition(unassigned, maxBatchSize)) {
+            long[] ids = IdFactory.getNextIds(batch.size());
+            for (int i = 0; i < ids.length; i++) batch.get(i).initId(ids[i]);
+        }
+    }
+
+    private void generateId(Object entity, SessionImplementor session) {
+        IdentifierGenerator generator = persister.getIdentifierGenerator();
+        if(generator instanceof PostInsertIdentifierGenerator)
+            throw new UnsupportedOperationException("bulkInsert(...) isn't applicable to database generated (identity) ids, " +
+                    "as used by " + persister.getMappedClass().getSimpleName());
+        persister.setIdentifier(entity, generator.generate(session, entity), session);
+    }
+
+    private long insertBatched(Connection connection, List<?> entities, int rowsPerStatement,
+                               int batchSize, SessionImplementor session) throws SQLException {
+        long result = 0;
+        final int remainder = entities.size() % rowsPerStatement;
+        final List<?> fullStatements = entities.subList(0, entities.size() - remainder);
+        if(!fullStatements.isEmpty())
+            try (PreparedStatement statement = connection.prepareStatement(insertOf(rowsPerStatement))) {
+                int pending = 0;
+                for (List<?> rows : Lists.partition(fullStatements, rowsPerStatement)) {
+                    bind(statement, rows, session);
+                    statement.addBatch();
+                    if(++pending < batchSize) continue;
+                    result += rowCountOf(statement.executeBatch(), rowsPerStatement);
+                    pending = 0;
+                }
+                if(pending > 0) result += rowCountOf(statement.executeBatch(), rowsPerStatement);
+            }
+        if(remainder > 0)
+            try (PreparedStatement statement = connection.prepareStatement(insertOf(remainder))) {
+                bind(statement, entities.subList(entities.size() - remainder, entities.size()), session);
+                result += statement.executeUpdate();
+            }
+        return result;
+    }
+
+    //null if the driver isn't on the classpath, or if any of the values can't be written as csv
+    private Long copy(Connection connection, List<?> entities, SessionImplementor session) throws SQLException {
+        if(isCsvIncompatible || PG_CONNECTION == null || !connection.isWrapperFor(PG_CONNECTION)) return null;
+        final ValueRecorder recorder = new ValueRecorder(columns.length);
+        final PreparedStatement recordingStatement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, recorder);
+        StringBuilder csv = new StringBuilder();
+        try {
+            for (Object entity : entities) {
+                bind(recordingStatement, entity, 1, session);
+                for (int i = 0; i < recorder.values.length; i++) {
+                    if(i > 0) csv.append(',');
+                    appendCsv(csv, recorder.values[i]);
+                }
+                csv.append('\n');
+            }
+        } catch (UnsupportedOperationException e) {
+            isCsvIncompatible = true;
+            return null;
+        }
+        try {
+            Object copyApi = GET_COPY_API.invoke(connection.unwrap(PG_CONNECTION));
+            return (Long) COPY_IN.invoke(copyApi, "COPY " + persister.getTableName() + " (" + String.join(", ", columns) +
+                    ") FROM STDIN WITH (FORMAT csv)", new StringReader(csv.toString()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            if(e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    private String insertOf(int rows) {
+        String row = "(" + placeholdersOf(columns.length) + ")";
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(persister.getTableName())
+                .append(" (").append(String.join(", ", columns)).append(") VALUES ").append(row);
+        for (int i = 1; i < rows; i++) sql.append(", ").append(row);
+        return sql.toString();
+    }
+
+    private void bind(PreparedStatement statement, List<?> rows, SessionImplementor session) throws SQLException {
+        int index = 1;
+        for (Object entity : rows) index = bind(statement, entity, index, session);
+    }
+
+    //binds the id, followed by each of the written properties, of the given record - returns the index of the following parameter
+    private int bind(PreparedStatement statement, Object entity, int index, SessionImplementor session) throws SQLException {
+        persister.getIdentifierType().nullSafeSet(statement, persister.getIdentifier(entity, session), index, session);
+        index += persister.getIdentifierColumnNames().length;
+        final Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < properties.length; i++) {
+            Object value = isCachedField[i] ?
+                    entityType.invokeGetter(entity, persister.getPropertyNames()[properties[i]]) :
+                    persister.getPropertyValue(entity, properties[i]);
+            types[properties[i]].nullSafeSet(statement, value, index, session);
+            index += columnSpans[i];
+        }
+        return index;
+    }
+
+    //an unquoted empty value is read as null, so strings are always quoted
+    static void appendCsv(StringBuilder csv, Object value) {
+        if(value == null) return;
+        if(value instanceof BigDecimal) csv.append(((BigDecimal) value).toPlainString());
+        else if(value instanceof Number || value instanceof Boolean) csv.append(value);
+        //with the jvm's offset, as the driver would bind them - rather than being read in the session's time zone
+        else if(value instanceof java.sql.Timestamp)
+            csv.append(OffsetDateTime.ofInstant(((java.sql.Timestamp) value).toInstant(), ZoneId.systemDefault()));
+        //dates and times of day have no offset to begin with
+        else if(value instanceof java.sql.Date) csv.append(((java.sql.Date) value).toLocalDate());
+        else if(value instanceof java.sql.Time) csv.append(((java.sql.Time) value).toLocalTime());
+        else if(value instanceof String || value instanceof Character || value instanceof UUID)
+            csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        else if(value instanceof byte[]){
+            csv.append("\\x");
+            for (byte b : (byte[]) value) csv.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        else throw new UnsupportedOperationException("Can't write " + value.getClass().getName() + " as csv");
+    }
+
+    private static long rowCountOf(int[] updateCounts, int rowsPerStatement) {
+        long result = 0;
+        for (int updateCount : updateCounts)
+            result += updateCount == Statement.SUCCESS_NO_INFO ? rowsPerStatement : Math.max(updateCount, 0);
+        return result;
+    }
+
+    //stands in for a PreparedStatement, capturing the values hibernate binds to it rather than sending them
+    private static class ValueRecorder implements InvocationHandler {
+        private final Object[] values;
+
+        private ValueRecorder(int parameterCount) {
+            this.values = new Object[parameterCount];
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if(method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+            //i.e. setLong(index, value), setNull(index, sqlType) - but not setTimestamp(index, value, calendar),
+            //as a value bound in a time zone other than the jvm's can't be written as is
+            if(method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer &&
+                    !(args[args.length - 1] instanceof Calendar)){
+                values[(Integer) args[0] - 1] = method.getName().equals("setNull") ? null : args[1];
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
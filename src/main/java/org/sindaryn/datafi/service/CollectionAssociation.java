@@ -0,0 +1,241 @@
+package org.sindaryn.datafi.service;
+
+import com.google.common.collect.Lists;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.type.SetType;
+import org.hibernate.type.Type;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes a collection valued association directly - via its foreign key or its join table -
+ * without loading the collection itself. Resolved from hibernate's collection persister
+ * of the given owner type and field:
+ *  - @OneToMany(mappedBy = ...) - a bulk jpql update of the owning @ManyToOne attribute.
+ *  - @OneToMany with a @JoinColumn - batched updates of the foreign key column(s).
+ *  - @ManyToMany, or @OneToMany with a join table - batched join table inserts / deletes.
+ *    Elements of a Set which are already within the join table are skipped, as adding them to the Set would.
+ */
+class CollectionAssociation {
+    private final AbstractCollectionPersister persister;
+    //the owning attribute of the element type, for @OneToMany(mappedBy = ...)
+    private final String mappedBy;
+    private final String elementEntityName;
+    private final String elementIdName;
+
+    private CollectionAssociation(AbstractCollectionPersister persister, String mappedBy, String elementEntityName) {
+        this.persister = persister;
+        this.mappedBy = mappedBy;
+        this.elementEntityName = elementEntityName;
+        this.elementIdName = persister.getElementPersister().getIdentifierPropertyName();
+    }
+
+    /**
+     * @return null if the association can't be written directly - i.e. ordered lists and maps,
+     * the index of which can only be maintained by way of the collection itself
+     */
+    static CollectionAssociation of(EntityManager entityManager, Class<?> ownerType, Field field) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        AbstractCollectionPersister persister = null;
+        //the role is named after the entity declaring the field
+        for (Class<?> type = ownerType; type != null && persister == null; type = type.getSuperclass())
+            persister = collectionPersisterOf(sessionFactory, type.getName() + "." + field.getName());
+        if(persister == null)
+            throw new IllegalArgumentException("No collection valued association named " + field.getName() +
+                    " in " + ownerType.getSimpleName());
+        if(persister.hasIndex() || !persister.getElementType().isEntityType()) return null;
+        //resolved from the persister rather than from @OneToMany, such that property access mappings are seen as well
+        String mappedBy = persister.isInverse() && persister.isOneToMany() && persister.getMappedByProperty() != null ?
+                persister.getMappedByProperty() : "";
+        String elementEntityName = entityManager.getMetamodel()
+                .entity(persister.getElementPersister().getMappedClass()).getName();
+        return new CollectionAssociation(persister, mappedBy, elementEntityName);
+    }
+
+    boolean isMappedBy() {
+        return !mappedBy.isEmpty();
+    }
+
+    String getMappedBy() {
+        return mappedBy;
+    }
+
+    int attach(EntityManager entityManager, Object ownerId, List<?> elementIds, int chunkSize, int batchSize) {
+        int result;
+        if(isMappedBy())
+            result = updateMappedBy(entityManager,
+                    "UPDATE " + elementEntityName + " e SET e." + mappedBy + " = :owner " +
+                            "WHERE e." + elementIdName + " IN :ids", ownerId, elementIds, chunkSize);
+        else if(persister.isOneToMany())
+            result = executeBatch(entityManager,
+                    "UPDATE " + persister.getTableName() +
+                            " SET " + conditionOf(persister.getKeyColumnNames(), ", ") +
+                            " WHERE " + conditionOf(persister.getElementColumnNames(), " AND "),
+                    ownerId, elementIds, batchSize);
+        else
+            result = executeBatch(entityManager,
+                    "INSERT INTO " + persister.getTableName() + " (" +
+                            String.join(", ", persister.getKeyColumnNames()) + ", " +
+                            String.join(", ", persister.getElementColumnNames()) + ") VALUES (" +
+                            placeholdersOf(persister.getKeyColumnNames().length + persister.getElementColumnNames().length) + ")",
+                    ownerId, absentElementIdsOf(entityManager, ownerId, elementIds, chunkSize), batchSize);
+        evictCachedCollection(entityManager, ownerId);
+        return result;
+    }
+
+    int detach(EntityManager entityManager, Object ownerId, List<?> elementIds, int chunkSize, int batchSize) {
+        int result;
+        if(isMappedBy())
+            result = updateMappedBy(entityManager,
+                    "UPDATE " + elementEntityName + " e SET e." + mappedBy + " = NULL " +
+                            "WHERE e." + mappedBy + " = :owner AND e." + elementIdName + " IN :ids", ownerId, elementIds, chunkSize);
+        else if(persister.isOneToMany())
+            result = executeBatch(entityManager,
+                    "UPDATE " + persister.getTableName() +
+                            " SET " + String.join(" = NULL, ", persister.getKeyColumnNames()) + " = NULL" +
+                            " WHERE " + conditionOf(persister.getKeyColumnNames(), " AND ") +
+                            " AND " + conditionOf(persister.getElementColumnNames(), " AND "),
+                    ownerId, elementIds, batchSize);
+        else
+            result = executeBatch(entityManager,
+                    "DELETE FROM " + persister.getTableName() +
+                            " WHERE " + conditionOf(persister.getKeyColumnNames(), " AND ") +
+                            " AND " + conditionOf(persister.getElementColumnNames(), " AND "),
+                    ownerId, elementIds, batchSize);
+        evictCachedCollection(entityManager, ownerId);
+        return result;
+    }
+
+    private int updateMappedBy(EntityManager entityManager, String query, Object ownerId, List<?> elementIds, int chunkSize) {
+        Object owner = entityManager.getReference(persister.getOwnerEntityPersister().getMappedClass(), ownerId);
+        int result = 0;
+        for (List<?> ids : Lists.partition(elementIds, chunkSize))
+            result += entityManager.createQuery(query)
+                    .setParameter("owner", owner)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        return result;
+    }
+
+    //binds the owner's id, followed by the element's id, to each statement of the batch
+    private int executeBatch(EntityManager entityManager, String sql, Object ownerId, List<?> elementIds, int batchSize) {
+        //pending inserts of the elements themselves must precede their association
+        entityManager.flush();
+        final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        final Type keyType = persister.getKeyType();
+        final Type elementIdType = persister.getElementPersister().getIdentifierType();
+        final int elementIdIndex = 1 + persister.getKeyColumnNames().length;
+        return session.doReturningWork(connection -> {
+            int result = 0, pending = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Object elementId : elementIds) {
+                    keyType.nullSafeSet(statement, ownerId, 1, session);
+                    elementIdType.nullSafeSet(statement, elementId, elementIdIndex, session);
+                    statement.addBatch();
+                    if(++pending < batchSize) continue;
+                    result += updateCountOf(statement.executeBatch());
+                    pending = 0;
+                }
+                if(pending > 0) result += updateCountOf(statement.executeBatch());
+            }
+            return result;
+        });
+    }
+
+    /*
+     * a Set's join table holds each element once - typically by way of its primary key - so the elements already
+     * within it are filtered out, with a single select per chunk. Bags (unindexed lists) may hold duplicates,
+     * and are written as given.
+     */
+    private List<?> absentElementIdsOf(EntityManager entityManager, Object ownerId, List<?> elementIds, int chunkSize) {
+        if(!(persister.getCollectionType() instanceof SetType)) return elementIds;
+        entityManager.flush();
+        final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        final Type keyType = persister.getKeyType();
+        final Type elementIdType = persister.getElementPersister().getIdentifierType();
+        final String[] keyColumns = persister.getKeyColumnNames();
+        final String[] elementColumns = persister.getElementColumnNames();
+        final String[] elementAliases = new String[elementColumns.length];
+        for (int i = 0; i < elementColumns.length; i++) elementAliases[i] = "element_" + i;
+        final int elementsPerQuery = Math.max(1, (chunkSize - keyColumns.length) / elementColumns.length);
+        final Set<Object> absent = new LinkedHashSet<>(elementIds);
+        return session.doReturningWork(connection -> {
+            for (List<Object> chunk : Lists.partition(new ArrayList<>(absent), elementsPerQuery)) {
+                StringBuilder sql = new StringBuilder("SELECT ");
+                for (int i = 0; i < elementColumns.length; i++)
+                    sql.append(i == 0 ? "" : ", ").append(elementColumns[i]).append(" AS ").append(elementAliases[i]);
+                sql.append(" FROM ").append(persister.getTableName())
+                        .append(" WHERE ").append(conditionOf(keyColumns, " AND "))
+                        .append(" AND (").append(elementConditionOf(chunk.size())).append(")");
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    keyType.nullSafeSet(statement, ownerId, 1, session);
+                    int index = 1 + keyColumns.length;
+                    for (Object elementId : chunk) {
+                        elementIdType.nullSafeSet(statement, elementId, index, session);
+                        index += elementColumns.length;
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next())
+                            absent.remove(elementIdType.nullSafeGet(resultSet, elementAliases, session, null));
+                    }
+                }
+            }
+            return new ArrayList<>(absent);
+        });
+    }
+
+    //i.e. 'element_id IN (?, ?)', or '(a = ? AND b = ?) OR (a = ? AND b = ?)' for composite element ids
+    private String elementConditionOf(int count) {
+        String[] columns = persister.getElementColumnNames();
+        if(columns.length == 1) return columns[0] + " IN (" + placeholdersOf(count) + ")";
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            result.append(i == 0 ? "" : " OR ").append("(").append(conditionOf(columns, " AND ")).append(")");
+        return result.toString();
+    }
+
+    private void evictCachedCollection(EntityManager entityManager, Object ownerId) {
+        if(persister.hasCache() && ownerId instanceof Serializable)
+            entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getCache().evictCollectionData(persister.getRole(), (Serializable) ownerId);
+    }
+
+    private static AbstractCollectionPersister collectionPersisterOf(SessionFactoryImplementor sessionFactory, String role) {
+        try {
+            CollectionPersister persister = sessionFactory.getMetamodel().collectionPersister(role);
+            return persister instanceof AbstractCollectionPersister ? (AbstractCollectionPersister) persister : null;
+        } catch (MappingException e) {
+            return null;
+        }
+    }
+
+    private static String conditionOf(String[] columns, String delimiter) {
+        return String.join(" = ?" + delimiter, columns) + " = ?";
+    }
+
+    static String placeholdersOf(int count) {
+        StringBuilder result = new StringBuilder("?");
+        for (int i = 1; i < count; i++) result.append(", ?");
+        return result.toString();
+    }
+
+    private static int updateCountOf(int[] updateCounts) {
+        int result = 0;
+        for (int updateCount : updateCounts)
+            result += updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+        return result;
+    }
+}
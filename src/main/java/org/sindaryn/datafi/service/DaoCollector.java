@@ -1,11 +1,17 @@
 package org.sindaryn.datafi.service;
 
 import lombok.Getter;
+import lombok.val;
 import org.sindaryn.datafi.persistence.GenericDao;
+import org.springframework.aop.framework.Advised;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -13,4 +19,55 @@ public class DaoCollector {
     @Autowired
     @Getter
     private List<? extends GenericDao> daos;
+    /**
+     * each data access object - or 'dao' - mapped to the simple name of its entity.
+     * Built once, and shared by all DataManagers.
+     */
+    private volatile Map<String, GenericDao> daosByEntityName;
+    private volatile Map<GenericDao, Class<?>> daoInterfaces;
+
+    public Map<String, GenericDao> getDaosByEntityName() {
+        if(daosByEntityName == null) mapDaos();
+        return daosByEntityName;
+    }
+
+    //the autogenerated '<entity name>Dao' interface implemented by the given dao
+    public Class<?> daoInterfaceOf(GenericDao dao) {
+        if(daoInterfaces == null) mapDaos();
+        return daoInterfaces.get(dao);
+    }
+
+    private synchronized void mapDaos() {
+        if(daosByEntityName != null) return;
+        Map<String, GenericDao> byEntityName = new HashMap<>();
+        Map<GenericDao, Class<?>> interfaces = new IdentityHashMap<>();
+        daos.forEach(dao -> {
+            Class<?> daoInterface = extractDaoInterface(dao);
+            if(daoInterface == null) return;
+            interfaces.put(dao, daoInterface);
+            String entityName = extractEntityName(daoInterface);
+            if(entityName != null)
+                byEntityName.put(entityName, dao);
+        });
+        daoInterfaces = Collections.unmodifiableMap(interfaces);
+        daosByEntityName = Collections.unmodifiableMap(byEntityName);
+    }
+
+    private static String extractEntityName(Class<?> daoInterface) {
+        String daoName = daoInterface.getSimpleName();
+        int endIndex = daoName.indexOf("Dao");
+        return endIndex != -1 ? daoName.substring(0, endIndex) : null;
+    }
+
+    //spring framework instantiates proxies for each autowired instance.
+    //if we want the actual name of the actual bean, we need to
+    //'deproxy' the instance.
+    private static Class<?> extractDaoInterface(GenericDao dao) {
+        val interfaces = ((Advised)dao).getProxiedInterfaces();
+        for(Class<?> interface_ : interfaces){
+            if(interface_.getSimpleName().contains("Dao"))
+                return interface_;
+        }
+        return null;
+    }
 }
@@ -0,0 +1,46 @@
+package org.sindaryn.datafi.service;
+
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the key values of the last row of a KeysetSlice as an opaque, url safe cursor string.
+ * Values are stored as plain strings and converted back to the types of the respective
+ * attributes upon decoding - cursors are client supplied, so nothing is ever deserialized.
+ * Each value is prefixed with VALUE, while null values are written as an empty string.
+ */
+class KeysetCursor {
+    private static final String SEPARATOR = "\u001F";
+    private static final String VALUE = "=";
+    private static final DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+
+    static String encode(Object... values) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if(i > 0) result.append(SEPARATOR);
+            if(values[i] != null) result.append(VALUE).append(conversionService.convert(values[i], String.class));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Object[] decode(String cursor, Class<?>... types) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = decoded.split(SEPARATOR, -1);
+            if(values.length != types.length) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            Object[] result = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if(values[i].isEmpty()) continue;
+                if(!values[i].startsWith(VALUE)) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+                result[i] = conversionService.convert(values[i].substring(VALUE.length()), types[i]);
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.sindaryn.datafi.service;
+
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.EmbeddableType;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over a single entity type: rows are ordered by
+ * (sortBy, id) and each page continues from the key of the last row of the
+ * previous one - 'WHERE sortBy > :k OR (sortBy = :k AND id > :id)' - rather than
+ * from an offset. Ids must either be basic, or embeddables of a single attribute
+ * (i.e. SimpleId). Null sortBy values are ordered last in either direction - for
+ * nullable sortBy attributes, the query is amended with the respective IS NULL branches.
+ */
+@SuppressWarnings("unchecked")
+class KeysetQueries<T> {
+    private final Class<T> clazz;
+    private final EntityManager entityManager;
+    private final SingularAttribute<? super T, ?> idAttribute;
+    //the single attribute of an embedded id, null if the id is a basic type
+    private final SingularAttribute<?, ?> embeddedIdAttribute;
+
+    KeysetQueries(Class<T> clazz, EntityManager entityManager) {
+        this.clazz = clazz;
+        this.entityManager = entityManager;
+        EntityType<T> entityType = entityManager.getMetamodel().entity(clazz);
+        if(!entityType.hasSingleIdAttribute())
+            throw new UnsupportedOperationException("Keyset pagination requires a single id attribute, which "
+                    + clazz.getSimpleName() + " does not have");
+        this.idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+        if(entityType.getIdType().getPersistenceType() == Type.PersistenceType.EMBEDDABLE){
+            EmbeddableType<?> idType = entityManager.getMetamodel().embeddable(entityType.getIdType().getJavaType());
+            if(idType.getSingularAttributes().size() != 1)
+                throw new UnsupportedOperationException("Keyset pagination does not support the composite id of "
+                        + clazz.getSimpleName());
+            this.embeddedIdAttribute = idType.getSingularAttributes().iterator().next();
+        } else
+            this.embeddedIdAttribute = null;
+    }
+
+    //the type of the (innermost) id value the rows are ordered by
+    Class<?> idKeyType() {
+        return embeddedIdAttribute != null ? embeddedIdAttribute.getJavaType() : idAttribute.getJavaType();
+    }
+
+    //the (innermost) id value of the given id
+    Object idKeyOf(Object id) {
+        return embeddedIdAttribute != null ? valueOf(embeddedIdAttribute.getJavaMember(), id) : id;
+    }
+
+    /**
+     * @param where - an additional condition, may be null
+     * @param cursor - the cursor of the previous slice, or null for the first one
+     * @param limit - the max number of rows
+     * @param sortBy - the attribute to order by (before the id), or null to order by id only
+     * @param direction - the ordering direction
+     * @param getId - resolves the id of an entity
+     * @param getSortKey - resolves the sortBy value of an entity
+     */
+    KeysetSlice<T> slice(Function<Root<T>, Predicate> where, String cursor, int limit, String sortBy, Sort.Direction direction,
+                         Function<T, Object> getId, Function<T, Object> getSortKey) {
+        if(limit <= 0) throw new IllegalArgumentException("Invalid limit: " + limit);
+        final boolean ascending = direction == null || direction.isAscending();
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(clazz);
+        Root<T> root = query.from(clazz);
+        Path<Comparable<Object>> idPath = idPathOf(root);
+        Path<Comparable<Object>> sortPath = sortBy != null ? root.get(sortBy) : null;
+        final boolean nullable = sortBy != null && isNullable(sortBy);
+
+        List<Predicate> conditions = new ArrayList<>();
+        if(where != null) conditions.add(where.apply(root));
+        if(cursor != null){
+            if(sortPath == null){
+                Comparable<Object> afterId = (Comparable<Object>) KeysetCursor.decode(cursor, idKeyType())[0];
+                conditions.add(after(criteriaBuilder, idPath, afterId, ascending));
+            } else {
+                Object[] key = KeysetCursor.decode(cursor, sortPath.getJavaType(), idKeyType());
+                Comparable<Object> afterSortKey = (Comparable<Object>) key[0];
+                Comparable<Object> afterId = (Comparable<Object>) key[1];
+                if(afterSortKey == null){
+                    //the previous slice ended among the trailing null sortBy values
+                    conditions.add(criteriaBuilder.and(
+                            criteriaBuilder.isNull(sortPath),
+                            after(criteriaBuilder, idPath, afterId, ascending)));
+                } else {
+                    Predicate afterKey = criteriaBuilder.or(
+                            after(criteriaBuilder, sortPath, afterSortKey, ascending),
+                            criteriaBuilder.and(
+                                    criteriaBuilder.equal(sortPath, afterSortKey),
+                                    after(criteriaBuilder, idPath, afterId, ascending)));
+                    //comparisons never match nulls, which follow all other values
+                    conditions.add(nullable ? criteriaBuilder.or(afterKey, criteriaBuilder.isNull(sortPath)) : afterKey);
+                }
+            }
+        }
+        List<Order> orders = new ArrayList<>();
+        //null ordering is database specific, hence explicitly ordering nulls last
+        if(nullable) orders.add(criteriaBuilder.asc(
+                criteriaBuilder.<Integer>selectCase().when(criteriaBuilder.isNull(sortPath), 1).otherwise(0)));
+        if(sortPath != null) orders.add(ascending ? criteriaBuilder.asc(sortPath) : criteriaBuilder.desc(sortPath));
+        orders.add(ascending ? criteriaBuilder.asc(idPath) : criteriaBuilder.desc(idPath));
+        query.select(root).where(conditions.toArray(new Predicate[0])).orderBy(orders);
+
+        //one extra row tells whether or not there's a next slice, without a count query
+        List<T> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        if(rows.size() <= limit) return new KeysetSlice<>(rows, null);
+        rows = new ArrayList<>(rows.subList(0, limit));
+        T last = rows.get(limit - 1);
+        Object lastIdKey = idKeyOf(getId.apply(last));
+        String nextCursor = sortPath != null ?
+                KeysetCursor.encode(getSortKey.apply(last), lastIdKey) :
+                KeysetCursor.encode(lastIdKey);
+        return new KeysetSlice<>(rows, nextCursor);
+    }
+
+    private boolean isNullable(String sortBy) {
+        SingularAttribute<? super T, ?> attribute = entityManager.getMetamodel().entity(clazz).getSingularAttribute(sortBy);
+        return attribute.isOptional() && !attribute.getJavaType().isPrimitive();
+    }
+
+    private Path<Comparable<Object>> idPathOf(Root<T> root) {
+        Path<Object> idPath = root.get(idAttribute.getName());
+        return embeddedIdAttribute != null ? idPath.get(embeddedIdAttribute.getName()) : (Path) idPath;
+    }
+
+    private static Predicate after(CriteriaBuilder criteriaBuilder, Path<Comparable<Object>> path,
+                                   Comparable<Object> value, boolean ascending) {
+        return ascending ? criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value);
+    }
+
+    private static Object valueOf(Member member, Object instance) {
+        try {
+            if(member instanceof Method) return ((Method) member).invoke(instance);
+            Field field = (Field) member;
+            field.setAccessible(true);
+            return field.get(instance);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
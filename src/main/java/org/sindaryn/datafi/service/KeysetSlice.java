@@ -0,0 +1,22 @@
+package org.sindaryn.datafi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A single page of keyset (seek) paginated results. Unlike a Page, it carries no total count -
+ * only an opaque cursor from which to continue, which is null if there are no further results.
+ * @param <T>
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetSlice<T> {
+    private List<T> content;
+    private String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
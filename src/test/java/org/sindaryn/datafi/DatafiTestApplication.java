@@ -0,0 +1,12 @@
+package org.sindaryn.datafi;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * The application context of the integration tests, running against an in-memory H2 database.
+ * The entities within 'testmodel' are run through the annotation processor upon test compilation,
+ * such that their generated daos and DataManagers are tested as an application would use them.
+ */
+@SpringBootApplication
+public class DatafiTestApplication {
+}
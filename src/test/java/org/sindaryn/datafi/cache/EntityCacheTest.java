@@ -0,0 +1,65 @@
+package org.sindaryn.datafi.cache;
+
+import org.junit.Test;
+import org.sindaryn.datafi.annotations.CacheEviction;
+import org.sindaryn.datafi.annotations.Cached;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EntityCacheTest {
+
+    @Cached(maxSize = 100, eviction = CacheEviction.SEGMENTED_LRU)
+    private static class CachedType {}
+
+    private final EntityCache cache =
+            new EntityCache(CachedType.class.getAnnotation(Cached.class), getClass().getClassLoader());
+
+    @Test
+    public void putsRecordsReadSinceTheLastEviction() {
+        long token = cache.token(1L);
+        cache.put(1L, "record", token);
+        assertEquals("record", cache.get(1L));
+    }
+
+    @Test
+    public void dropsPutsWhichRaceAnEviction() {
+        cache.put(1L, "record", cache.token(1L));
+        //a reader takes its token, and reads the record just before a writer changes it
+        long token = cache.token(1L);
+        cache.evict(1L);
+        cache.put(1L, "stale record", token);
+        assertNull(cache.get(1L));
+        //later reads are cached as usual
+        cache.put(1L, "fresh record", cache.token(1L));
+        assertEquals("fresh record", cache.get(1L));
+    }
+
+    @Test
+    public void keepsPutsWhichRaceAnEvictionOfAnotherRecord() {
+        long token = cache.token(1L);
+        //of a different stripe
+        cache.evict(2L);
+        cache.put(1L, "record", token);
+        assertEquals("record", cache.get(1L));
+    }
+
+    @Test
+    public void dropsPutsWhichRaceAnEvictionGivenAllTokens() {
+        //i.e. a read by unique key, whose id isn't known up front
+        long[] tokens = cache.tokens();
+        cache.evict(1L);
+        cache.put(1L, "stale record", tokens);
+        cache.put(2L, "record", tokens);
+        assertNull(cache.get(1L));
+        assertEquals("record", cache.get(2L));
+    }
+
+    @Test
+    public void dropsPutsWhichRaceAnEvictAll() {
+        long token = cache.token(1L);
+        cache.evictAll();
+        cache.put(1L, "stale record", token);
+        assertNull(cache.get(1L));
+    }
+}
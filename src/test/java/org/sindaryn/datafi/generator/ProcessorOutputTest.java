@@ -0,0 +1,73 @@
+package org.sindaryn.datafi.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the annotation processors over the test model twice - with the sources passed in opposite orders -
+ * and compares the generated sources byte for byte.
+ */
+public class ProcessorOutputTest {
+    private static final Path TEST_MODEL = Paths.get("src", "test", "java", "org", "sindaryn", "datafi", "testmodel");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void generatesByteIdenticalSourcesAcrossRuns() throws IOException {
+        List<File> sources;
+        try (Stream<Path> paths = Files.list(TEST_MODEL)) {
+            sources = paths.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).sorted().collect(Collectors.toList());
+        }
+        Map<String, byte[]> first = generate(sources);
+        Collections.reverse(sources);
+        Map<String, byte[]> second = generate(sources);
+
+        assertTrue(first.keySet().stream().anyMatch(path -> path.endsWith("ItemDao.java")));
+        assertTrue(first.keySet().stream().anyMatch(path -> path.endsWith("DatafiEntityRegistry.java")));
+        assertEquals(first.keySet(), second.keySet());
+        first.forEach((path, content) -> assertArrayEquals(path, content, second.get(path)));
+    }
+
+    //the generated sources, keyed by their path relative to the output directory
+    private Map<String, byte[]> generate(List<File> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("no system java compiler", compiler);
+        File output = temporaryFolder.newFolder();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-proc:only", "-s", output.getPath(), "-classpath", classpath()),
+                    null, fileManager.getJavaFileObjectsFromFiles(sources));
+            task.setProcessors(Arrays.asList(new EntityDataLayerProcessor(), new DataLayerAnnotationsProcessor()));
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+        Map<String, byte[]> result = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(output.toPath())) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList()))
+                result.put(output.toPath().relativize(path).toString(), Files.readAllBytes(path));
+        }
+        return result;
+    }
+
+    //the test classpath, less the classes already generated from the test model by the build itself
+    private static String classpath() {
+        String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> !entry.endsWith("test-classes"))
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+}
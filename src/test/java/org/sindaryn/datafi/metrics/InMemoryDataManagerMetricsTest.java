@@ -0,0 +1,38 @@
+package org.sindaryn.datafi.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InMemoryDataManagerMetricsTest {
+    private final InMemoryDataManagerMetrics metrics = new InMemoryDataManagerMetrics();
+
+    @Test
+    public void averagesRowsOverCallsWhichReportedThem() {
+        metrics.record("Item", "getBy", "name", 10, 2, false);
+        metrics.record("Item", "getBy", "name", 30, 4, false);
+        metrics.record("Item", "getBy", "name", 10, 0, false);
+        //a stream, and a failed call
+        metrics.record("Item", "getBy", "name", 10, -1, false);
+        metrics.record("Item", "getBy", "name", 40, 0, true);
+
+        OperationMetrics getBy = metrics.snapshot("Item", "getBy", "name");
+        assertEquals(5, getBy.getCount());
+        assertEquals(1, getBy.getErrorCount());
+        assertEquals(3, getBy.getRowReportingCount());
+        assertEquals(2.0, getBy.meanRows(), 0);
+        assertEquals(20.0, getBy.meanNanos(), 0);
+        assertEquals(40, getBy.getMaxNanos());
+    }
+
+    @Test
+    public void keepsOperationsApart() {
+        metrics.record("Item", "getBy", "name", 10, 1, false);
+        metrics.record("Item", "getBy", null, 10, 1, false);
+        assertEquals(1, metrics.snapshot("Item", "getBy", "name").getCount());
+        assertEquals(1, metrics.snapshot("Item", "getBy", null).getCount());
+        assertNull(metrics.snapshot("Item", "getAllBy", null));
+        assertEquals(0.0, new OperationMetrics("Item", "streamAll", null, 1, 0, 0, 0, 10, 10, 10, 10).meanRows(), 0);
+    }
+}
@@ -0,0 +1,114 @@
+package org.sindaryn.datafi.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceGeneratorTest {
+    //2020-01-01T00:00:00Z
+    private static final long NOW = 1577836800000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    @Test
+    public void issuesUniqueAscendingIdsUnderContention() throws Exception {
+        final SequenceGenerator generator = new SequenceGenerator(7);
+        final int threads = 8, idsPerThread = 20_000;
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> ascending = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            ascending.add(executor.submit(() -> {
+                start.await();
+                long previous = Long.MIN_VALUE;
+                boolean result = true;
+                for (int j = 0; j < idsPerThread; j++) {
+                    long id = j % 10 == 0 ? generator.nextIds(3)[2] : generator.nextId();
+                    result &= id > previous;
+                    previous = id;
+                    ids.add(id);
+                }
+                return result;
+            }));
+        start.countDown();
+        for (Future<Boolean> result : ascending) assertTrue(result.get(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    public void borrowsFromTheFollowingMillisecondsWhenTheClockMovesBackwards() {
+        SequenceGenerator generator = new SequenceGenerator(1, 1000, clock::get);
+        long first = generator.nextId();
+        clock.set(NOW - 500);
+        long second = generator.nextId();
+        assertTrue(second > first);
+        //within the same borrowed millisecond
+        assertEquals(timestampOf(first), timestampOf(second));
+    }
+
+    @Test
+    public void waitsForTheClockOnceTheLeadExceedsTheSkew() throws Exception {
+        SequenceGenerator generator = new SequenceGenerator(1, 10, clock::get);
+        long first = generator.nextId();
+        clock.set(NOW - 15);
+        Thread catchUp = new Thread(() -> {
+            sleep(50);
+            clock.set(NOW + 1);
+        });
+        catchUp.start();
+        long second = generator.nextId();
+        catchUp.join();
+        assertTrue(second > first);
+        assertTrue(timestampOf(second) > timestampOf(first));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsOnceWaitingCantHelp() {
+        SequenceGenerator generator = new SequenceGenerator(1, 10, clock::get);
+        generator.nextId();
+        clock.set(NOW - 25);
+        generator.nextId();
+    }
+
+    @Test
+    public void reservesBatchesUpToTheMaxBatchSize() {
+        SequenceGenerator generator = new SequenceGenerator(1, 2, clock::get);
+        assertEquals(2 * 4096, generator.maxBatchSize());
+        long[] ids = generator.nextIds((int) generator.maxBatchSize());
+        for (int i = 1; i < ids.length; i++) assertTrue(ids[i] > ids[i - 1]);
+        //the whole skew has been borrowed
+        assertEquals(timestampOf(ids[0]) + 1, timestampOf(ids[ids.length - 1]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBatchesBeyondTheMaxBatchSize() {
+        SequenceGenerator generator = new SequenceGenerator(1, 2, clock::get);
+        generator.nextIds((int) generator.maxBatchSize() + 1);
+    }
+
+    private static long timestampOf(long id) {
+        return id >>> 22;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
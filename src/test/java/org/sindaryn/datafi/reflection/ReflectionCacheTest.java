@@ -0,0 +1,70 @@
+package org.sindaryn.datafi.reflection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.persistence.SimpleId;
+import org.sindaryn.datafi.testmodel.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ReflectionCacheTest {
+    @Autowired
+    private ReflectionCache reflectionCache;
+    @Autowired
+    private List<EntityRegistry> entityRegistries;
+
+    @Test
+    public void registersEveryEntityWithItsGeneratedTypes() {
+        Map<Class<?>, EntityRegistration> registrations = registrations();
+        for (Class<?> entityType : new Class<?>[]{Item.class, Country.class, Owner.class, Child.class, Note.class, Tag.class, Memo.class})
+            assertTrue(entityType.getSimpleName(), registrations.containsKey(entityType));
+
+        EntityRegistration item = registrations.get(Item.class);
+        assertEquals(Long.class, item.getIdType());
+        assertEquals("ItemDao", item.getDaoType().getSimpleName());
+        assertTrue(item.getDaoType().isInterface());
+        assertEquals("ItemAccessor", item.getAccessorType().getSimpleName());
+        assertEquals(SimpleId.class, registrations.get(Owner.class).getIdType());
+    }
+
+    @Test
+    public void buildsEntityTypesFromTheRegisteredAccessor() {
+        Map<String, CachedEntityType> entitiesCache = reflectionCache.getEntitiesCache();
+        CachedEntityType item = entitiesCache.get("Item");
+        assertEquals(Item.class, item.getClazz());
+        assertEquals(registrations().get(Item.class).getAccessorType(), item.getAccessor().getClass());
+        //built once
+        assertSame(item, entitiesCache.get("Item"));
+        assertTrue(entitiesCache.containsKey("Owner"));
+        assertNull(entitiesCache.get("NotAnEntity"));
+        assertFalse(entitiesCache.containsKey("NotAnEntity"));
+    }
+
+    @Test
+    public void buildsCascadeUpdatePlansOnce() {
+        CascadeUpdatePlan plan = reflectionCache.getCascadeUpdatePlan(Child.class);
+        assertSame(plan, reflectionCache.getCascadeUpdatePlan(Child.class));
+        assertEquals(Child.class, plan.getEntityType().getClazz());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCascadeUpdatePlansOfNonEntities() {
+        reflectionCache.getCascadeUpdatePlan(String.class);
+    }
+
+    private Map<Class<?>, EntityRegistration> registrations() {
+        Map<Class<?>, EntityRegistration> result = new HashMap<>();
+        entityRegistries.forEach(registry -> registry.entities().forEach(registration ->
+                result.put(registration.getEntityType(), registration)));
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.metrics.InMemoryDataManagerMetrics;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.sindaryn.datafi.testmodel.ItemSumPriceByNameResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AggregateResolverTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+    @Autowired
+    private InMemoryDataManagerMetrics metrics;
+
+    @Test
+    public void aggregatesWithinTheDatabase() {
+        itemDataManager.saveAll(Arrays.asList(
+                new Item("pen", "aggregates", 2),
+                new Item("pen", "aggregates", 3),
+                new Item("ink", "aggregates", 7)));
+
+        assertEquals(3, itemDataManager.countByCategory("aggregates"));
+        assertEquals(0, itemDataManager.countByCategory("none"));
+        assertEquals(Integer.valueOf(7), itemDataManager.maxPriceByCategory("aggregates"));
+        assertNull(itemDataManager.maxPriceByCategory("none"));
+
+        List<ItemSumPriceByNameResult> sums = itemDataManager.sumPriceByName("aggregates");
+        sums.sort(Comparator.comparing(ItemSumPriceByNameResult::getName));
+        assertEquals(2, sums.size());
+        assertEquals("ink", sums.get(0).getName());
+        assertEquals(Long.valueOf(7), sums.get(0).getSum());
+        assertEquals(Long.valueOf(5), sums.get(1).getSum());
+    }
+
+    @Test
+    public void doesNotRecordAggregatesAsRows() {
+        itemDataManager.save(new Item("pen", "metrics", 40));
+        itemDataManager.maxPriceByCategory("metrics");
+        assertEquals(0, metrics.snapshot("Item", "aggregateByResolver", "maxPriceByCategory").getRowCount());
+    }
+}
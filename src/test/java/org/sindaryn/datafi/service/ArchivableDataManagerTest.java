@@ -0,0 +1,68 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Memo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ArchivableDataManagerTest {
+    @Autowired
+    @Qualifier("memoArchivableDataManager")
+    private ArchivableDataManager<Memo> memoDataManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void archivesCollectionAndCountsUpdatedRecords() {
+        List<Memo> memos = memos(20);
+        Memo missing = new Memo("missing");
+        missing.setMemoId(Long.MAX_VALUE);
+        List<Memo> input = new ArrayList<>(memos);
+        input.add(missing);
+        //more ids than fit into a single chunk
+        assertEquals(20, memoDataManager.archiveCollection(input));
+        for (Memo memo : memos)
+            assertTrue(memoDataManager.findById(memo.getMemoId()).get().getIsArchived());
+        assertEquals(20, memoDataManager.deArchiveCollection(memos));
+        assertFalse(memoDataManager.findById(memos.get(0).getMemoId()).get().getIsArchived());
+    }
+
+    @Test
+    public void refreshesManagedInstancesRatherThanClearing() {
+        List<Memo> memos = memos(2);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Memo archived = entityManager.find(Memo.class, memos.get(0).getMemoId());
+            Memo untouched = entityManager.find(Memo.class, memos.get(1).getMemoId());
+            assertEquals(1, memoDataManager.archiveCollection(Arrays.asList(archived)));
+            assertTrue(entityManager.contains(archived));
+            assertTrue(entityManager.contains(untouched));
+            assertTrue(archived.getIsArchived());
+            assertFalse(untouched.getIsArchived());
+            return null;
+        });
+    }
+
+    private List<Memo> memos(int count) {
+        List<Memo> result = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            result.add(new Memo("memo " + i));
+        return memoDataManager.saveAll(result);
+    }
+}
@@ -0,0 +1,99 @@
+package org.sindaryn.datafi.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AsyncDataExecutorTest {
+    @Autowired
+    private AsyncDataExecutor asyncDataExecutor;
+    @Autowired
+    private ItemDataManager itemDataManager;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void runsNoMoreOperationsAtOnceThanTheConnectionPoolServes() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+            futures.add(asyncDataExecutor.supplyAsync(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    return itemDataManager.count();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }, true));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        //resolved from hikari upon first use
+        assertEquals(((HikariDataSource) dataSource).getMaximumPoolSize(), asyncDataExecutor.getMaxConcurrency());
+        assertTrue("peak concurrency of " + peak.get(), peak.get() <= asyncDataExecutor.getMaxConcurrency());
+        assertTrue("peak concurrency of " + peak.get(), peak.get() > 1);
+    }
+
+    @Test
+    public void runsWithinATransactionOfItsOwn() throws Exception {
+        assertTrue(asyncDataExecutor.supplyAsync(TransactionSynchronizationManager::isCurrentTransactionReadOnly, true).get());
+        assertFalse(asyncDataExecutor.supplyAsync(TransactionSynchronizationManager::isCurrentTransactionReadOnly, false).get());
+
+        Item saved = itemDataManager.save(new Item("async", "async", 1));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Item managed = entityManager.find(Item.class, saved.getId());
+            try {
+                //a persistence context other than the caller's
+                assertFalse(asyncDataExecutor.supplyAsync(() -> entityManager.contains(managed), true).get());
+                assertTrue(asyncDataExecutor.supplyAsync(TransactionSynchronizationManager::isActualTransactionActive, true).get());
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void rollsBackFailedOperations() throws InterruptedException {
+        CompletableFuture<Item> future = asyncDataExecutor.supplyAsync(() -> {
+            itemDataManager.save(new Item("rolled back", "async rollback", 1));
+            throw new IllegalStateException("failed");
+        }, false);
+        try {
+            future.get();
+            fail("expected the operation to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, itemDataManager.countByCategory("async rollback"));
+    }
+}
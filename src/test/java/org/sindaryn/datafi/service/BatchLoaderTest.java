@@ -0,0 +1,75 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchLoaderTest {
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    //even keys only, as a missing record would be
+    private final Function<List<Integer>, Map<Integer, String>> batchFunction = keys -> {
+        batches.add(new ArrayList<>(keys));
+        Map<Integer, String> result = new HashMap<>();
+        keys.stream().filter(key -> key % 2 == 0).forEach(key -> result.put(key, "value " + key));
+        return result;
+    };
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void batchesKeysWithinTheWindow() throws Exception {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(batchFunction, executor, 50_000, 100);
+        CompletableFuture<Optional<String>> first = loader.load(1);
+        CompletableFuture<Optional<String>> second = loader.load(2);
+        CompletableFuture<Optional<String>> duplicate = loader.load(2);
+
+        assertEquals(Optional.empty(), first.get());
+        assertEquals(Optional.of("value 2"), second.get());
+        assertSame(second, duplicate);
+        assertEquals(Arrays.asList(Arrays.asList(1, 2)), batches);
+        assertEquals(1, loader.stats().getBatchCount());
+    }
+
+    @Test
+    public void dispatchesFullBatchesRightAway() throws Exception {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(batchFunction, executor, 60_000_000, 2);
+        CompletableFuture<Optional<String>> first = loader.load(2);
+        CompletableFuture<Optional<String>> second = loader.load(4);
+
+        assertEquals(Optional.of("value 2"), first.get());
+        assertEquals(Optional.of("value 4"), second.get());
+        assertEquals(Arrays.asList(Arrays.asList(2, 4)), batches);
+    }
+
+    @Test
+    public void failsEveryKeyOfAFailedBatch() throws Exception {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            throw new IllegalStateException("failed");
+        }, executor, 1_000, 100);
+        CompletableFuture<Optional<String>> first = loader.load(1);
+        CompletableFuture<Optional<String>> second = loader.load(2);
+
+        assertTrue(first.handle((value, throwable) -> throwable != null).get());
+        assertTrue(second.handle((value, throwable) -> throwable != null).get());
+    }
+}
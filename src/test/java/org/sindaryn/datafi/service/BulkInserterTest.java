@@ -0,0 +1,81 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BulkInserterTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+
+    @Test
+    public void sizesMultiRowInsertsByTheBindParameterLimit() {
+        assertEquals(3, BulkInserter.rowsPerStatementOf("h2", 16, 5));
+        assertEquals(1, BulkInserter.rowsPerStatementOf("h2", 4, 5));
+        assertEquals(1000, BulkInserter.rowsPerStatementOf("microsoft sql server", 65_535, 5));
+        assertEquals(1, BulkInserter.rowsPerStatementOf("oracle", 65_535, 5));
+    }
+
+    @Test
+    public void escapesCsvValues() {
+        assertEquals("", csvOf(null));
+        assertEquals("\"\"", csvOf(""));
+        assertEquals("\"say \"\"hi\"\", then\nleave\"", csvOf("say \"hi\", then\nleave"));
+        assertEquals("0.00000001", csvOf(new BigDecimal("1E-8")));
+        assertEquals("42", csvOf(42L));
+        assertEquals("true", csvOf(true));
+        assertEquals("\\x00ff10", csvOf(new byte[]{0, (byte) 0xff, 0x10}));
+        UUID uuid = UUID.randomUUID();
+        assertEquals("\"" + uuid + "\"", csvOf(uuid));
+    }
+
+    @Test
+    public void writesTimestampsWithAnOffset() {
+        Timestamp timestamp = Timestamp.valueOf("2020-03-01 12:30:15.25");
+        OffsetDateTime written = OffsetDateTime.parse(csvOf(timestamp));
+        assertEquals(timestamp.toInstant(), written.toInstant());
+        assertEquals(ZoneId.systemDefault().getRules().getOffset(timestamp.toInstant()), written.getOffset());
+        assertEquals("2020-03-01", csvOf(java.sql.Date.valueOf("2020-03-01")));
+        assertEquals("12:30:15", csvOf(java.sql.Time.valueOf("12:30:15")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsValuesWhichCantBeWrittenAsCsv() {
+        csvOf(new Object());
+    }
+
+    @Test
+    public void insertsInMultiRowStatements() {
+        //five columns and a limit of 16 bind parameters - three full statements of three rows each, and a remainder of one
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            items.add(new Item("item " + i, "bulk", i));
+        assertEquals(10, itemDataManager.bulkInsert(items).getRows());
+        assertEquals(10, itemDataManager.countByCategory("bulk"));
+        assertNotNull(items.get(9).getId());
+        assertEquals(Long.valueOf(0), itemDataManager.findById(items.get(9).getId()).get().getVersion());
+    }
+
+    private static String csvOf(Object value) {
+        StringBuilder csv = new StringBuilder();
+        BulkInserter.appendCsv(csv, value);
+        return csv.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Country;
+import org.sindaryn.datafi.testmodel.CountryDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CachedDataManagerTest {
+    @Autowired
+    private CountryDataManager countryDataManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void servesCopiesOfCachedRecords() {
+        Country country = countryDataManager.save(new Country("NL"));
+        Country first = countryDataManager.findById(country.getId()).get();
+        first.setIsoCode("BE");
+        Country second = countryDataManager.findById(country.getId()).get();
+        assertNotSame(first, second);
+        assertEquals("NL", second.getIsoCode());
+        assertEquals("NL", countryDataManager.getByUnique("isoCode", "NL").get().getIsoCode());
+    }
+
+    @Test
+    public void readsWithinReadWriteTransactionsBypassTheCache() {
+        Country country = countryDataManager.save(new Country("DE"));
+        countryDataManager.findById(country.getId());
+        assertTrue(new TransactionTemplate(transactionManager).execute(status ->
+                entityManager.contains(countryDataManager.findById(country.getId()).get())));
+    }
+
+    @Test
+    public void evictsRecordsUponSave() {
+        Country country = countryDataManager.save(new Country("FR"));
+        Country cached = countryDataManager.findById(country.getId()).get();
+        cached.setIsoCode("FX");
+        countryDataManager.save(cached);
+        assertEquals("FX", countryDataManager.findById(country.getId()).get().getIsoCode());
+    }
+}
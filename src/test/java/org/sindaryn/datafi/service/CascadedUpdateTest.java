@@ -0,0 +1,173 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CascadedUpdateTest {
+    @Autowired
+    private ChildDataManager childDataManager;
+    @Autowired
+    private OwnerDataManager ownerDataManager;
+    @Autowired
+    private ItemDataManager itemDataManager;
+
+    @Test
+    public void copiesNonNullFieldsAndRecursesIntoManyToOne() {
+        Child child = savedChildOf(ownerDataManager.save(new Owner("owner")));
+        Child source = new Child("renamed");
+        source.setOwner(owner("renamed owner"));
+
+        childDataManager.cascadedUpdate(child, source);
+
+        Child loaded = childDataManager.findById(child.getId()).get();
+        assertEquals("renamed", loaded.getName());
+        assertEquals("renamed owner", loaded.getOwner().getName());
+        //the same owner record, updated in place
+        assertEquals(child.getOwner().getId(), loaded.getOwner().getId());
+    }
+
+    @Test
+    public void leavesFieldsWhichAreNullInTheSource() {
+        Child child = savedChildOf(ownerDataManager.save(new Owner("owner")));
+        childDataManager.cascadedUpdate(child, new Child(null));
+
+        Child loaded = childDataManager.findById(child.getId()).get();
+        assertEquals("child", loaded.getName());
+        assertEquals("owner", loaded.getOwner().getName());
+    }
+
+    @Test
+    public void createsNewNestedManyToOne() {
+        Child child = savedChildOf(null);
+        Child source = new Child(null);
+        source.setOwner(owner("new owner"));
+
+        Child result = childDataManager.cascadedUpdate(child, source);
+
+        Owner created = childDataManager.findById(child.getId()).get().getOwner();
+        assertNotNull(created);
+        assertEquals("new owner", created.getName());
+        assertEquals(created.getId(), result.getOwner().getId());
+        //a fresh instance rather than the source's one
+        assertNotSame(source.getOwner(), result.getOwner());
+        assertTrue(ownerDataManager.findById(created.getId()).isPresent());
+    }
+
+    @Test
+    public void skipsUnchangedEntities() {
+        Child child = savedChildOf(ownerDataManager.save(new Owner("owner")));
+        Child source = new Child("child");
+        source.setOwner(owner("owner"));
+
+        assertSame(child, childDataManager.cascadedUpdate(child, source));
+
+        Child loaded = childDataManager.findById(child.getId()).get();
+        assertEquals(child.getVersion(), loaded.getVersion());
+        assertEquals(child.getOwner().getVersion(), loaded.getOwner().getVersion());
+    }
+
+    @Test
+    public void savesOnlyTheChangedNestedEntityOfADetachedTarget() {
+        //loaded outside of a transaction, and as such detached
+        Child child = childDataManager.findById(savedChildOf(ownerDataManager.save(new Owner("owner"))).getId()).get();
+        Child source = new Child(null);
+        source.setOwner(owner("renamed owner"));
+
+        childDataManager.cascadedUpdate(child, source);
+
+        Child loaded = childDataManager.findById(child.getId()).get();
+        assertEquals("renamed owner", loaded.getOwner().getName());
+        assertEquals(child.getVersion(), loaded.getVersion());
+        assertEquals(Long.valueOf(child.getOwner().getVersion() + 1), loaded.getOwner().getVersion());
+    }
+
+    @Test
+    public void doesNotLoadLazyCollectionsOfADetachedTarget() {
+        Child child = childDataManager.findById(savedChildOf(ownerDataManager.save(new Owner("owner"))).getId()).get();
+        //the detached owner's 'children' is an uninitialized lazy collection
+        Owner sourceOwner = owner("renamed owner");
+        sourceOwner.setChildren(new HashSet<>());
+        Child source = new Child(null);
+        source.setOwner(sourceOwner);
+
+        childDataManager.cascadedUpdate(child, source);
+
+        Child loaded = childDataManager.findById(child.getId()).get();
+        assertEquals("renamed owner", loaded.getOwner().getName());
+        //'children' is mapped by Child.owner, so the foreign key is left as is
+        assertEquals(child.getOwner().getId(), loaded.getOwner().getId());
+    }
+
+    @Test
+    public void matchesCollectionByIdInGivenOrder() {
+        Item a = itemDataManager.save(new Item("a", "by id", 1));
+        Item b = itemDataManager.save(new Item("b", "by id", 2));
+
+        List<Item> result = itemDataManager.cascadeUpdateCollection(Arrays.asList(patch(b.getId(), null, 5), patch(a.getId(), "a2", null)));
+
+        assertEquals(Arrays.asList(b.getId(), a.getId()), Arrays.asList(result.get(0).getId(), result.get(1).getId()));
+        Item loadedA = itemDataManager.findById(a.getId()).get();
+        assertEquals("a2", loadedA.getName());
+        assertEquals(Integer.valueOf(1), loadedA.getPrice());
+        assertEquals(Integer.valueOf(5), itemDataManager.findById(b.getId()).get().getPrice());
+    }
+
+    @Test
+    public void updatesNothingIfAnyIdIsMissing() {
+        Item a = itemDataManager.save(new Item("a", "missing", 1));
+        try {
+            itemDataManager.cascadeUpdateCollection(Arrays.asList(patch(a.getId(), "a2", null), patch(Long.MAX_VALUE, "none", null)));
+            fail("expected the missing id to be rejected");
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage().contains(String.valueOf(Long.MAX_VALUE)));
+        }
+        assertEquals("a", itemDataManager.findById(a.getId()).get().getName());
+    }
+
+    @Test
+    public void appliesDuplicateIdsInOrder() {
+        Item a = itemDataManager.save(new Item("a", "duplicate", 1));
+
+        List<Item> result = itemDataManager.cascadeUpdateCollection(Arrays.asList(patch(a.getId(), "first", 2), patch(a.getId(), "second", null)));
+
+        assertEquals(2, result.size());
+        Item loaded = itemDataManager.findById(a.getId()).get();
+        assertEquals("second", loaded.getName());
+        assertEquals(Integer.valueOf(2), loaded.getPrice());
+        //both written by the same flush
+        assertEquals(Long.valueOf(a.getVersion() + 1), loaded.getVersion());
+    }
+
+    private static Item patch(Long id, String name, Integer price) {
+        Item result = new Item(name, null, price);
+        result.setId(id);
+        return result;
+    }
+
+    private Child savedChildOf(Owner owner) {
+        Child child = new Child("child");
+        child.setOwner(owner);
+        return childDataManager.save(child);
+    }
+
+    //a source owner, whose collections are left null so as not to be copied
+    static Owner owner(String name) {
+        Owner result = new Owner(name);
+        result.setTags(null);
+        result.setChildren(null);
+        result.setNotes(null);
+        return result;
+    }
+}
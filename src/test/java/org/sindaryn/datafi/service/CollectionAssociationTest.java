@@ -0,0 +1,98 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CollectionAssociationTest {
+    @Autowired
+    private OwnerDataManager ownerDataManager;
+    @Autowired
+    private TagDataManager tagDataManager;
+    @Autowired
+    private ChildDataManager childDataManager;
+    @Autowired
+    private NoteDataManager noteDataManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void attachesAndDetachesViaJoinTable() {
+        Owner owner = ownerDataManager.save(new Owner("owner"));
+        Tag a = tagDataManager.save(new Tag("a"));
+        Tag b = tagDataManager.save(new Tag("b"));
+        Tag c = tagDataManager.save(new Tag("c"));
+
+        tagDataManager.attachExistingToCollectionIn(owner, "tags", Arrays.asList(a, b));
+        assertEquals(2, sizeOf(owner, loaded -> loaded.getTags().size()));
+
+        //already attached elements of a Set are skipped, rather than violating the join table's primary key
+        tagDataManager.attachExistingToCollectionIn(owner, "tags", Arrays.asList(b, c, c));
+        assertEquals(3, sizeOf(owner, loaded -> loaded.getTags().size()));
+
+        assertEquals(2, tagDataManager.detachFromCollectionIn(owner, "tags", Arrays.asList(a, c)));
+        assertEquals(1, sizeOf(owner, loaded -> loaded.getTags().size()));
+    }
+
+    @Test
+    public void addsNewElementsViaJoinTable() {
+        Owner owner = ownerDataManager.save(new Owner("owner"));
+        tagDataManager.addNewToCollectionIn(owner, "tags", Arrays.asList(new Tag("a"), new Tag("b")));
+        assertEquals(2, sizeOf(owner, loaded -> loaded.getTags().size()));
+    }
+
+    @Test
+    public void attachesAndDetachesViaMappedBy() {
+        Owner owner = ownerDataManager.save(new Owner("owner"));
+        Child a = childDataManager.save(new Child("a"));
+        Child b = childDataManager.save(new Child("b"));
+
+        childDataManager.attachExistingToCollectionIn(owner, "children", Arrays.asList(a, b));
+        assertEquals(2, sizeOf(owner, loaded -> loaded.getChildren().size()));
+
+        //attaching the same element twice only updates its foreign key again
+        childDataManager.attachExistingToCollectionIn(owner, "children", Collections.singletonList(a));
+        assertEquals(2, sizeOf(owner, loaded -> loaded.getChildren().size()));
+
+        assertEquals(1, childDataManager.detachFromCollectionIn(owner, "children", Collections.singletonList(a)));
+        assertEquals(1, sizeOf(owner, loaded -> loaded.getChildren().size()));
+        assertNull(childDataManager.findById(a.getId()).get().getOwner());
+    }
+
+    @Test
+    public void attachesAndDetachesViaJoinColumn() {
+        Owner owner = ownerDataManager.save(new Owner("owner"));
+        Note a = noteDataManager.save(new Note("a"));
+        Note b = noteDataManager.save(new Note("b"));
+
+        noteDataManager.attachExistingToCollectionIn(owner, "notes", Arrays.asList(a, b));
+        assertEquals(2, sizeOf(owner, loaded -> loaded.getNotes().size()));
+
+        assertEquals(1, noteDataManager.detachFromCollectionIn(owner, "notes", Collections.singletonList(b)));
+        assertEquals(1, sizeOf(owner, loaded -> loaded.getNotes().size()));
+    }
+
+    //read within a transaction of its own, such that the lazily loaded collection is freshly read
+    private int sizeOf(Owner owner, Function<Owner, Integer> size) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                size.apply(entityManager.find(Owner.class, owner.getId())));
+    }
+}
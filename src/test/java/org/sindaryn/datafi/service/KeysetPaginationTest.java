@@ -0,0 +1,108 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class KeysetPaginationTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+
+    @Test
+    public void scrollsByIdExactlyOnce() {
+        seed();
+        List<Item> scrolled = scroll(null, Sort.Direction.ASC);
+        assertEquals(allIds(), idsOf(scrolled));
+        //ascending ids
+        for (int i = 1; i < scrolled.size(); i++)
+            assertTrue(scrolled.get(i - 1).getId() < scrolled.get(i).getId());
+    }
+
+    @Test
+    public void scrollsDuplicateAndNullSortKeysExactlyOnce() {
+        seed();
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<Item> scrolled = scroll("price", direction);
+            assertEquals(allIds(), idsOf(scrolled));
+            boolean seenNull = false;
+            for (int i = 1; i < scrolled.size(); i++) {
+                Integer previous = scrolled.get(i - 1).getPrice();
+                Integer current = scrolled.get(i).getPrice();
+                //nulls come last in either direction
+                if(previous == null) seenNull = true;
+                if(seenNull) {
+                    assertNull(current);
+                    assertTrue(direction.isAscending() == scrolled.get(i - 1).getId() < scrolled.get(i).getId());
+                } else if(current != null) {
+                    int comparison = previous.compareTo(current);
+                    assertTrue(direction.isAscending() ? comparison <= 0 : comparison >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void encodesNullCursorValues() {
+        String cursor = KeysetCursor.encode(null, 7L);
+        assertArrayEquals(new Object[]{null, 7L}, KeysetCursor.decode(cursor, Integer.class, Long.class));
+        assertArrayEquals(new Object[]{3, 7L},
+                KeysetCursor.decode(KeysetCursor.encode(3, 7L), Integer.class, Long.class));
+        //the literal string "null" is a value like any other
+        assertArrayEquals(new Object[]{"null", 7L},
+                KeysetCursor.decode(KeysetCursor.encode("null", 7L), String.class, Long.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCursorOfWrongArity() {
+        KeysetCursor.decode(KeysetCursor.encode(7L), Integer.class, Long.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMalformedCursor() {
+        KeysetCursor.decode("not a cursor", Long.class);
+    }
+
+    //duplicate prices spanning slice boundaries, followed by several nulls
+    private void seed() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++)
+            items.add(new Item("keyset " + i, "keyset", i % 3 == 0 ? null : i % 2));
+        itemDataManager.saveAll(items);
+    }
+
+    private List<Item> scroll(String sortBy, Sort.Direction direction) {
+        List<Item> result = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<Item> slice = itemDataManager.findAllAfter(cursor, 3, sortBy, direction);
+            assertTrue(slice.getContent().size() <= 3);
+            result.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        return result;
+    }
+
+    private Set<Long> allIds() {
+        return itemDataManager.findAll().stream().map(Item::getId).collect(Collectors.toSet());
+    }
+
+    //fails upon any row being returned more than once
+    private static Set<Long> idsOf(List<Item> items) {
+        Set<Long> ids = new HashSet<>();
+        for (Item item : items)
+            assertTrue("returned more than once: " + item.getId(), ids.add(item.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,62 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ModifyingResolverTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+
+    @Test
+    public void updatesAllMatchingRecords() {
+        Item item = itemDataManager.save(new Item("pen", "update", 1));
+        itemDataManager.save(new Item("ink", "update", 2));
+        itemDataManager.save(new Item("pen", "untouched", 3));
+
+        assertEquals(2, itemDataManager.reprice("update", 5));
+        assertEquals(Integer.valueOf(5), itemDataManager.maxPriceByCategory("update"));
+        assertEquals(Integer.valueOf(3), itemDataManager.maxPriceByCategory("untouched"));
+        //UPDATE VERSIONED
+        assertEquals(Long.valueOf(item.getVersion() + 1), itemDataManager.findById(item.getId()).get().getVersion());
+    }
+
+    @Test
+    public void updatesInChunks() {
+        itemDataManager.saveAll(items("chunked update", 5));
+        //two full chunks and a partial one
+        assertEquals(5, itemDataManager.repriceInChunks(2, "chunked update", 10));
+        assertEquals(5, itemDataManager.updateByResolverInChunks("reprice", 2, "chunked update", 20));
+        assertEquals(Integer.valueOf(20), itemDataManager.maxPriceByCategory("chunked update"));
+        assertEquals(0, itemDataManager.repriceInChunks(2, "none", 10));
+    }
+
+    @Test
+    public void deletesInChunks() {
+        itemDataManager.saveAll(items("chunked delete", 4));
+        itemDataManager.saveAll(items("kept", 1));
+        //two full chunks, followed by an empty page of ids
+        assertEquals(4, itemDataManager.deleteByCategoryInChunks(2, "chunked delete"));
+        assertEquals(0, itemDataManager.countByCategory("chunked delete"));
+        assertEquals(1, itemDataManager.countByCategory("kept"));
+        assertEquals(1, itemDataManager.deleteByResolver("deleteByCategory", "kept"));
+    }
+
+    private static List<Item> items(String category, int count) {
+        List<Item> result = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            result.add(new Item("item " + i, category, i));
+        return result;
+    }
+}
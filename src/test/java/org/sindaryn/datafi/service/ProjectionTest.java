@@ -0,0 +1,63 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ProjectionTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+
+    @Test
+    public void projectsGetBy() {
+        Item saved = itemDataManager.save(new Item("projected by name", "projections", 3));
+
+        List<ItemByNameProjection> result = itemDataManager.getProjectedByName("projected by name");
+
+        assertEquals(1, result.size());
+        assertEquals(saved.getId(), result.get(0).getId());
+        assertEquals(Integer.valueOf(3), result.get(0).getPrice());
+        //as per the DataManager<T> variant
+        List<ItemByNameProjection> untyped = itemDataManager.getProjectedBy("name", "projected by name");
+        assertEquals(saved.getId(), untyped.get(0).getId());
+    }
+
+    @Test
+    public void projectsGetAllBy() {
+        itemDataManager.saveAll(Arrays.asList(
+                new Item("a", "projected a", 1), new Item("b", "projected b", 2), new Item("c", "projected c", 3)));
+
+        List<ItemAllByCategoryProjection> result = itemDataManager.getAllProjectedByCategory(Arrays.asList("projected a", "projected c"));
+
+        assertEquals(Arrays.asList("a", "c"), result.stream()
+                .sorted(Comparator.comparing(ItemAllByCategoryProjection::getName))
+                .map(ItemAllByCategoryProjection::getName).collect(Collectors.toList()));
+        assertTrue(result.stream().allMatch(projection -> projection.getCategory().startsWith("projected ")));
+    }
+
+    @Test
+    public void projectsSelectByResolver() {
+        itemDataManager.saveAll(Arrays.asList(new Item("x", "projected resolver", 1), new Item("y", "projected resolver", null)));
+
+        List<ItemInCategoryProjection> result = itemDataManager.inCategoryProjected("projected resolver");
+
+        assertEquals(2, result.size());
+        ItemInCategoryProjection y = result.stream().filter(projection -> projection.getName().equals("y")).findFirst().get();
+        //null values are selected as is
+        assertNull(y.getPrice());
+        List<ItemInCategoryProjection> untyped = itemDataManager.selectProjectedByResolver("inCategory", "projected resolver");
+        assertEquals(2, untyped.size());
+    }
+}
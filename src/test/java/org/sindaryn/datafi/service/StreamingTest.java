@@ -0,0 +1,96 @@
+package org.sindaryn.datafi.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sindaryn.datafi.testmodel.Item;
+import org.sindaryn.datafi.testmodel.ItemDataManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StreamingTest {
+    @Autowired
+    private ItemDataManager itemDataManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void detachesEachChunkBeforeTheNext() {
+        saveItems("chunked", 7);
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Item> previousChunk = new ArrayList<>();
+        itemDataManager.forEachChunk(inCategory("chunked"), 3, chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(item -> assertTrue(entityManager.contains(item)));
+            previousChunk.forEach(item -> assertFalse(entityManager.contains(item)));
+            previousChunk.clear();
+            previousChunk.addAll(chunk);
+        });
+        //the last chunk is partial
+        assertEquals(Arrays.asList(3, 3, 1), chunkSizes);
+    }
+
+    @Test
+    public void leavesTheCallersPersistenceContextAlone() {
+        Item saved = saveItems("caller", 2).get(0);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Item managed = entityManager.find(Item.class, saved.getId());
+            itemDataManager.forEachChunk(inCategory("caller"), 1, chunk -> {});
+            assertTrue(entityManager.contains(managed));
+            return null;
+        });
+    }
+
+    @Test
+    public void doesNotSaveChangesToChunks() {
+        saveItems("unsaved", 2);
+        itemDataManager.forEachChunk(inCategory("unsaved"), 2, chunk -> chunk.forEach(item -> item.setPrice(100)));
+        assertEquals(Integer.valueOf(1), itemDataManager.maxPriceByCategory("unsaved"));
+    }
+
+    @Test
+    public void streamsReadOnlyEntities() {
+        saveItems("streamed", 5);
+        List<String> names = new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<Item> stream = itemDataManager.streamAll(inCategory("streamed"))) {
+                return stream.peek(item -> item.setPrice(100)).map(Item::getName).sorted().collect(Collectors.toList());
+            }
+        });
+        assertEquals(Arrays.asList("streamed 0", "streamed 1", "streamed 2", "streamed 3", "streamed 4"), names);
+        //read only entities aren't dirty checked upon commit
+        assertEquals(Integer.valueOf(4), itemDataManager.maxPriceByCategory("streamed"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidChunkSize() {
+        itemDataManager.forEachChunk(0, chunk -> {});
+    }
+
+    private List<Item> saveItems(String category, int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            items.add(new Item(category + " " + i, category, i));
+        return itemDataManager.saveAll(items);
+    }
+
+    private static Specification<Item> inCategory(String category) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("category"), category);
+    }
+}
@@ -0,0 +1,23 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Child extends StandardPersistableEntity {
+    private String name;
+    @ManyToOne
+    private Owner owner;
+
+    public Child(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,26 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.annotations.Cached;
+import org.sindaryn.datafi.annotations.GetByUnique;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+
+@Entity
+@Cached
+@Getter
+@Setter
+@NoArgsConstructor
+public class Country extends StandardPersistableEntity {
+    @GetByUnique
+    @Column(unique = true)
+    private String isoCode;
+
+    public Country(String isoCode) {
+        this.isoCode = isoCode;
+    }
+}
@@ -0,0 +1,46 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.annotations.GetAllBy;
+import org.sindaryn.datafi.annotations.GetBy;
+import org.sindaryn.datafi.annotations.WithResolver;
+import org.sindaryn.datafi.generator.QueryType;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+/**
+ * A plain @Id entity, as required by the chunked execution of UPDATE and DELETE resolvers.
+ */
+@Entity
+@WithResolver(name = "countByCategory", type = QueryType.COUNT, args = {"category"})
+@WithResolver(name = "maxPriceByCategory", type = QueryType.MAX, field = "price", args = {"category"})
+@WithResolver(name = "sumPriceByName", type = QueryType.SUM, field = "price", groupBy = {"name"}, args = {"category"})
+@WithResolver(name = "reprice", type = QueryType.UPDATE, set = {"price"}, args = {"category"})
+@WithResolver(name = "deleteByCategory", type = QueryType.DELETE, args = {"category"})
+@WithResolver(name = "inCategory", args = {"category"}, projection = {"name", "price"})
+@Getter
+@Setter
+@NoArgsConstructor
+public class Item {
+    @Id
+    @GeneratedValue
+    private Long id;
+    @GetBy(projection = {"id", "price"})
+    private String name;
+    @GetAllBy(projection = {"name", "category"})
+    private String category;
+    private Integer price;
+    @Version
+    private Long version;
+
+    public Item(String name, String category, Integer price) {
+        this.name = name;
+        this.category = category;
+        this.price = price;
+    }
+}
@@ -0,0 +1,29 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.Archivable;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+/**
+ * An archivable entity without a @Version, whose bulk archiving update mustn't be VERSIONED.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Memo implements Archivable {
+    @Id
+    @GeneratedValue
+    private Long memoId;
+    private String title;
+    private Boolean isArchived = false;
+
+    public Memo(String title) {
+        this.title = title;
+    }
+}
@@ -0,0 +1,35 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One collection valued association of each kind CollectionAssociation writes directly.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Owner extends StandardPersistableEntity {
+    private String name;
+    //join table
+    @ManyToMany
+    private Set<Tag> tags = new HashSet<>();
+    //foreign key owned by the element
+    @OneToMany(mappedBy = "owner")
+    private Set<Child> children = new HashSet<>();
+    //foreign key owned by the collection
+    @OneToMany
+    @JoinColumn(name = "owner_id")
+    private Set<Note> notes = new HashSet<>();
+
+    public Owner(String name) {
+        this.name = name;
+    }
+}
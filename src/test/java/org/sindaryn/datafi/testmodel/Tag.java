@@ -0,0 +1,20 @@
+package org.sindaryn.datafi.testmodel;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sindaryn.datafi.persistence.StandardPersistableEntity;
+
+import javax.persistence.Entity;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Tag extends StandardPersistableEntity {
+    private String name;
+
+    public Tag(String name) {
+        this.name = name;
+    }
+}